@@ -0,0 +1,69 @@
+package puc.poo.bench;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import puc.poo.model.GameObject;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks das operações do motor que cada comando do jogador usa, sobre o {@link SyntheticWorld}.
+ * <p>
+ * As operações que mudam o mundo desfazem a mudança na mesma chamada (remover e devolver o objeto,
+ * destrancar e trancar de novo a porta), para que todas as iterações meçam o mesmo trabalho.
+ * </p>
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--enable-preview")
+public class EngineBenchmark {
+
+    /**
+     * Comando completo: leitura do verbo, busca do objeto no cenário e descrição.
+     */
+    @Benchmark
+    public void processCommand(SyntheticWorld world) {
+        world.processor.processCommand(world.lookCommand);
+    }
+
+    @Benchmark
+    public GameObject scenarioGetObject(SyntheticWorld world) {
+        return world.scenario.getObject(world.middleName);
+    }
+
+    /**
+     * Remove o objeto do meio do cenário e o devolve, como "pegar" seguido de "soltar".
+     */
+    @Benchmark
+    public void scenarioRemoveObject(SyntheticWorld world) {
+        world.scenario.removeObject(world.middleObject);
+        world.scenario.addObject(world.middleObject);
+    }
+
+    @Benchmark
+    public GameObject inventoryLookup(SyntheticWorld world) {
+        return world.player.getFromInventory(world.lastItemName);
+    }
+
+    /**
+     * Destranca a porta com o último item do inventário.
+     */
+    @Benchmark
+    public void unlock(SyntheticWorld world) {
+        world.door.setOpen(false);
+        world.door.unlock(world.player.getInventory(), world.out);
+    }
+
+    @Benchmark
+    public void actionExecute(SyntheticWorld world) {
+        world.action.execute(world.out);
+    }
+}
@@ -0,0 +1,104 @@
+package puc.poo.bench;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import puc.poo.controller.CommandProcessor;
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectAction;
+import puc.poo.model.ObjectAction.ActionType;
+import puc.poo.model.ObjectCondition;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.Stag;
+import puc.poo.model.WorldRandom;
+import puc.poo.view.OutputSink;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Mundo sintético dos benchmarks: um único cenário com {@code objects} objetos ("objeto 0", "objeto 1", ...)
+ * e um jogador com outros {@code objects} itens no inventário ("item 0", "item 1", ...).
+ * <p>
+ * As consultas usam o objeto do meio do cenário e o último item do inventário, de modo que uma busca
+ * linear paga o custo típico e o pior custo, respectivamente. A porta é aberta pelo último item.
+ * Toda a saída vai para uma {@link OutputSink#silent() saída silenciosa}: a formatação do texto conta,
+ * a escrita no terminal não.
+ * </p>
+ */
+@State(Scope.Thread)
+public class SyntheticWorld {
+    @Param({"10", "1000", "100000"})
+    public int objects;
+
+    public ObjectRegistry registry;
+    public Player player;
+    public Stag stag;
+    public Scenario scenario;
+    public OutputSink out;
+    public CommandProcessor processor;
+
+    public GameObject middleObject; // Objeto do meio do cenário
+    public String middleName;
+    public String lastItemName; // Último item do inventário
+    public GameObject door; // Aberta pelo último item do inventário
+    public ObjectAction action; // Ação genérica com condição, como as do mundo padrão
+    public String lookCommand; // "ver objeto <meio>"
+
+    @Setup(Level.Trial)
+    public void build() {
+        registry = new ObjectRegistry();
+        player = new Player();
+        stag = new Stag(new WorldRandom(42));
+        out = OutputSink.silent();
+        scenario = new Scenario("Floresta", "Um cenário sintético.", "");
+
+        for (int i = 0; i < objects; i++) {
+            scenario.addObject(new GameObject(registry, "objeto " + i, "O objeto sintético número " + i + "."));
+        }
+        middleName = "objeto " + objects / 2;
+        middleObject = scenario.getObject(middleName);
+        lookCommand = "ver " + middleName;
+
+        List<GameObject> inventory = new ArrayList<>(objects);
+        for (int i = 0; i < objects; i++) {
+            GameObject item = new GameObject(registry, "item " + i, "O item sintético número " + i + ".");
+            item.setAsStorable();
+            inventory.add(item);
+        }
+        GameObject lastItem = inventory.getLast();
+        lastItemName = lastItem.getName();
+
+        door = new GameObject(registry, "porta", "Uma porta trancada.");
+        door.setAsOpenable(true);
+        door.setLock(lastItem.getId(), false);
+        scenario.addObject(door);
+
+        GameObject lever = new GameObject(registry, "alavanca", "Uma alavanca.");
+        action = new ObjectAction(player, stag, ActionType.GENERIC);
+        action.setActive(true);
+        action.setActionDescriptionActive("Você puxou a alavanca.");
+        action.setActionDescriptionInactive("A alavanca não se move.");
+        action.setCondition(new ObjectCondition());
+        lever.setAction(action);
+        scenario.addObject(lever);
+
+        player.restore(scenario, List.of(), inventory); // De uma vez, sem um evento de inventário por item
+        Map<String, Scenario> scenarios = new LinkedHashMap<>();
+        scenarios.put(scenario.getName(), scenario);
+        processor = new CommandProcessor(player, scenarios, out);
+    }
+
+    @TearDown(Level.Trial)
+    public void release() {
+        registry.release();
+    }
+}
@@ -1,13 +1,26 @@
 package puc.poo;
 
+import puc.poo.controller.AmbientScheduler;
 import puc.poo.controller.CommandProcessor;
 import puc.poo.controller.StagSpotter;
+import puc.poo.controller.WorldImage;
+import puc.poo.controller.WorldTemplate;
+import puc.poo.model.ObjectRegistry;
 import puc.poo.model.Stag;
 import puc.poo.model.Player;
 import puc.poo.model.Scenario;
+import puc.poo.model.WorldRandom;
+import puc.poo.persistence.DurableSession;
+import puc.poo.persistence.SnapshotStore;
 import puc.poo.controller.ScenarioManager;
+import puc.poo.server.GameServer;
+import puc.poo.view.OutputSink;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.Map;
 import java.util.Scanner;
 
@@ -15,74 +28,227 @@ import java.util.Scanner;
  * A classe Game inicializa e gerencia o fluxo e a lógica do jogo.
  * Configura o player, os cenários e o processamento de comandos.
  * O jogo começa com uma mensagem inicial (breve tutorial) e entra no loop principal para aguardar os comandos do jogador.
+ * Cada instância é uma sessão independente, com seu próprio mundo, entrada e saída.
  */
 public class Game {
 
     public Player player; // Representa o jogador do jogo
-    public Stag stag = new Stag(); // Representa um elemento ou entidade do jogo
+    public Stag stag; // Representa um elemento ou entidade do jogo
     public Map<String, Scenario> scenarios; // Mapa que mapeia nomes de cenários para objetos de cenário
+    private final ScenarioManager scenarioManager; // Gerenciador de cenários deste mundo
+    private final ObjectRegistry registry; // Registro dos objetos deste mundo
     private final CommandProcessor commandProcessor; // Processador de comandos do jogador
+    private final Scanner input; // Entrada da sessão (terminal ou conexão)
+    private final OutputSink out; // Saída da sessão
+    private final String sessionId; // Identificador da sessão durável, ou null se a sessão não for recuperável
+    private final boolean network; // Se a sessão é de um jogador do servidor, com arquivos separados dos do terminal
+    private static final Path SAVE_DIRECTORY = Path.of("saves"); // Diretório dos jogos salvos
+    private static final String NETWORK_DIRECTORY = "net"; // Subdiretório dos arquivos dos jogadores do servidor
+    private static final Path SESSION_DIRECTORY = Path.of("sessions"); // Diretório das sessões recuperáveis
+    private static final String CONSOLE_SESSION = "console"; // Sessão do terminal; as do servidor ficam em "net"
 
-    // Construtor da classe Game
+    // Construtor da classe Game para jogar no terminal
     public Game() {
+        this(new Scanner(System.in), OutputSink.console(), CONSOLE_SESSION);
+    }
+
+    // Construtor da classe Game para jogar no terminal um mundo compilado
+    public Game(WorldImage world) {
+        this(new Scanner(System.in), OutputSink.console(), CONSOLE_SESSION, new WorldRandom(), new WorldTemplate(world));
+    }
+
+    // Construtor da classe Game para uma sessão com entrada e saída próprias, sem recuperação após queda
+    public Game(Scanner input, OutputSink out) {
+        this(input, out, null);
+    }
+
+    // Construtor da classe Game para uma sessão que, se o processo cair, é retomada pelo mesmo identificador
+    public Game(Scanner input, OutputSink out, String sessionId) {
+        this(input, out, sessionId, new WorldRandom());
+    }
+
+    // Construtor da classe Game com a fonte de aleatoriedade definida, para partidas reproduzíveis
+    public Game(Scanner input, OutputSink out, String sessionId, WorldRandom random) {
+        this(input, out, sessionId, random, null);
+    }
+
+    // Construtor da classe Game para o terminal: o mundo vem de um template compartilhado ou, se for null, do mundo padrão
+    public Game(Scanner input, OutputSink out, String sessionId, WorldRandom random, WorldTemplate world) {
+        this(input, out, sessionId, random, world, false);
+    }
+
+    // Construtor da classe Game completo. Numa sessão do servidor (network), o identificador é o nome do jogador e os
+    // jogos salvos ficam num diretório só dele, para que um jogador não grave nem carregue os jogos de outro
+    public Game(Scanner input, OutputSink out, String sessionId, WorldRandom random, WorldTemplate world, boolean network) {
+        this.input = input;
+        this.out = out;
+        this.sessionId = sessionId;
+        this.network = network;
+        stag = new Stag(random); // Inicializa o veado com a aleatoriedade do mundo
         player = new Player(); // Inicializa o jogador
-        ScenarioManager scenarioManager = new ScenarioManager(player, stag); // Gerenciador de cenários
-        scenarios = new HashMap<>(); // Inicializa o mapa de cenários
-        scenarioManager.initializeScenarios(); // Inicializa os cenários
-        commandProcessor = new CommandProcessor(player, scenarios); // Inicializa o processador de comandos com o jogador e os cenários
+        scenarioManager = new ScenarioManager(player, stag); // Gerenciador de cenários
+        if (world != null) {
+            scenarioManager.loadWorld(world); // Só o estado da sessão; textos compartilhados com as outras sessões
+        } else {
+            scenarioManager.initializeScenarios(); // Inicializa os cenários
+        }
+        scenarios = scenarioManager.getScenarios(); // Mapa de cenários criado pelo gerenciador
+        registry = scenarioManager.getRegistry(); // Objetos criados pelo gerenciador
+        commandProcessor = new CommandProcessor(player, scenarios, out); // Inicializa o processador de comandos com o jogador e os cenários
+        if (!network) {
+            commandProcessor.setSnapshotStore(new SnapshotStore(scenarioManager, SAVE_DIRECTORY)); // Habilita salvar/carregar
+        } else if (sessionId != null) {
+            Path saves = SAVE_DIRECTORY.resolve(NETWORK_DIRECTORY).resolve(sessionId);
+            commandProcessor.setSnapshotStore(new SnapshotStore(scenarioManager, saves)); // Só os jogos deste jogador
+        }
+        commandProcessor.setWorldGraph(scenarioManager.getGraph()); // Habilita "ir para" e "distância"
     }
 
-    // Mét. que exibe uma mensagem de boas-vindas e pequenas instruções para o jogador
-    private void showWelcomeMessage() {
-        Scanner sc = new Scanner(System.in);
+    // Mét. que exibe uma mensagem de boas-vindas e pequenas instruções para o jogador.
+    // Retorna falso se o jogador desistir de jogar.
+    private boolean showWelcomeMessage() {
         String answer;
-        System.out.println("BEM-VINDO AO JOGO DO CAÇADOR!");
-        System.out.print("Pressione ENTER para continuar.");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.print("A interação deste jogo é feita por meio de comandos no terminal.");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.print("    Exemplo: ver objeto\n     ou ver :objeto específico (para especificar o nome maior do objeto)");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.print("Alguns comandos, como no exemplo, dependem de um objeto para interagir.");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.print("Mas você pode usar \"ver\", \"observar\" ou \"olhar\" para obter informações do cenário em que você se encontra.");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.print("Use o comando \"ajuda\" para listar os comandos ou \"sair\" para encerrar o jogo.");
-        sc.nextLine(); // Aguarda o jogador pressionar ENTER
-        System.out.println("Vamos começar? Digite \"NÃO\" para sair ou qualquer entrada para continuar.");
-        answer = sc.nextLine().toLowerCase(); // Lê a resposta do jogador
+        out.println("BEM-VINDO AO JOGO DO CAÇADOR!");
+        out.print("Pressione ENTER para continuar.");
+        waitForEnter();
+        out.print("A interação deste jogo é feita por meio de comandos no terminal.");
+        waitForEnter();
+        out.print("    Exemplo: ver objeto\n     ou ver :objeto específico (para especificar o nome maior do objeto)");
+        waitForEnter();
+        out.print("Alguns comandos, como no exemplo, dependem de um objeto para interagir.");
+        waitForEnter();
+        out.print("Mas você pode usar \"ver\", \"observar\" ou \"olhar\" para obter informações do cenário em que você se encontra.");
+        waitForEnter();
+        out.print("Use o comando \"ajuda\" para listar os comandos ou \"sair\" para encerrar o jogo.");
+        waitForEnter();
+        out.println("Vamos começar? Digite \"NÃO\" para sair ou qualquer entrada para continuar.");
+        out.flush();
+        answer = input.nextLine().toLowerCase(); // Lê a resposta do jogador
         if (answer.equals("não") || answer.equals("nao") || answer.equals("n")) {
-            System.out.println("Saindo do jogo...");
-            System.exit(0); // Sai do jogo se o jogador não quiser continuar
+            out.println("Saindo do jogo...");
+            out.flush();
+            return false; // Sai do jogo se o jogador não quiser continuar
         }
+        return true;
     }
 
-    // Mét. que inicia o jogo
+    // Mét. que envia o texto pendente e aguarda o jogador pressionar ENTER
+    private void waitForEnter() {
+        out.flush();
+        input.nextLine();
+    }
+
+    // Mét. que inicia o jogo com o tutorial
     public void start() {
-        Scanner scanner = new Scanner(System.in);
-        String command;
-        int flag = 0;
-
-        showWelcomeMessage(); // Exibe mensagem de boas-vindas e instruções
-        StagSpotter stagSpotter = new StagSpotter(stag, player); // Inicializa o StagSpotter com o jogador e a entidade stag
-        Thread doveSpotterThread = new Thread(stagSpotter); // Cria uma nova thread para o StagSpotter
-        doveSpotterThread.start(); // Inicia a thread do StagSpotter
-
-        // Loop principal do jogo
-        while (true) {
-            if (flag == 0) {
-                System.out.println(player.getCurrentScenario().getImagePath());
-                System.out.println(player.getCurrentScenario().getDescription()); // Exibe a descrição do cenário atual do jogador
-                flag = 1; // Marca que a descrição inicial do cenário já foi exibida
+        if (showWelcomeMessage()) { // Exibe mensagem de boas-vindas e instruções
+            play();
+        }
+    }
+
+    // Mét. que executa o loop principal até o jogo terminar ou a entrada acabar
+    public void play() {
+        DurableSession durableSession = openDurableSession(); // Recupera a sessão anterior, se houver
+        StagSpotter stagSpotter = new StagSpotter(stag, player, out); // Inicializa o StagSpotter com o jogador e a entidade stag
+        stagSpotter.start(AmbientScheduler.shared()); // Registra o StagSpotter no agendador compartilhado
+
+        try {
+            out.printView(player.getCurrentScenario().getView());
+            out.printDescription(player.getCurrentScenario().getDescription()); // Exibe a descrição do cenário atual do jogador
+
+            out.flush();
+
+            // Loop principal do jogo: a saída de cada comando é enviada de uma vez
+            while (!commandProcessor.isFinished() && input.hasNextLine()) {
+                commandProcessor.processCommand(input.nextLine()); // Processa o comando do jogador
+                if (out.keepsScene()) {
+                    Scenario scenario = player.getCurrentScenario(); // Num terminal ANSI, a cena reflete o comando
+                    out.refreshScene(scenario.getView(), scenario.getDescription());
+                }
+                if (durableSession != null) {
+                    durableSession.afterCommand(); // Checkpoint periódico
+                }
+                out.flush();
+            }
+        } catch (IOException e) {
+            out.println("Aviso: não foi possível gravar o progresso da sessão (" + e.getMessage() + ").");
+        } finally {
+            stagSpotter.stop(); // Encerra o StagSpotter junto com a sessão
+            closeDurableSession(durableSession);
+            registry.release(); // Libera os objetos do mundo desta sessão
+            out.finish(); // Entrega a narração ainda agendada antes de a sessão fechar
+        }
+    }
+
+    // Mét. que recupera a sessão anterior deste identificador e passa a gravar os comandos no diário
+    private DurableSession openDurableSession() {
+        if (sessionId == null) {
+            return null;
+        }
+        // As sessões do servidor têm um diretório próprio, para que um jogador chamado "console" não use a do terminal
+        Path directory = network ? SESSION_DIRECTORY.resolve(NETWORK_DIRECTORY) : SESSION_DIRECTORY;
+        DurableSession durableSession = new DurableSession(scenarioManager, commandProcessor, directory, sessionId);
+        try {
+            if (durableSession.recover()) {
+                out.println("Sessão anterior recuperada.");
+                if (durableSession.getSkippedCommands() > 0) {
+                    out.println("Aviso: " + durableSession.getSkippedCommands() + " comando(s) do diário falharam e foram ignorados.");
+                }
+            }
+            durableSession.start();
+            return durableSession;
+        } catch (IOException e) {
+            out.println("Aviso: a sessão não poderá ser recuperada (" + e.getMessage() + ").");
+            closeDurableSession(durableSession);
+            return null;
+        }
+    }
+
+    // Mét. que encerra a sessão durável; os arquivos só são apagados se o jogo terminou
+    private void closeDurableSession(DurableSession durableSession) {
+        if (durableSession == null) {
+            return;
+        }
+        try {
+            if (commandProcessor.isFinished()) {
+                durableSession.finish();
+            } else {
+                durableSession.close(); // Entrada encerrada ou conexão perdida: a sessão pode ser retomada
             }
-            command = scanner.nextLine(); // Lê o comando do jogador
-            commandProcessor.processCommand(command); // Processa o comando do jogador
+        } catch (IOException e) {
+            out.println("Aviso: não foi possível encerrar a sessão (" + e.getMessage() + ").");
         }
     }
 
-    // Mét. principal que inicia o jogo
-    public static void main(String[] args) {
-        Game game = new Game(); // Cria um novo jogo
+    // Mét. principal que inicia o jogo no terminal ou, com "--server [porta] [semente] [mundo.img]", o servidor.
+    // Com "--world mundo.img", o jogo no terminal usa um mundo compilado pelo WorldCompiler.
+    // Com "--ansi", a cena fica fixa no topo do terminal e só o que muda é redesenhado.
+    // Com "--fast", as pausas de narração são ignoradas (para entradas com roteiro).
+    public static void main(String[] args) throws IOException {
+        if (args.length > 0 && args[0].equals("--server")) {
+            GameServer.main(Arrays.copyOfRange(args, 1, args.length));
+            return;
+        }
+        List<String> options = new ArrayList<>(Arrays.asList(args));
+        boolean ansi = options.remove("--ansi");
+        boolean fast = options.remove("--fast");
+        args = options.toArray(String[]::new);
+        WorldTemplate world = null; // Mundo padrão
+        if (args.length > 1 && args[0].equals("--world")) {
+            world = new WorldTemplate(WorldImage.open(Path.of(args[1])));
+        }
+        OutputSink out = ansi ? OutputSink.ansi(System.out, terminalRows()) : OutputSink.console();
+        out.setPaced(!fast);
+        Game game = new Game(new Scanner(System.in), out, CONSOLE_SESSION, new WorldRandom(), world); // Cria um novo jogo
         game.start(); // Inicia o jogo
     }
-}
\ No newline at end of file
+
+    // Mét. que obtém o número de linhas do terminal pela variável LINES, quando o shell a exporta
+    private static int terminalRows() {
+        try {
+            String lines = System.getenv("LINES");
+            return lines != null ? Integer.parseInt(lines) : OutputSink.DEFAULT_TERMINAL_ROWS;
+        } catch (NumberFormatException e) {
+            return OutputSink.DEFAULT_TERMINAL_ROWS;
+        }
+    }
+}
@@ -0,0 +1,78 @@
+package puc.poo.controller;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A classe AmbientScheduler agenda verificações periódicas do ambiente (como a percepção do veado)
+ * e tarefas de fundo atrasadas (como a gravação em lote do diário de comandos) para todas as sessões
+ * a partir de uma única thread de temporização compartilhada.
+ * <p>
+ * Cada tarefa disparada roda numa thread virtual, de modo que uma sessão lenta para receber
+ * o texto ou gravar em disco não atrasa as demais. O número de threads do sistema não cresce com o número de sessões.
+ * </p>
+ */
+public final class AmbientScheduler {
+    private static final AmbientScheduler SHARED = new AmbientScheduler();
+
+    private final ScheduledExecutorService timer;
+
+    private AmbientScheduler() {
+        timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ambient-scheduler");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Retorna o agendador compartilhado por todas as sessões do processo.
+     *
+     * @return O agendador compartilhado.
+     */
+    public static AmbientScheduler shared() {
+        return SHARED;
+    }
+
+    /**
+     * Agenda uma tarefa para ser executada uma única vez após um atraso.
+     *
+     * @param task  A tarefa a ser executada.
+     * @param delay O atraso até a execução.
+     * @param unit  A unidade do atraso.
+     * @return O agendamento, que pode ser cancelado antes da execução.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        return timer.schedule(() -> {
+            Thread.startVirtualThread(task);
+        }, delay, unit);
+    }
+
+    /**
+     * Registra uma verificação periódica.
+     * Se a execução anterior ainda não terminou, o disparo seguinte é ignorado.
+     *
+     * @param check        A verificação a ser executada.
+     * @param initialDelay O atraso até a primeira execução.
+     * @param period       O intervalo entre as execuções.
+     * @param unit         A unidade do atraso e do intervalo.
+     * @return O agendamento, que deve ser cancelado quando não for mais necessário.
+     */
+    public ScheduledFuture<?> schedule(Runnable check, long initialDelay, long period, TimeUnit unit) {
+        AtomicBoolean running = new AtomicBoolean();
+        return timer.scheduleAtFixedRate(() -> {
+            if (running.compareAndSet(false, true)) {
+                Thread.startVirtualThread(() -> {
+                    try {
+                        check.run();
+                    } finally {
+                        running.set(false);
+                    }
+                });
+            }
+        }, initialDelay, period, unit);
+    }
+}
@@ -0,0 +1,130 @@
+package puc.poo.controller;
+
+import puc.poo.model.WorldRandom;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.LongStream;
+
+/**
+ * A classe BatchRunner joga muitas partidas com roteiro em memória, sem servidor nem rede, usando todos
+ * os núcleos da máquina. Serve para checar regressões (o roteiro completo deve vencer) e para balancear
+ * o jogo (por exemplo, em quantas partidas o veado escapa de todos os tiros).
+ * <p>
+ * Cada partida é uma {@link GameSession} com a semente {@code semente + i}, então uma execução é
+ * reproduzível e uma partida específica pode ser repetida isoladamente.
+ * </p>
+ * <p>
+ * Uso: {@code BatchRunner [partidas] [semente] [roteiro.txt] [mundo.img]} (padrão: 1 milhão de partidas,
+ * semente 0, o {@link #WALKTHROUGH} e o mundo padrão). O roteiro tem um comando por linha. Cada partida termina
+ * com um {@link GameOutcome}, e o resumo separa vitórias, partidas encerradas com "sair" e roteiros que acabaram
+ * antes do fim da partida.
+ * </p>
+ */
+public class BatchRunner {
+    /**
+     * Roteiro completo do jogo, do início até soltar os chifres dentro da cabana. Usa as cinco balas do rifle:
+     * cada tiro pode errar, e os que sobram depois de o veado cair só respondem que ele já está morto.
+     */
+    public static final List<String> WALKTHROUGH = List.of(
+            "ir norte", "usar pote", "abrir porta", "entrar porta", "usar retrato", "abrir baú", "usar baú",
+            "usar munição", "voltar", "ir sul", "usar rifle", "usar rifle", "usar rifle", "usar rifle",
+            "usar rifle", "pegar chifres", "ir norte", "entrar porta", "soltar chifres", "sair", "sim");
+
+    private final WorldTemplate world;
+    private final List<String> script;
+    private final LongAdder won = new LongAdder();
+    private final LongAdder quit = new LongAdder();
+    private final LongAdder unfinished = new LongAdder();
+    private final LongAdder turns = new LongAdder();
+
+    /**
+     * Construtor do executor.
+     *
+     * @param world  O mundo, compartilhado por todas as partidas.
+     * @param script Os comandos de cada partida.
+     */
+    public BatchRunner(WorldTemplate world, List<String> script) {
+        this.world = world;
+        this.script = List.copyOf(script);
+    }
+
+    /**
+     * Joga as partidas em paralelo e espera todas terminarem.
+     *
+     * @param games O número de partidas.
+     * @param seed  A semente da primeira partida; as seguintes usam as sementes consecutivas.
+     */
+    public void run(long games, long seed) {
+        LongStream.range(0, games).parallel().forEach(i -> play(seed + i));
+    }
+
+    /**
+     * Joga uma partida até o fim do roteiro ou até ela terminar.
+     *
+     * @param seed A semente da partida.
+     * @return A situação da partida ao final.
+     */
+    public GameOutcome play(long seed) {
+        try (GameSession session = new GameSession(world, new WorldRandom(seed), false)) {
+            for (String command : script) {
+                if (session.submit(command).finished()) {
+                    break;
+                }
+            }
+            turns.add(session.getTurns());
+            GameOutcome outcome = session.getOutcome();
+            switch (outcome) {
+                case WON -> won.increment();
+                case QUIT -> quit.increment();
+                case PLAYING -> unfinished.increment();
+            }
+            return outcome;
+        }
+    }
+
+    public long getWon() {
+        return won.sum();
+    }
+
+    public long getQuit() {
+        return quit.sum();
+    }
+
+    public long getUnfinished() {
+        return unfinished.sum();
+    }
+
+    public long getTurns() {
+        return turns.sum();
+    }
+
+    /**
+     * Executa as partidas e mostra o resumo.
+     *
+     * @param args Opcionalmente, o número de partidas, a semente, o roteiro e o mundo compilado.
+     * @throws IOException Se o roteiro ou o mundo não puderem ser lidos.
+     */
+    public static void main(String[] args) throws IOException {
+        long games = args.length > 0 ? Long.parseLong(args[0]) : 1_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        List<String> script = args.length > 2 && !args[2].equals("-")
+                ? Files.readAllLines(Path.of(args[2]), StandardCharsets.UTF_8) : WALKTHROUGH;
+        WorldTemplate world = args.length > 3
+                ? new WorldTemplate(WorldImage.open(Path.of(args[3]))) : WorldTemplate.defaultWorld();
+
+        BatchRunner runner = new BatchRunner(world, script);
+        long start = System.nanoTime();
+        runner.run(games, seed);
+        long elapsedMillis = Math.max((System.nanoTime() - start) / 1_000_000, 1);
+
+        System.out.printf("Partidas: %d (vitórias: %d, encerradas: %d, sem fim: %d), %.1f comandos em média%n",
+                games, runner.getWon(), runner.getQuit(), runner.getUnfinished(), (double) runner.getTurns() / games);
+        System.out.printf("%d ms em %d núcleos (%d partidas/s)%n", elapsedMillis,
+                Runtime.getRuntime().availableProcessors(), games * 1000 / elapsedMillis);
+    }
+}
@@ -2,13 +2,17 @@ package puc.poo.controller;
 
 import puc.poo.model.Stag;
 import puc.poo.model.GameObject;
+import puc.poo.model.Inventory;
 import puc.poo.model.Player;
 import puc.poo.model.Scenario;
+import puc.poo.persistence.CommandJournal;
+import puc.poo.persistence.SnapshotStore;
+import puc.poo.view.OutputSink;
 
-import java.util.List;
+import java.io.IOException;
+import java.util.Locale;
 import java.util.Map;
 import java.util.Set;
-import java.util.Scanner;
 
 /**
  * A classe `CommandProcessor` lida com comandos textuais para interagir com o ambiente do jogo.
@@ -16,94 +20,178 @@ import java.util.Scanner;
  * por cenários, manipulem objetos e executem tarefas no jogo usando comandos textuais simples.
  */
 public class CommandProcessor {
+    static final String TROPHY_NAME = "chifres do veado"; // Objeto que vence o jogo ao ser solto...
+    static final String TROPHY_ROOM = "Interior da Cabana"; // ...neste cenário
+    public static final String VICTORY_MESSAGE = "Parabéns! Você completou o jogo!"; // Também procurada por clientes
+    private static final int TRAVEL_NARRATED_STEPS = 8; // Até quantos passos "ir para" cita cada cenário
+    private static final Set<String> CARDINALS = Set.of("norte", "sul", "leste", "oeste");
     private Player player;
     private Stag stag;
     private Map<String, Scenario> scenarios;
+    private final OutputSink out; // Saída da sessão
+    private GameOutcome outcome = GameOutcome.PLAYING; // Situação da partida (em andamento, vitória ou "sair")
+    private boolean confirmingQuit; // Se a próxima linha é a resposta à pergunta do "sair"
+    private SnapshotStore snapshots; // Jogos salvos desta sessão, se disponíveis
+    private CommandJournal journal; // Diário dos comandos aceitos, se a sessão for durável
+    private Runnable loadListener; // Avisado quando um jogo salvo substitui o mundo, se houver
+    private WorldGraph graph; // Caminhos entre os cenários, para "ir para" e "distância"
+    private final VerbTable<Command> commands = new VerbTable<>(); // verbo -> comando, montada uma única vez
+
+    /**
+     * Tratador de um comando, que recebe o assunto do comando (ou {@code null}).
+     */
+    @FunctionalInterface
+    private interface CommandHandler {
+        void handle(String subject);
+    }
+
+    /**
+     * Entrada da tabela de verbos.
+     *
+     * @param handler   O tratador do comando.
+     * @param journaled Se o comando deve ser gravado no diário da sessão.
+     */
+    private record Command(CommandHandler handler, boolean journaled) {}
 
     /**
      * Construtor da classe `CommandProcessor`.
      *
      * @param player    O jogador que está interagindo com o ambiente do jogo.
      * @param scenarios Um mapa de cenários, onde a chave é o nome do cenário e o valor é o objeto `Scenario`.
+     * @param out       A saída da sessão.
      */
-    public CommandProcessor(Player player, Map<String, Scenario> scenarios) {
+    public CommandProcessor(Player player, Map<String, Scenario> scenarios, OutputSink out) {
         this.player = player;
         this.scenarios = scenarios;
+        this.out = out;
+
+        register(this::look, "olhar", "observar", "ver");
+        register(this::goToScenario, "entrar", "ir");
+        register(this::open, "abrir");
+        register(this::close, "fechar");
+        register(this::take, "pegar");
+        register(this::drop, "largar", "soltar");
+        register(this::use, "usar");
+        register(subject -> back(), "voltar");
+        register(subject -> showInventory(), "i", "inventário", "inventario");
+        register(subject -> help(), "ajuda");
+        // "sair" não vai para o diário: nem ele nem a resposta da confirmação mudam o mundo,
+        // e um jogo encerrado não é recuperado. "salvar" e "carregar" também não, para que a recuperação
+        // nunca toque nos jogos salvos: quem ouve o "carregar" faz um checkpoint do mundo carregado.
+        commands.register(new Command(subject -> quit(), false), "sair");
+        commands.register(new Command(this::save, false), "salvar");
+        commands.register(new Command(this::load, false), "carregar");
+        commands.register(new Command(this::distance, false), "distância", "distancia");
+    }
+
+    private void register(CommandHandler handler, String... verbs) {
+        commands.register(new Command(handler, true), verbs);
     }
 
     /**
      * Processa um comando textual fornecido pelo usuário.
+     * <p>
+     * O comando é lido em uma única passagem: a primeira palavra é o verbo, procurado na tabela
+     * de verbos, e todo o restante da linha é o assunto (por exemplo, "pegar chave da cabana").
+     * Se o assunto contiver ":", apenas o texto após os dois-pontos é usado ("ver :objeto específico").
+     * Nenhum objeto é alocado além da {@code String} do assunto.
+     * Se a sessão for durável, o comando aceito é gravado no diário depois de executado sem erros,
+     * para que um comando que falha não seja repetido a cada recuperação.
+     * Depois de "sair", a linha seguinte é a resposta da confirmação, e não um comando.
+     * </p>
      *
      * @param command O comando textual a ser processado.
      */
-    public void processCommand(String command) {
-        String[] parts = command.split(" ");
-        String action = parts[0];
-        String subject;
-        if (parts.length > 1) {
-            if (parts[1].contains(":")) {
-                subject = parts[1].split(":")[1];
-            } else {
-                subject = parts[1];
+    public void processCommand(CharSequence command) {
+        if (confirmingQuit) {
+            confirmQuit(command.toString().trim().toLowerCase(Locale.ROOT));
+            return;
+        }
+        int length = command.length();
+        int verbStart = skipWhitespace(command, 0);
+        int verbEnd = verbStart;
+        while (verbEnd < length && !Character.isWhitespace(command.charAt(verbEnd))) {
+            verbEnd++;
+        }
+
+        Command entry = commands.lookup(command, verbStart, verbEnd);
+        if (entry == null) {
+            out.println("Não entendo isso.");
+            return;
+        }
+        entry.handler().handle(subject(command, verbEnd));
+        if (journal != null && entry.journaled()) {
+            try {
+                journal.appendCommand(command);
+            } catch (IOException e) {
+                // A sessão durável faz um novo checkpoint após o comando, que volta a incluir este
+                out.println("Aviso: não foi possível gravar o comando no diário da sessão (" + e.getMessage() + ").");
             }
-        } else {
-            subject = null;
         }
+    }
 
-        switch (action) {
-            case "olhar":
-            case "observar":
-            case "ver":
-                look(subject);
-                break;
-            case "entrar":
-            case "ir":
-                goToScenario(subject);
-                break;
-            case "abrir":
-                open(subject);
-                break;
-            case "fechar":
-                close(subject);
-                break;
-            case "pegar":
-                take(subject);
-                break;
-            case "largar":
-            case "soltar":
-                drop(subject);
-                break;
-            case "usar":
-                use(subject);
-                break;
-            case "voltar":
-                back();
-                break;
-            case "sair":
-                Scanner sc = new Scanner(System.in);
-                System.out.println("Deseja fechar o jogo? ");
-                String resposta = sc.nextLine().toLowerCase();
-                if (resposta.equals("sim")) {
-                    System.out.println("Fechando jogo...");
-                    System.exit(0);
-                } else {
-                    System.out.println("Ok. Continue a jogar!");
-                }
-                break;
-            case "i": // Comando de inventário
-            case "inventário":
-                showInventory();
-                break;
-            case "ajuda":
-                System.out.println("Lista de comandos: observar/ver, entrar/ir, abrir, fechar, pegar, largar/soltar," +
-                        " usar, voltar, i/inventário");
-                System.out.println("Comando de sistema: sair");
+    /**
+     * Extrai o assunto de um comando, a partir do fim do verbo.
+     *
+     * @param command O comando textual.
+     * @param from    O índice logo após o verbo.
+     * @return O assunto sem espaços nas pontas, ou {@code null} se o comando não tiver assunto.
+     */
+    private static String subject(CharSequence command, int from) {
+        int length = command.length();
+        int start = skipWhitespace(command, from);
+        for (int i = start; i < length; i++) {
+            if (command.charAt(i) == ':') {
+                start = skipWhitespace(command, i + 1);
                 break;
-            default:
-                System.out.println("Não entendo isso.");
+            }
+        }
+        int end = length;
+        while (end > start && Character.isWhitespace(command.charAt(end - 1))) {
+            end--;
+        }
+        return start < end ? command.subSequence(start, end).toString() : null;
+    }
+
+    private static int skipWhitespace(CharSequence command, int index) {
+        while (index < command.length() && Character.isWhitespace(command.charAt(index))) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Pergunta se o jogador quer encerrar o jogo; a resposta chega como a próxima linha.
+     */
+    private void quit() {
+        out.println("Deseja fechar o jogo? ");
+        confirmingQuit = true;
+    }
+
+    /**
+     * Encerra o jogo se o jogador confirmou o "sair".
+     *
+     * @param resposta A resposta do jogador, em minúsculas.
+     */
+    private void confirmQuit(String resposta) {
+        confirmingQuit = false;
+        if (resposta.equals("sim")) {
+            out.println("Fechando jogo...");
+            outcome = GameOutcome.QUIT;
+        } else {
+            out.println("Ok. Continue a jogar!");
         }
     }
 
+    /**
+     * Mostra a lista de comandos disponíveis.
+     */
+    private void help() {
+        out.println("Lista de comandos: observar/ver, entrar/ir, ir para <lugar>, distância <lugar>, abrir," +
+                " fechar, pegar, largar/soltar, usar, voltar, i/inventário");
+        out.println("Comandos de sistema: salvar [nome], carregar [nome], sair");
+    }
+
     /**
      * Move o jogador para um cenário específico com base na entrada fornecida.
      *
@@ -111,24 +199,27 @@ public class CommandProcessor {
      */
     private void goToScenario(String input) {
         Scenario currentScenario = player.getCurrentScenario();
-        Set<String> cardinals = Set.of("norte", "sul", "leste", "oeste");
 
         if (input != null) {
+            // "ir para <lugar>" percorre o caminho mais curto até um cenário
+            if (graph != null && (input.equalsIgnoreCase("para") || input.regionMatches(true, 0, "para ", 0, 5))) {
+                travel(input.substring(4).trim());
+                return;
+            }
+
             // Verificar se a entrada é uma direção cardinal
-            if (cardinals.contains(input)) {
+            if (CARDINALS.contains(input)) {
                 Scenario nextScenario = currentScenario.getExit(input);
 
                 // Verificar se existe um cenário nessa direção
                 if (nextScenario != null) {
                     player.setCurrentScenario(nextScenario);
-                    System.out.println(player.getCurrentScenario().getImagePath());
-                    System.out.println("Você chegou em \"" + nextScenario.getName().toUpperCase() + "\".");
-                    try {
-                        Thread.sleep(1000);
-                        look(null);
-                    } catch (Exception e) {}
+                    out.printView(player.getCurrentScenario().getView());
+                    out.println("Você chegou em \"" + nextScenario.getName().toUpperCase() + "\".");
+                    out.pause(1000);
+                    look(null);
                 } else {
-                    System.out.println("Não há caminho para essa direção.");
+                    out.println("Não há caminho para essa direção.");
                 }
                 return;
             }
@@ -142,26 +233,99 @@ public class CommandProcessor {
                         Scenario nextScenario = currentScenario.getExit(input); // Obter o cenário associado a esse objeto
                         if (nextScenario != null) {
                             player.setCurrentScenario(nextScenario);
-                            System.out.println(player.getCurrentScenario().getImagePath());
-                            System.out.println("Você chegou em \"" + nextScenario.getName() + "\".");
-                            try {
-                                Thread.sleep(1000);
-                                look(null);
-                            } catch (Exception e) {}
+                            out.printView(player.getCurrentScenario().getView());
+                            out.println("Você chegou em \"" + nextScenario.getName() + "\".");
+                            out.pause(1000);
+                            look(null);
                         } else {
-                            System.out.println("Esse caminho não leva a lugar nenhum.");
+                            out.println("Esse caminho não leva a lugar nenhum.");
                         }
                     } else {
-                        System.out.println("Esse caminho está fechado.");
+                        out.println("Esse caminho está fechado.");
                     }
                 } else {
-                    System.out.println("Esse objeto não pode ser usado para viajar.");
+                    out.println("Esse objeto não pode ser usado para viajar.");
                 }
             } else {
-                System.out.println("Direção ou objeto inválido.");
+                out.println("Direção ou objeto inválido.");
             }
         } else {
-            System.out.println("Preciso de um lugar para entrar...");
+            out.println("Preciso de um lugar para entrar...");
+        }
+    }
+
+    /**
+     * Leva o jogador pelo caminho mais curto até um cenário, passando só por portas abertas.
+     *
+     * @param place O nome do cenário de destino, ou um trecho dele.
+     */
+    private void travel(String place) {
+        if (place.isEmpty()) {
+            out.println("Preciso de um lugar para onde ir...");
+            return;
+        }
+        int target = graph.find(place);
+        if (target < 0) {
+            out.println("Não conheço nenhum lugar chamado \"" + place + "\".");
+            return;
+        }
+        Scenario current = player.getCurrentScenario();
+        WorldGraph.Route route = graph.route(current, target);
+        if (route == null) {
+            if (graph.reachableThroughDoors(current, target)) {
+                out.println("O caminho até \"" + graph.scenario(target).getName() + "\" está fechado.");
+            } else {
+                out.println("Não há caminho daqui até \"" + graph.scenario(target).getName() + "\".");
+            }
+            return;
+        }
+        if (route.length() == 0) {
+            out.println("Você já está em \"" + current.getName() + "\".");
+            return;
+        }
+        boolean narrate = route.length() <= TRAVEL_NARRATED_STEPS; // Caminhos longos não listam cada cenário
+        for (int i = 0; i < route.length(); i++) {
+            if (i > 0 && narrate) {
+                out.println("Você passou por \"" + current.getName() + "\".");
+            }
+            current = current.getExit(route.steps().get(i));
+            player.setCurrentScenario(current);
+        }
+        if (!narrate) {
+            out.println("Você passou por " + (route.length() - 1) + " lugares.");
+        }
+        out.printView(current.getView());
+        int steps = route.length();
+        out.println("Você chegou em \"" + current.getName() + "\" (" + steps + (steps == 1 ? " passo)." : " passos)."));
+        out.pause(1000);
+        look(null);
+    }
+
+    /**
+     * Diz a quantos passos um cenário está, com as portas como estão agora.
+     *
+     * @param place O nome do cenário, ou um trecho dele.
+     */
+    private void distance(String place) {
+        if (graph == null || place == null || place.isBlank()) {
+            out.println("Preciso de um lugar para medir a distância...");
+            return;
+        }
+        int target = graph.find(place);
+        if (target < 0) {
+            out.println("Não conheço nenhum lugar chamado \"" + place + "\".");
+            return;
+        }
+        String name = graph.scenario(target).getName();
+        int steps = graph.distance(player.getCurrentScenario(), target);
+        if (steps == 0) {
+            out.println("Você já está em \"" + name + "\".");
+        } else if (steps > 0) {
+            out.println("\"" + name + "\" fica a " + steps + (steps == 1 ? " passo daqui." : " passos daqui."));
+        } else if (graph.reachableThroughDoors(player.getCurrentScenario(), target)) {
+            out.println("O caminho até \"" + name + "\" está fechado.");
+        } else {
+            out.println("Não há caminho daqui até \"" + name + "\".");
         }
     }
 
@@ -172,13 +336,13 @@ public class CommandProcessor {
      */
     private void look(String subject) {
         if (subject == null) {
-            System.out.println(player.getCurrentScenario().getDescription());
+            out.printDescription(player.getCurrentScenario().getDescription());
         } else {
             GameObject obj = player.getCurrentScenario().getObject(subject);
             if (obj != null) {
-                System.out.println(obj.getDescription());
+                out.println(obj.getDescription());
             } else {
-                System.out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
+                out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
             }
         }
     }
@@ -192,12 +356,12 @@ public class CommandProcessor {
         if (subject != null) {
             GameObject obj = player.getCurrentScenario().getObject(subject);
             if (obj != null) {
-                obj.unlock(player.getInventory());
+                obj.unlock(player.getInventory(), out);
             } else {
-                System.out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
+                out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
             }
         } else {
-            System.out.println("Abrir o que?!");
+            out.println("Abrir o que?!");
         }
     }
 
@@ -207,11 +371,15 @@ public class CommandProcessor {
      * @param subject O objeto a ser fechado.
      */
     private void close(String subject) {
+        if (subject == null) {
+            out.println("Fechar o que?!");
+            return;
+        }
         GameObject obj = player.getCurrentScenario().getObject(subject);
         if (obj != null) {
-            obj.lock(player.getInventory());
+            obj.lock(player.getInventory(), out);
         } else {
-            System.out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
+            out.println("Não entendo \"%s\".".formatted(subject.toUpperCase()));
         }
     }
 
@@ -221,17 +389,21 @@ public class CommandProcessor {
      * @param subject O objeto a ser pego.
      */
     private void take(String subject) {
+        if (subject == null) {
+            out.println("Pegar o que?!");
+            return;
+        }
         GameObject obj = player.getCurrentScenario().getObject(subject);
         if (obj != null) {
             if (obj.isStorable()) {
                 player.addToInventory(obj);
                 player.getCurrentScenario().removeObject(obj);
-                System.out.println("Você pegou \"" + obj.getName().toUpperCase() + "\".");
+                out.println("Você pegou \"" + obj.getName().toUpperCase() + "\".");
             } else {
-                System.out.println("Você não pode pegar isso.");
+                out.println("Você não pode pegar isso.");
             }
         } else {
-            System.out.println("Não entendo \"%s\".".formatted(subject).toUpperCase());
+            out.println("Não entendo \"%s\".".formatted(subject).toUpperCase());
         }
     }
 
@@ -241,28 +413,28 @@ public class CommandProcessor {
      * @param subject O objeto a ser largado.
      */
     private void drop(String subject) {
-        GameObject obj = player.getFromInventory(subject);
         if (subject != null) {
+            GameObject obj = player.getFromInventory(subject);
             if (obj != null) {
                 player.removeFromInventory(obj);
                 player.getCurrentScenario().addObject(obj);
-                System.out.println("Você soltou \"%s\".".formatted(obj.getName()));
+                out.println("Você soltou \"%s\".".formatted(obj.getName()));
 
                 // Se o objeto "Chifres do Veado" for solto no cenário "Interior da Cabana"
                 // o jogador completa o jogo e ele cecha.
-                if (obj.getName().equals("chifres do veado")) {
-                    if (player.getCurrentScenario().getName().equals("Interior da Cabana")) {
-                        System.out.println("Parabéns! Você completou o jogo!");
-                        System.exit(0);
+                if (obj.getName().equals(TROPHY_NAME)) {
+                    if (player.getCurrentScenario().getName().equals(TROPHY_ROOM)) {
+                        out.println(VICTORY_MESSAGE);
+                        outcome = GameOutcome.WON;
                     } else {
-                        System.out.println("Não devo soltar isso aqui.");
+                        out.println("Não devo soltar isso aqui.");
                     }
                 }
             } else {
-                System.out.println("Você não possui \"%s\" no inventário.".formatted(subject));
+                out.println("Você não possui \"%s\" no inventário.".formatted(subject));
             }
         } else {
-            System.out.println("Soltar o que?!");
+            out.println("Soltar o que?!");
         }
     }
 
@@ -285,7 +457,7 @@ public class CommandProcessor {
         if (obj != null) {
             // Se o objeto tiver ação
             if (obj.hasAction()) {
-                obj.getAction().execute();
+                obj.getAction().execute(out);
                 if (!obj.getAction().isRepeatable) {
                     obj.getAction().setActive(false);
                 }
@@ -293,27 +465,28 @@ public class CommandProcessor {
                 // Se o objeto não tiver ação
                 // mas for do tipo armazenamento
                 if (obj.isStorage()) {
-                    if (!obj.getContents().isEmpty()) {
-                        System.out.println("Há alguma coisa dentro desse objeto...");
-                        System.out.println("Você colocou no seu inventário:");
-                        obj.getContents().forEach(e -> {
+                    if (!obj.isEmpty()) {
+                        out.println("Há alguma coisa dentro desse objeto...");
+                        out.println("Você colocou no seu inventário:");
+                        for (int i = 0, count = obj.getContentCount(); i < count; i++) {
+                            GameObject e = obj.getContentAt(i);
                             player.addToInventory(e);
-                            System.out.println("- \"%s\"".formatted(e.getName().toUpperCase()));
-                        });
-                        obj.getContents().clear();
+                            out.println("- \"%s\"".formatted(e.getName().toUpperCase()));
+                        }
+                        obj.clearContents();
                     } else {
-                        System.out.println("Este objeto está vazio.");
+                        out.println("Este objeto está vazio.");
                     }
                 } else {
                     // Caso contrário...
-                    System.out.println("Esse item não pode ser usado.");
+                    out.println("Esse item não pode ser usado.");
                 }
             }
         } else {
             if (subject != null) {
-                System.out.println("Parece não haver \"%s\" ao redor.".formatted(subject.toUpperCase()));
+                out.println("Parece não haver \"%s\" ao redor.".formatted(subject.toUpperCase()));
             } else {
-                System.out.println("Usar o que?!");
+                out.println("Usar o que?!");
             }
 
         }
@@ -325,10 +498,60 @@ public class CommandProcessor {
     private void back() {
         if (player.hasPreviousScenario()) {
             player.setCurrentScenario(player.getPreviousScenario());
-            System.out.println(player.getCurrentScenario().getImagePath());
-            System.out.println("Você voltou a \"%s\".".formatted(player.getCurrentScenario().getName().toUpperCase()));
+            out.printView(player.getCurrentScenario().getView());
+            out.println("Você voltou a \"%s\".".formatted(player.getCurrentScenario().getName().toUpperCase()));
+        } else {
+            out.println("Não há lugar para retornar.");
+        }
+    }
+
+    /**
+     * Salva o jogo atual.
+     *
+     * @param subject O nome do jogo salvo, ou {@code null} para o nome padrão.
+     */
+    private void save(String subject) {
+        String slot = subject != null ? subject : SnapshotStore.DEFAULT_SLOT;
+        if (snapshots == null) {
+            out.println("Não é possível salvar nesta sessão.");
+        } else if (!SnapshotStore.isValidSlot(slot)) {
+            out.println("Nome inválido. Use apenas letras, números, \"_\" e \"-\".");
+        } else {
+            try {
+                snapshots.save(slot);
+                out.println("Jogo salvo como \"%s\".".formatted(slot));
+            } catch (IOException e) {
+                out.println("Não foi possível salvar o jogo: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Carrega um jogo salvo e mostra o cenário em que o jogador estava.
+     *
+     * @param subject O nome do jogo salvo, ou {@code null} para o nome padrão.
+     */
+    private void load(String subject) {
+        String slot = subject != null ? subject : SnapshotStore.DEFAULT_SLOT;
+        if (snapshots == null) {
+            out.println("Não é possível carregar jogos nesta sessão.");
+        } else if (!SnapshotStore.isValidSlot(slot)) {
+            out.println("Nome inválido. Use apenas letras, números, \"_\" e \"-\".");
         } else {
-            System.out.println("Não há lugar para retornar.");
+            try {
+                if (snapshots.load(slot)) {
+                    if (loadListener != null) {
+                        loadListener.run();
+                    }
+                    out.println("Jogo \"%s\" carregado.".formatted(slot));
+                    out.printView(player.getCurrentScenario().getView());
+                    look(null);
+                } else {
+                    out.println("Não há jogo salvo como \"%s\".".formatted(slot));
+                }
+            } catch (IOException e) {
+                out.println("Não foi possível carregar o jogo: " + e.getMessage());
+            }
         }
     }
 
@@ -336,18 +559,91 @@ public class CommandProcessor {
      * Mostra o inventário atual do jogador.
      */
     private void showInventory() {
-        List<GameObject> inventory = player.getInventory();
+        Inventory inventory = player.getInventory();
 
         if (inventory.isEmpty()) {
-            System.out.println("Seu inventário está vazio.");
+            out.println("Seu inventário está vazio.");
         } else {
-            System.out.println("Itens no inventário:");
+            out.println("Itens no inventário:");
             for (GameObject obj : inventory) {
-                System.out.println("- " + obj.getName());
+                out.println("- " + obj.getName());
             }
         }
     }
 
+    /**
+     * Indica se o jogo foi encerrado, seja por vitória ou pelo comando "sair".
+     *
+     * @return Verdadeiro se o jogo terminou, falso caso contrário.
+     */
+    public boolean isFinished() {
+        return outcome != GameOutcome.PLAYING;
+    }
+
+    /**
+     * Retorna a situação da partida.
+     *
+     * @return Em andamento, vitória ou encerrada pelo jogador.
+     */
+    public GameOutcome getOutcome() {
+        return outcome;
+    }
+
+    /**
+     * Define onde os jogos desta sessão são salvos, habilitando os comandos "salvar" e "carregar".
+     *
+     * @param snapshots O armazenamento de jogos salvos.
+     */
+    public void setSnapshotStore(SnapshotStore snapshots) {
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * Retorna o armazenamento de jogos salvos desta sessão.
+     *
+     * @return O armazenamento, ou {@code null} se salvar não estiver disponível.
+     */
+    public SnapshotStore getSnapshotStore() {
+        return snapshots;
+    }
+
+    /**
+     * Define o diário em que os comandos aceitos são gravados.
+     *
+     * @param journal O diário, ou {@code null} para parar de gravar.
+     */
+    public void setJournal(CommandJournal journal) {
+        this.journal = journal;
+    }
+
+    /**
+     * Define quem é avisado quando "carregar" substitui o mundo por um jogo salvo, por exemplo a sessão
+     * durável, que não grava "carregar" no diário e faz um checkpoint no lugar.
+     *
+     * @param listener O ouvinte, ou {@code null} para nenhum.
+     */
+    public void setLoadListener(Runnable listener) {
+        this.loadListener = listener;
+    }
+
+    /**
+     * Define o grafo de caminhos do mundo, habilitando "ir para &lt;lugar&gt;" e "distância &lt;lugar&gt;".
+     *
+     * @param graph O grafo de caminhos.
+     */
+    public void setWorldGraph(WorldGraph graph) {
+        this.graph = graph;
+    }
+
+    /**
+     * Retorna o grafo de caminhos do mundo.
+     *
+     * @return O grafo, ou {@code null} se não foi definido.
+     */
+    public WorldGraph getWorldGraph() {
+        return graph;
+    }
+
     /**
      * Retorna o mapa de cenários.
      *
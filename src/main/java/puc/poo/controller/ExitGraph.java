@@ -0,0 +1,301 @@
+package puc.poo.controller;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.Scenario;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A classe ExitGraph é a topologia das saídas de um mundo, em arrays compactos: cada cenário é um índice
+ * e as suas saídas são as arestas {@code edgeStart[s]} até {@code edgeStart[s + 1]} (formato CSR).
+ * <p>
+ * Uma saída cardeal (norte, sul, leste, oeste) é sempre passável. As demais são atravessadas com
+ * "ir &lt;objeto&gt;" e só valem se o cenário tiver um objeto com esse nome, a porta, que precisa estar
+ * aberta; a aresta guarda o id da porta e o estado dela fica com o {@link WorldGraph} de cada sessão.
+ * Saídas sem porta não levam a lugar nenhum e ficam de fora. Portas são consideradas fixas no cenário.
+ * </p>
+ * <p>
+ * A topologia não muda durante o jogo, então a de um {@link WorldTemplate} é montada uma vez, direto da
+ * imagem (sem montar cenários), e compartilhada por todas as sessões. Para mundos grandes ela guarda também
+ * as distâncias de e para alguns cenários de referência (landmarks), que dão ao A* uma estimativa que
+ * nunca passa da distância real, mesmo com portas fechadas.
+ * </p>
+ */
+final class ExitGraph {
+    static final int LANDMARK_MIN_SCENARIOS = 1024; // Abaixo disso, a busca em largura já é imediata
+    static final int LANDMARKS = 4;
+    private static final String[] CARDINALS = {"norte", "sul", "leste", "oeste"};
+
+    final int size; // Número de cenários
+    final int[] edgeStart; // size + 1 posições
+    final int[] edgeTarget;
+    final int[] edgeDoor; // 0 para passagem livre, ou o id da porta
+    private final String[] labels; // Direção de cada aresta
+    private final BitSet initiallyOpen; // Portas abertas (e abríveis) quando a topologia foi montada
+    private final Map<String, Integer> names; // Nome do cenário em minúsculas -> índice
+    private final String[] lowerNames; // Nome de cada cenário em minúsculas, para a busca por trecho
+    private volatile int[][] landmarkDistances; // [2k]: a partir do landmark k; [2k + 1]: até ele
+
+    private ExitGraph(int size, int[] edgeStart, int[] edgeTarget, int[] edgeDoor, String[] labels,
+                      BitSet initiallyOpen, Map<String, Integer> names, String[] lowerNames) {
+        this.size = size;
+        this.edgeStart = edgeStart;
+        this.edgeTarget = edgeTarget;
+        this.edgeDoor = edgeDoor;
+        this.labels = labels;
+        this.initiallyOpen = initiallyOpen;
+        this.names = names;
+        this.lowerNames = lowerNames;
+    }
+
+    /**
+     * Monta a topologia de um mundo já montado na memória, com o estado atual das portas.
+     *
+     * @param scenarios Os cenários, na ordem que define os seus índices.
+     */
+    static ExitGraph of(List<Scenario> scenarios) {
+        Map<Scenario, Integer> index = new IdentityHashMap<>();
+        Map<String, Integer> names = new HashMap<>();
+        String[] lowerNames = new String[scenarios.size()];
+        for (int i = 0; i < scenarios.size(); i++) {
+            index.put(scenarios.get(i), i);
+            lowerNames[i] = scenarios.get(i).getName().toLowerCase(Locale.ROOT);
+            names.putIfAbsent(lowerNames[i], i);
+        }
+        Builder builder = new Builder(scenarios.size());
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario scenario = scenarios.get(i);
+            for (Map.Entry<String, Scenario> exit : scenario.getExits().entrySet()) {
+                Integer target = index.get(exit.getValue());
+                if (target == null) {
+                    continue;
+                }
+                String direction = exit.getKey();
+                if (cardinal(direction) != null) {
+                    builder.add(target, 0, cardinal(direction));
+                } else {
+                    GameObject door = scenario.getObject(direction);
+                    if (door != null) {
+                        builder.add(target, door.getId(), direction);
+                        builder.initiallyOpen.set(door.getId(), door.isOpenable() && door.isOpen());
+                    }
+                }
+            }
+            builder.endScenario();
+        }
+        return builder.build(names, lowerNames);
+    }
+
+    /**
+     * Monta a topologia a partir de uma imagem, sem montar cenários nem objetos. A porta de uma saída é o
+     * primeiro objeto do cenário cujo nome contém a direção, como na busca por nome do próprio cenário.
+     *
+     * @param image A imagem do mundo.
+     */
+    static ExitGraph of(WorldImage image) {
+        int count = image.scenarioCount();
+        Map<String, Integer> names = new HashMap<>();
+        String[] lowerNames = new String[count];
+        Builder builder = new Builder(count);
+        for (int s = 0; s < count; s++) {
+            lowerNames[s] = image.scenarioName(s).toLowerCase(Locale.ROOT);
+            names.putIfAbsent(lowerNames[s], s);
+            for (int k = 0, exits = image.exitCount(s); k < exits; k++) {
+                String direction = image.exitDirection(s, k);
+                int target = image.exitTarget(s, k);
+                if (cardinal(direction) != null) {
+                    builder.add(target, 0, cardinal(direction)); // Uma única cópia de cada direção cardeal
+                    continue;
+                }
+                int door = findDoor(image, s, direction.toLowerCase(Locale.ROOT));
+                if (door != 0) {
+                    builder.add(target, door, direction);
+                    int flags = image.objectFlags(door);
+                    int open = WorldImage.OBJECT_OPENABLE | WorldImage.OBJECT_OPEN;
+                    builder.initiallyOpen.set(door, (flags & open) == open);
+                }
+            }
+            builder.endScenario();
+        }
+        return builder.build(names, lowerNames);
+    }
+
+    private static String cardinal(String direction) {
+        for (String cardinal : CARDINALS) {
+            if (cardinal.equals(direction)) {
+                return cardinal;
+            }
+        }
+        return null;
+    }
+
+    private static int findDoor(WorldImage image, int scenario, String name) {
+        for (int k = 0, count = image.scenarioObjectCount(scenario); k < count; k++) {
+            int id = image.scenarioObject(scenario, k);
+            if (image.objectName(id).toLowerCase(Locale.ROOT).contains(name)) {
+                return id;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Procura um cenário pelo nome, sem diferenciar maiúsculas de minúsculas. Como na busca de objetos,
+     * basta um trecho do nome: vale o cenário com exatamente esse nome ou, se não houver, o primeiro
+     * cenário (na ordem dos índices) cujo nome contém o trecho.
+     *
+     * @return O índice, ou -1 se nenhum nome contiver o trecho.
+     */
+    int find(String name) {
+        String query = name.trim().toLowerCase(Locale.ROOT);
+        if (query.isEmpty()) {
+            return -1;
+        }
+        Integer exact = names.get(query);
+        if (exact != null) {
+            return exact;
+        }
+        for (int s = 0; s < size; s++) {
+            if (lowerNames[s].contains(query)) {
+                return s;
+            }
+        }
+        return -1;
+    }
+
+    String label(int edge) {
+        return labels[edge];
+    }
+
+    /**
+     * Indica se a porta estava aberta quando a topologia foi montada (na imagem, o estado inicial).
+     */
+    boolean initiallyOpen(int door) {
+        return initiallyOpen.get(door);
+    }
+
+    /**
+     * Retorna as distâncias dos landmarks, calculadas na primeira chamada com todas as portas abertas,
+     * ou {@code null} se o mundo é pequeno demais para precisar delas.
+     */
+    int[][] landmarkDistances() {
+        if (size < LANDMARK_MIN_SCENARIOS) {
+            return null;
+        }
+        int[][] distances = landmarkDistances;
+        if (distances == null) {
+            synchronized (this) {
+                distances = landmarkDistances;
+                if (distances == null) {
+                    distances = computeLandmarks();
+                    landmarkDistances = distances;
+                }
+            }
+        }
+        return distances;
+    }
+
+    // Escolhe os landmarks pelo cenário mais distante dos já escolhidos e mede as distâncias nos dois sentidos
+    private int[][] computeLandmarks() {
+        int[] reverseStart = new int[size + 1];
+        for (int target : edgeTarget) {
+            reverseStart[target + 1]++;
+        }
+        for (int s = 0; s < size; s++) {
+            reverseStart[s + 1] += reverseStart[s];
+        }
+        int[] reverseSource = new int[edgeTarget.length];
+        int[] fill = Arrays.copyOf(reverseStart, size);
+        for (int s = 0; s < size; s++) {
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                reverseSource[fill[edgeTarget[e]]++] = s;
+            }
+        }
+
+        int[][] distances = new int[2 * LANDMARKS][];
+        int[] nearest = new int[size]; // Menor distância (de ida) a algum landmark já escolhido
+        Arrays.fill(nearest, Integer.MAX_VALUE);
+        int landmark = 0;
+        for (int k = 0; k < LANDMARKS; k++) {
+            distances[2 * k] = breadthFirst(landmark, edgeStart, edgeTarget, null);
+            distances[2 * k + 1] = breadthFirst(landmark, reverseStart, null, reverseSource);
+            for (int s = 0; s < size; s++) {
+                nearest[s] = Math.min(nearest[s], distances[2 * k][s]);
+            }
+            int farthest = landmark;
+            for (int s = 0; s < size; s++) {
+                if (nearest[s] != Integer.MAX_VALUE && nearest[s] > nearest[farthest]) {
+                    farthest = s;
+                }
+            }
+            landmark = farthest;
+        }
+        return distances;
+    }
+
+    // Distâncias a partir de um cenário, seguindo as arestas (targets) ou as arestas invertidas (sources)
+    private int[] breadthFirst(int from, int[] start, int[] targets, int[] sources) {
+        int[] distance = new int[size];
+        Arrays.fill(distance, Integer.MAX_VALUE);
+        int[] queue = new int[size];
+        int head = 0;
+        int tail = 0;
+        distance[from] = 0;
+        queue[tail++] = from;
+        while (head < tail) {
+            int s = queue[head++];
+            for (int e = start[s]; e < start[s + 1]; e++) {
+                int next = targets != null ? targets[e] : sources[e];
+                if (distance[next] == Integer.MAX_VALUE) {
+                    distance[next] = distance[s] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return distance;
+    }
+
+    /**
+     * Acumula as arestas cenário a cenário, na ordem dos índices.
+     */
+    private static final class Builder {
+        private final int[] edgeStart;
+        private int[] edgeTarget = new int[16];
+        private int[] edgeDoor = new int[16];
+        private String[] labels = new String[16];
+        private final BitSet initiallyOpen = new BitSet();
+        private int scenario;
+        private int edges;
+
+        Builder(int size) {
+            edgeStart = new int[size + 1];
+        }
+
+        void add(int target, int door, String label) {
+            if (edges == edgeTarget.length) {
+                edgeTarget = Arrays.copyOf(edgeTarget, edges * 2);
+                edgeDoor = Arrays.copyOf(edgeDoor, edges * 2);
+                labels = Arrays.copyOf(labels, edges * 2);
+            }
+            edgeTarget[edges] = target;
+            edgeDoor[edges] = door;
+            labels[edges] = label;
+            edges++;
+        }
+
+        void endScenario() {
+            edgeStart[++scenario] = edges;
+        }
+
+        ExitGraph build(Map<String, Integer> names, String[] lowerNames) {
+            return new ExitGraph(edgeStart.length - 1, edgeStart, Arrays.copyOf(edgeTarget, edges),
+                    Arrays.copyOf(edgeDoor, edges), Arrays.copyOf(labels, edges), initiallyOpen, names, lowerNames);
+        }
+    }
+}
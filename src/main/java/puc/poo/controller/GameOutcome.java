@@ -0,0 +1,10 @@
+package puc.poo.controller;
+
+/**
+ * Situação de uma partida, informada pelo {@link CommandProcessor} em vez de encerrar o processo.
+ */
+public enum GameOutcome {
+    PLAYING, // A partida continua
+    WON, // O jogador soltou os chifres do veado dentro da cabana
+    QUIT // O jogador confirmou o "sair"
+}
@@ -0,0 +1,128 @@
+package puc.poo.controller;
+
+import puc.poo.model.Player;
+import puc.poo.model.Stag;
+import puc.poo.model.WorldRandom;
+import puc.poo.view.MemoryOutputSink;
+import puc.poo.view.OutputSink;
+
+/**
+ * A classe GameSession é uma partida sem terminal, dirigida comando a comando por um programa
+ * (bots, roteiros de regressão, simulações de balanceamento).
+ * <p>
+ * Cada {@link #submit(String)} processa uma linha, como se o jogador a tivesse digitado, e devolve um
+ * {@link Result} com a situação da partida, o cenário atual e o texto produzido. Não há tutorial,
+ * pausas de narração nem avisos do StagSpotter (que dependem do relógio), de modo que a mesma semente
+ * e o mesmo roteiro produzem sempre o mesmo resultado. O texto da abertura (arte e descrição do
+ * cenário inicial) vem no resultado do primeiro comando.
+ * </p>
+ * <p>
+ * Uma sessão não pode ser usada por várias threads ao mesmo tempo, mas sessões diferentes podem
+ * rodar em paralelo sobre o mesmo {@link WorldTemplate}.
+ * </p>
+ */
+public final class GameSession implements AutoCloseable {
+    private final ScenarioManager world;
+    private final CommandProcessor processor;
+    private final MemoryOutputSink captured; // Saída em memória, ou null se o texto é descartado
+    private int turns; // Comandos processados
+
+    /**
+     * Resultado de um comando.
+     *
+     * @param outcome  A situação da partida depois do comando.
+     * @param scenario O nome do cenário onde o jogador está.
+     * @param output   O texto produzido pelo comando, ou "" se a sessão descarta o texto.
+     * @param turn     O número do comando na partida, a partir de 1.
+     */
+    public record Result(GameOutcome outcome, String scenario, String output, int turn) {
+
+        /**
+         * Indica se a partida terminou.
+         *
+         * @return Verdadeiro após a vitória ou o "sair" confirmado.
+         */
+        public boolean finished() {
+            return outcome != GameOutcome.PLAYING;
+        }
+    }
+
+    /**
+     * Construtor de uma partida no mundo padrão que guarda o texto de cada comando.
+     *
+     * @param seed A semente da aleatoriedade do mundo.
+     */
+    public GameSession(long seed) {
+        this(WorldTemplate.defaultWorld(), new WorldRandom(seed), true);
+    }
+
+    /**
+     * Construtor completo.
+     *
+     * @param template      O mundo, compartilhado com outras sessões.
+     * @param random        A aleatoriedade do mundo.
+     * @param captureOutput Se o texto de cada comando deve ser devolvido no resultado. Simulações que só
+     *                      olham a situação da partida desligam a captura e evitam montar o texto.
+     */
+    public GameSession(WorldTemplate template, WorldRandom random, boolean captureOutput) {
+        Player player = new Player();
+        world = new ScenarioManager(player, new Stag(random));
+        world.loadWorld(template);
+        captured = captureOutput ? OutputSink.memory() : null;
+        OutputSink out = captured != null ? captured : OutputSink.silent();
+        processor = new CommandProcessor(player, world.getScenarios(), out);
+        processor.setWorldGraph(world.getGraph());
+        out.printView(player.getCurrentScenario().getView());
+        out.printDescription(player.getCurrentScenario().getDescription());
+    }
+
+    /**
+     * Processa uma linha de comando. Depois que a partida termina, as linhas são ignoradas.
+     *
+     * @param command O comando, como o jogador o digitaria.
+     * @return O resultado do comando.
+     */
+    public Result submit(String command) {
+        if (!processor.isFinished()) {
+            processor.processCommand(command);
+            turns++;
+        }
+        String output = captured != null ? captured.drain() : "";
+        return new Result(processor.getOutcome(), world.getPlayer().getCurrentScenario().getName(), output, turns);
+    }
+
+    /**
+     * Retorna a situação da partida.
+     *
+     * @return A situação.
+     */
+    public GameOutcome getOutcome() {
+        return processor.getOutcome();
+    }
+
+    /**
+     * Retorna o número de comandos processados.
+     *
+     * @return O número de comandos.
+     */
+    public int getTurns() {
+        return turns;
+    }
+
+    /**
+     * Retorna o mundo da partida, para inspeção do estado por bots e testes.
+     *
+     * @return O mundo.
+     */
+    public ScenarioManager getWorld() {
+        return world;
+    }
+
+    /**
+     * Libera os objetos do mundo desta sessão.
+     */
+    @Override
+    public void close() {
+        world.getRegistry().release();
+    }
+}
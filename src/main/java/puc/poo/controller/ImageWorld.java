@@ -0,0 +1,490 @@
+package puc.poo.controller;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectAction;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.ObjectTemplate;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.ScenarioTemplate;
+import puc.poo.model.Stag;
+
+import puc.poo.persistence.PageStore;
+import puc.poo.persistence.ScenarioPage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * A classe ImageWorld monta sob demanda os cenários e objetos de uma sessão a partir de um {@link WorldTemplate}
+ * e pagina os cenários, mantendo o conteúdo de só um número limitado deles na memória.
+ * <p>
+ * Um cenário só é montado quando alguém chega a ele (o cenário inicial, uma saída percorrida ou uma busca
+ * pelo nome), junto com os objetos que estão nele. Um objeto fora de cenários é criado quando o seu id é
+ * pedido ao {@link ObjectRegistry}. Assim o custo de iniciar uma sessão não depende do tamanho do mundo.
+ * Os textos vêm do template, compartilhado com as outras sessões; a sessão guarda só o seu estado.
+ * </p>
+ * <p>
+ * Os cenários montados ficam numa lista do menos para o mais recentemente usado. Quando passam do limite
+ * configurado, os menos usados (nunca o cenário atual do jogador) têm os seus objetos retirados da memória.
+ * Um cenário modificado tem o seu estado gravado antes num {@link PageStore} ({@link ScenarioPage}) e é
+ * montado a partir dele ao ser usado de novo; um cenário intacto é montado outra vez a partir da imagem.
+ * A instância do cenário continua valendo: ela volta a se montar sozinha quando alguém consulta os seus
+ * objetos (por exemplo, ao "voltar" para um cenário da pilha do jogador). Instâncias vazias que ninguém
+ * mais referencia são descartadas pelo coletor de lixo, pois esta classe só as guarda por referências fracas.
+ * </p>
+ */
+public final class ImageWorld {
+    public static final int DEFAULT_RESIDENT_SCENARIOS = 4096;
+
+    private final WorldTemplate template;
+    private final WorldImage image;
+    private final Player player;
+    private final Stag stag;
+    private final ObjectRegistry registry;
+    private final WorldGraph graph;
+    private final PageStore pages;
+    private final int residentLimit;
+    private final Map<Integer, ScenarioReference> instances = new HashMap<>(); // Cenários criados, pelo índice
+    private final ReferenceQueue<ImageScenario> collected = new ReferenceQueue<>();
+    private final Map<Integer, ImageScenario> resident = new LinkedHashMap<>(64, 0.75f, true); // Montados, em ordem de uso
+    private final Map<String, Scenario> scenarioMap = new ScenarioMap();
+    private long hits;
+    private long misses;
+    private long evictions;
+    private long pageIns;
+    private long pageOuts;
+
+    ImageWorld(WorldTemplate template, Player player, Stag stag, PageStore pages, int residentLimit) {
+        if (residentLimit < 1) {
+            throw new IllegalArgumentException("O limite de cenários na memória deve ser positivo: " + residentLimit);
+        }
+        this.template = template;
+        this.image = template.getImage();
+        this.player = player;
+        this.stag = stag;
+        this.pages = pages;
+        this.residentLimit = residentLimit;
+        this.registry = new ObjectRegistry(image.objectCount(), this::materializeObject);
+        this.graph = new WorldGraph(template::exits, registry, this::lazyScenario, this::indexOf);
+    }
+
+    ObjectRegistry getRegistry() {
+        return registry;
+    }
+
+    /**
+     * Retorna o grafo de caminhos da sessão, sobre a topologia compartilhada do template.
+     */
+    WorldGraph getGraph() {
+        return graph;
+    }
+
+    /**
+     * Retorna os cenários como um mapa pelo nome, na ordem da imagem. Consultar um nome monta
+     * apenas aquele cenário; percorrer o mapa monta todos, um de cada vez.
+     */
+    Map<String, Scenario> getScenarios() {
+        return scenarioMap;
+    }
+
+    Scenario getStartScenario() {
+        return scenario(image.startScenario());
+    }
+
+    GameObject getTrophy() {
+        return registry.get(image.trophyObject());
+    }
+
+    /**
+     * Retorna o número de cenários do mundo.
+     *
+     * @return O número de cenários.
+     */
+    public int scenarioCount() {
+        return image.scenarioCount();
+    }
+
+    /**
+     * Retorna o número máximo de cenários montados na memória.
+     *
+     * @return O limite.
+     */
+    public int getResidentLimit() {
+        return residentLimit;
+    }
+
+    /**
+     * Retorna o cenário de um índice, montando-o (com os seus objetos) se ele não estiver na memória.
+     *
+     * @param index O índice do cenário na imagem.
+     * @return O cenário.
+     */
+    public synchronized Scenario scenario(int index) {
+        ImageScenario scenario = resident.get(index); // Também o marca como o mais recente
+        if (scenario != null) {
+            hits++;
+            return scenario;
+        }
+        scenario = instance(index);
+        load(scenario);
+        return scenario;
+    }
+
+    /**
+     * Retorna o cenário de um índice sem montar os seus objetos, que são montados quando consultados.
+     *
+     * @param index O índice do cenário na imagem.
+     * @return O cenário.
+     */
+    public synchronized Scenario lazyScenario(int index) {
+        ImageScenario scenario = resident.get(index);
+        return scenario != null ? scenario : instance(index);
+    }
+
+    /**
+     * Retorna o índice de um cenário deste mundo.
+     *
+     * @param scenario O cenário.
+     * @return O índice, ou -1 se o cenário não pertencer a este mundo.
+     */
+    public int indexOf(Scenario scenario) {
+        return scenario instanceof ImageScenario paged && paged.world == this ? paged.index : -1;
+    }
+
+    /**
+     * Retorna os contadores de paginação.
+     *
+     * @return Os contadores.
+     */
+    public synchronized PagingStats getStats() {
+        return new PagingStats(hits, misses, evictions, pageIns, pageOuts, resident.size(), residentLimit);
+    }
+
+    /**
+     * Retorna as páginas de todos os cenários que podem diferir da imagem: os gravados no armazenamento
+     * e os modificados que estão na memória. Nenhum cenário é montado.
+     *
+     * @return As páginas, pelo índice do cenário.
+     * @throws IOException Se o armazenamento não puder ser lido.
+     */
+    public synchronized Map<Integer, byte[]> modifiedPages() throws IOException {
+        Map<Integer, byte[]> modified = pages.readAll();
+        for (ImageScenario scenario : resident.values()) {
+            byte[] page = ScenarioPage.encode(scenario);
+            if (scenario.fromStore || !Arrays.equals(page, scenario.baseline)) {
+                modified.put(scenario.index, page);
+            }
+        }
+        return modified;
+    }
+
+    /**
+     * Esvazia todos os cenários, descarta os objetos e as páginas gravadas e grava as páginas informadas,
+     * como ao carregar um jogo salvo. O troféu do veado é mantido, pois o veado guarda a sua instância.
+     *
+     * @param modified As páginas do jogo salvo, pelo índice do cenário.
+     * @throws IOException Se alguma página for de um cenário inexistente ou o armazenamento não puder ser regravado.
+     */
+    public synchronized void reset(Map<Integer, byte[]> modified) throws IOException {
+        for (Integer index : modified.keySet()) {
+            if (index < 0 || index >= image.scenarioCount()) {
+                throw new IOException("Cenário inválido no jogo salvo: " + index);
+            }
+        }
+        for (ImageScenario scenario : resident.values()) {
+            scenario.unload();
+        }
+        resident.clear();
+        GameObject trophy = stag.getAntlers();
+        for (int id = 1; id <= registry.size(); id++) {
+            if (trophy == null || trophy.getId() != id) {
+                registry.unload(id);
+            }
+        }
+        pages.clear();
+        for (Map.Entry<Integer, byte[]> page : modified.entrySet()) {
+            pages.write(page.getKey(), page.getValue());
+        }
+        graph.reset(modified);
+    }
+
+    /**
+     * Retorna a instância do cenário de um índice, criando-a vazia se ninguém mais a referencia.
+     */
+    private ImageScenario instance(int index) {
+        for (Reference<? extends ImageScenario> cleared; (cleared = collected.poll()) != null; ) {
+            ScenarioReference reference = (ScenarioReference) cleared;
+            instances.remove(reference.index, reference);
+        }
+        ScenarioReference reference = instances.get(index);
+        ImageScenario scenario = reference != null ? reference.get() : null;
+        if (scenario == null) {
+            scenario = new ImageScenario(this, index, template.scenario(index));
+            instances.put(index, new ScenarioReference(scenario, collected));
+        }
+        return scenario;
+    }
+
+    /**
+     * Monta os objetos de um cenário vazio, a partir da sua página gravada ou da imagem.
+     */
+    private synchronized void load(ImageScenario scenario) {
+        if (scenario.loaded) {
+            return;
+        }
+        misses++;
+        scenario.loaded = true;
+        int index = scenario.index;
+        try {
+            byte[] page = pages.read(index);
+            if (page != null) {
+                ScenarioPage.apply(scenario, registry, page);
+                scenario.baseline = page;
+                scenario.fromStore = true;
+                pageIns++;
+            } else {
+                for (int k = 0, count = image.scenarioObjectCount(index); k < count; k++) {
+                    scenario.addObject(registry.get(image.scenarioObject(index, k)));
+                }
+                scenario.baseline = ScenarioPage.encode(scenario);
+                scenario.fromStore = false;
+            }
+        } catch (IOException e) {
+            scenario.unload();
+            throw new UncheckedIOException("Falha ao ler a página do cenário " + scenario.getName(), e);
+        }
+        resident.put(index, scenario);
+        evictOverLimit(scenario);
+    }
+
+    /**
+     * Retira da memória os cenários menos usados até voltar ao limite, sem tocar no cenário
+     * recém-montado nem no cenário atual do jogador.
+     */
+    private void evictOverLimit(ImageScenario requested) {
+        Scenario current = player.getCurrentScenario();
+        Iterator<ImageScenario> iterator = resident.values().iterator();
+        while (resident.size() > residentLimit && iterator.hasNext()) {
+            ImageScenario scenario = iterator.next();
+            if (scenario != requested && scenario != current) {
+                iterator.remove();
+                evict(scenario);
+            }
+        }
+    }
+
+    private void evict(ImageScenario scenario) {
+        byte[] page = ScenarioPage.encode(scenario);
+        if (!Arrays.equals(page, scenario.baseline)) {
+            try {
+                pages.write(scenario.index, page);
+            } catch (IOException e) {
+                throw new UncheckedIOException("Falha ao gravar a página do cenário " + scenario.getName(), e);
+            }
+            pageOuts++;
+        }
+        List<GameObject> located = new ArrayList<>();
+        ScenarioPage.collect(scenario.getObjects(), located);
+        GameObject trophy = stag.getAntlers();
+        for (GameObject object : located) {
+            if (!object.equals(trophy)) {
+                registry.unload(object.getId());
+            }
+        }
+        scenario.unload();
+        evictions++;
+    }
+
+    private GameObject materializeObject(int id) {
+        ObjectTemplate objectTemplate = template.object(id);
+        GameObject object = new GameObject(registry, objectTemplate);
+        if (objectTemplate.contents() != null) {
+            ArrayList<GameObject> contents = new ArrayList<>(objectTemplate.contents().length);
+            for (int content : objectTemplate.contents()) {
+                contents.add(registry.get(content));
+            }
+            object.setContents(contents);
+        }
+        if (objectTemplate.action() != null) {
+            object.setAction(new ObjectAction(player, stag, objectTemplate.action()));
+        }
+        return object;
+    }
+
+    /**
+     * Referência fraca a um cenário, que lembra o seu índice para ser removida do mapa depois de coletada.
+     */
+    private static final class ScenarioReference extends WeakReference<ImageScenario> {
+        private final int index;
+
+        ScenarioReference(ImageScenario scenario, ReferenceQueue<ImageScenario> queue) {
+            super(scenario, queue);
+            this.index = scenario.index;
+        }
+    }
+
+    /**
+     * Cenário de uma imagem. Os objetos são montados de novo sempre que consultados depois de o cenário
+     * sair da memória, e as saídas são procuradas na imagem a cada uso.
+     */
+    private static final class ImageScenario extends Scenario {
+        private final ImageWorld world;
+        private final int index;
+        private volatile boolean loaded; // Se os objetos estão montados
+        private byte[] baseline; // Página do cenário ao ser montado, para saber se foi modificado
+        private boolean fromStore; // Montado a partir de uma página gravada, e não da imagem
+
+        ImageScenario(ImageWorld world, int index, ScenarioTemplate template) {
+            super(template);
+            this.world = world;
+            this.index = index;
+        }
+
+        private void ensureLoaded() {
+            if (!loaded) {
+                world.load(this);
+            }
+        }
+
+        private void unload() {
+            loaded = false;
+            baseline = null;
+            unloadObjects();
+        }
+
+        @Override
+        public void addObject(GameObject object) {
+            ensureLoaded();
+            super.addObject(object);
+        }
+
+        @Override
+        public void removeObjectByName(String name) {
+            ensureLoaded();
+            super.removeObjectByName(name);
+        }
+
+        @Override
+        public void removeObject(GameObject object) {
+            ensureLoaded();
+            super.removeObject(object);
+        }
+
+        @Override
+        public GameObject getObject(String name) {
+            ensureLoaded();
+            return super.getObject(name);
+        }
+
+        @Override
+        public Collection<GameObject> getObjects() {
+            ensureLoaded();
+            return super.getObjects();
+        }
+
+        @Override
+        public void clearObjects() {
+            ensureLoaded();
+            super.clearObjects();
+        }
+
+        @Override
+        public String getDescription() {
+            ensureLoaded();
+            return super.getDescription();
+        }
+
+        @Override
+        public Scenario getExit(String direction) {
+            Scenario exit = super.getExit(direction);
+            if (exit == null) {
+                int target = world.image.findExit(index, direction);
+                if (target >= 0) {
+                    exit = world.scenario(target);
+                }
+            }
+            return exit;
+        }
+
+        @Override
+        public Map<String, Scenario> getExits() {
+            Map<String, Scenario> exits = new LinkedHashMap<>(super.getExits());
+            for (int k = 0, count = world.image.exitCount(index); k < count; k++) {
+                exits.putIfAbsent(world.image.exitDirection(index, k), world.scenario(world.image.exitTarget(index, k)));
+            }
+            return Collections.unmodifiableMap(exits);
+        }
+    }
+
+    /**
+     * Visão dos cenários da imagem como um mapa somente leitura, indexado pelo nome.
+     */
+    private final class ScenarioMap extends AbstractMap<String, Scenario> {
+        @Override
+        public int size() {
+            return image.scenarioCount();
+        }
+
+        @Override
+        public boolean containsKey(Object key) {
+            return key instanceof String name && image.findScenario(name) >= 0;
+        }
+
+        @Override
+        public Scenario get(Object key) {
+            if (!(key instanceof String name)) {
+                return null;
+            }
+            int index = image.findScenario(name);
+            return index >= 0 ? scenario(index) : null;
+        }
+
+        @Override
+        public Set<Entry<String, Scenario>> entrySet() {
+            return new AbstractSet<>() {
+                @Override
+                public int size() {
+                    return image.scenarioCount();
+                }
+
+                @Override
+                public Iterator<Entry<String, Scenario>> iterator() {
+                    return new Iterator<>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < image.scenarioCount();
+                        }
+
+                        @Override
+                        public Entry<String, Scenario> next() {
+                            if (next >= image.scenarioCount()) {
+                                throw new NoSuchElementException();
+                            }
+                            Scenario scenario = scenario(next++);
+                            return new SimpleImmutableEntry<>(scenario.getName(), scenario);
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package puc.poo.controller;
+
+/**
+ * Contadores da paginação de cenários de um mundo ({@link ImageWorld}).
+ *
+ * @param hits      Pedidos de cenários que já estavam na memória.
+ * @param misses    Pedidos que precisaram montar o cenário.
+ * @param evictions Cenários retirados da memória.
+ * @param pageIns   Cenários montados a partir de uma página gravada.
+ * @param pageOuts  Páginas gravadas ao retirar um cenário modificado.
+ * @param resident  Cenários na memória agora.
+ * @param limit     Máximo de cenários na memória.
+ */
+public record PagingStats(long hits, long misses, long evictions, long pageIns, long pageOuts,
+                          int resident, int limit) {
+
+    @Override
+    public String toString() {
+        return String.format("cenários na memória: %d/%d, acertos: %d, faltas: %d, remoções: %d, páginas lidas: %d, gravadas: %d",
+                resident, limit, hits, misses, evictions, pageIns, pageOuts);
+    }
+}
@@ -1,116 +1,194 @@
 package puc.poo.controller;
 
-import java.util.HashMap;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 
-import puc.poo.model.GameObject;
-import puc.poo.model.ObjectAction;
-import puc.poo.model.ObjectAction.ActionType;
-import puc.poo.model.ObjectCondition;
+import puc.poo.model.ObjectRegistry;
 import puc.poo.model.Player;
 import puc.poo.model.Scenario;
 import puc.poo.model.Stag;
-import puc.poo.view.ScenarioViews;
+import puc.poo.persistence.PageStore;
 
 /**
  * A classe ScenarioManager é responsável por criar, inicializar e gerenciar vários cenários do jogo.
  * Ela mantém referências para as entidades do jogador e do veado, além de uma coleção de cenários.
- * Ela fornece funcionalidades para inicializar esses cenários com objetos e propriedades, definir saídas para
- * navegação entre cenários e definir o cenário atual para o jogador.
+ * Os cenários, objetos e saídas vêm de um arquivo de definição de mundo (lido pelo WorldLoader),
+ * de modo que um mundo novo não exige recompilar o jogo.
  */
 public class ScenarioManager {
+    public static final String DEFAULT_WORLD = "/worlds/cabana.world"; // Recurso com o mundo padrão
+    public static final String RESIDENT_SCENARIOS_PROPERTY = "jogo.cenariosNaMemoria"; // Limite da paginação
+
     private final Player player;
     private final Stag stag;
-    private final Map<String, Scenario> scenarios;
+    private Map<String, Scenario> scenarios;
+    private ObjectRegistry registry; // Registro dos objetos deste mundo
+    private ImageWorld imageWorld; // Cenários paginados, quando o mundo vem de uma imagem
+    private WorldGraph graph; // Caminhos entre os cenários, criado na primeira consulta
 
     public ScenarioManager(Player player, Stag stag) {
         this.player = player;
         this.stag = stag;
-        this.scenarios = new HashMap<>();
+        this.scenarios = new LinkedHashMap<>(); // Mantém a ordem de criação, usada pelos jogos salvos
+        this.registry = new ObjectRegistry();
     }
 
-    /// Convenção para nomear objetos:
-    ///  <p><b>* nomeDoCenario_nomeDoObjeto</b></p>
+    /**
+     * Monta o mundo padrão do jogo, definido no recurso {@value #DEFAULT_WORLD}.
+     */
     public void initializeScenarios() {
-        // CENÁRIO: FLORESTA
-        Scenario forest = new Scenario("Floresta", "Você está numa floresta. O ar está frio. Há uma cabana ao norte.", ScenarioViews.forest_scenario());
-        scenarios.put(forest.getName(), forest);
-
-        // CENÁRIO: EXTERIOR cabana
-        Scenario cabinFront = new Scenario("Exterior da Cabana", "Você está em frente à cabana. Ao sul está a floresta.", ScenarioViews.exteriorCabin_scenario());
-
-        GameObject cabinFront_pot = new GameObject("pote", "Um pote de planta um pouco inclinado");
-        cabinFront_pot.setAsStorage(true);
-
-        GameObject cabinFront_note = new GameObject("lembrete", "Preciso caçar o veado na floresta e colocar um troféu dentro desta cabana.");
-        cabinFront.addObject(cabinFront_note);
-
-        GameObject cabinFront_key = new GameObject("chave da cabana", "Esta é a chave da cabana. Muito bem escondida por sinal.");
-        cabinFront_key.setAsStorable();
-        cabinFront_pot.getContents().add(cabinFront_key);
-
-        GameObject cabinFront_door = new GameObject("porta", "Uma porta de madeira.");
-        cabinFront_door.setAsOpenable(true);
-        cabinFront_door.setKeyId(cabinFront_key.getId());
-
-        cabinFront.addObject(cabinFront_pot);
-        cabinFront.addObject(cabinFront_door);
-        scenarios.put(cabinFront.getName(), cabinFront);
-
-        // Cenário: INTERIOR cabana
-        Scenario insideCabin = new Scenario("Interior da Cabana", "Você está dentro da cabana.", ScenarioViews.interiorCabin_scenario());
-
-        GameObject insideCabin_fireplace = new GameObject("lareira", "Uma lareira acesa.");
-        insideCabin_fireplace.setAction(new ObjectAction(player, stag, ActionType.GENERIC) {{
-            setActionDescriptionActive("Você se esquenta à lareira.");
-            setActionDescriptionInactive("Você já se esquentou.");
-            setActive(true);
-        }});
-
-        GameObject insideCabin_portrait = new GameObject("retrato", "Um retrato na parede.");
-        insideCabin_portrait.setAsStorage(true);
-
-        GameObject insideCabin_chest = new GameObject("baú", "Um baú de madeira.");
-        insideCabin_chest.setAsStorage(true);
-        insideCabin_chest.setAsOpenable(true);
-
-        GameObject insideCabin_huntingRifle = new GameObject("rifle de caça", "Um rifle de caçador em boas condições.");
-        insideCabin_huntingRifle.setAction(new ObjectAction(player, stag, ActionType.RIFLE) {{
-            setActionDescriptionActive("Você mira e atira com o rifle.");
-            setActionDescriptionInactive("A munição acabou.");
-            setRepeatable(true);
-            setActionCount(0);
-            setActive(true);
-        }});
-
-        insideCabin_chest.getContents().add(insideCabin_huntingRifle);
-
-        GameObject insideCabin_key = new GameObject("chave do baú", "Uma chave velha.");
-        insideCabin_key.setStorable(true);
-
-        insideCabin_portrait.getContents().add(insideCabin_key);
-        insideCabin_chest.setKeyId(insideCabin_key.getId());
-
-        GameObject insideCabin_ammo = new GameObject("munição .22", "Munição calibre .22 para o rifle de caçador.");
-        insideCabin_ammo.setAction(new ObjectAction(player, stag, ActionType.AMMO){{
-            setCondition(new ObjectCondition());
-            setActive(true);
-        }});
-
-        insideCabin.addObject(insideCabin_fireplace);
-        insideCabin.addObject(insideCabin_portrait);
-        insideCabin.addObject(insideCabin_chest);
-        insideCabin.addObject(insideCabin_ammo);
-
-        scenarios.put(insideCabin.getName(), insideCabin);
-
-        // Definir as saídas para cada cenário
-        forest.addExit("norte", cabinFront); // da floresta para a entrada da cabana
-        cabinFront.addExit("sul", forest); // da entrada da cabana de volta para a floresta
-        cabinFront.addExit(cabinFront_door.getName(), insideCabin); // da entrada da cabana para dentro dela
-        insideCabin.addExit(cabinFront_door.getName(), cabinFront); // de dentro da cabana para a entrada dela
-
-        // Definir o cenário FLORESTA como cenário atual.
-        player.setCurrentScenario(forest);
+        try (InputStream in = ScenarioManager.class.getResourceAsStream(DEFAULT_WORLD)) {
+            if (in == null) {
+                throw new IllegalStateException("Mundo padrão não encontrado: " + DEFAULT_WORLD);
+            }
+            loadWorld(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // O mundo padrão faz parte do jogo
+        }
+    }
+
+    /**
+     * Monta o mundo a partir de uma definição de mundo (veja {@code worlds/cabana.world}),
+     * lida de forma incremental, e posiciona o jogador no cenário inicial.
+     *
+     * @param reader A definição do mundo.
+     * @throws IOException Se a leitura falhar ou a definição for inválida.
+     */
+    public void loadWorld(Reader reader) throws IOException {
+        new WorldLoader(player, stag, registry, scenarios).load(reader);
+    }
+
+    /**
+     * Monta o mundo a partir de uma imagem binária ({@link WorldCompiler}). Nada é lido de antemão:
+     * cenários e objetos são criados da imagem à medida que o jogador os alcança, então o custo
+     * não depende do tamanho do mundo. Para várias sessões do mesmo mundo, prefira
+     * {@link #loadWorld(WorldTemplate)} com um template compartilhado.
+     *
+     * @param image A imagem do mundo.
+     */
+    public void loadWorld(WorldImage image) {
+        loadWorld(new WorldTemplate(image));
+    }
+
+    /**
+     * Monta o estado desta sessão sobre um mundo compartilhado: textos e estado inicial vêm do template,
+     * e a sessão cria apenas os cenários e objetos que alcança. Ficam na memória até
+     * {@value #RESIDENT_SCENARIOS_PROPERTY} cenários (padrão {@value ImageWorld#DEFAULT_RESIDENT_SCENARIOS});
+     * os modificados que saem dela são guardados em memória compacta.
+     *
+     * @param template O template do mundo.
+     */
+    public void loadWorld(WorldTemplate template) {
+        loadWorld(template, PageStore.inMemory(),
+                Integer.getInteger(RESIDENT_SCENARIOS_PROPERTY, ImageWorld.DEFAULT_RESIDENT_SCENARIOS));
+    }
+
+    /**
+     * Monta o estado desta sessão sobre um mundo compartilhado, com paginação configurada.
+     *
+     * @param template      O template do mundo.
+     * @param pages         O armazenamento dos cenários modificados que saem da memória.
+     * @param residentLimit O número máximo de cenários na memória.
+     */
+    public void loadWorld(WorldTemplate template, PageStore pages, int residentLimit) {
+        if (!scenarios.isEmpty() || registry.size() != 0) {
+            throw new IllegalStateException("O mundo já foi montado.");
+        }
+        ImageWorld world = new ImageWorld(template, player, stag, pages, residentLimit);
+        imageWorld = world;
+        scenarios = world.getScenarios();
+        registry = world.getRegistry();
+        stag.setAntlers(world.getTrophy());
+        player.setCurrentScenario(world.getStartScenario());
+    }
+
+    /**
+     * Retorna os cenários paginados do mundo.
+     *
+     * @return Os cenários da imagem, ou {@code null} se o mundo não veio de uma imagem.
+     */
+    public ImageWorld getImageWorld() {
+        return imageWorld;
+    }
+
+    /**
+     * Retorna os contadores de paginação de cenários.
+     *
+     * @return Os contadores, ou {@code null} se o mundo não é paginado.
+     */
+    public PagingStats getPagingStats() {
+        return imageWorld != null ? imageWorld.getStats() : null;
+    }
+
+    /**
+     * Retorna o grafo de caminhos entre os cenários deste mundo. Num mundo de imagem, a topologia é a do
+     * template, compartilhada; num mundo lido de uma definição, ela é montada na primeira consulta, com o
+     * mundo já completo. Deve ser obtido antes de o jogo começar, para acompanhar as portas desde o início.
+     *
+     * @return O grafo de caminhos.
+     */
+    public WorldGraph getGraph() {
+        if (graph == null) {
+            if (imageWorld != null) {
+                graph = imageWorld.getGraph();
+            } else {
+                Map<String, Scenario> world = scenarios;
+                Map<Scenario, Integer> indexes = new IdentityHashMap<>();
+                List<Scenario> ordered = new ArrayList<>();
+                graph = new WorldGraph(() -> {
+                    ordered.addAll(world.values());
+                    for (int i = 0; i < ordered.size(); i++) {
+                        indexes.put(ordered.get(i), i);
+                    }
+                    return ExitGraph.of(ordered);
+                }, registry, ordered::get, scenario -> indexes.getOrDefault(scenario, -1));
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Retorna os cenários criados, indexados pelo nome.
+     *
+     * @return O mapa de cenários.
+     */
+    public Map<String, Scenario> getScenarios() {
+        return scenarios;
+    }
+
+    /**
+     * Retorna o jogador deste mundo.
+     *
+     * @return O jogador.
+     */
+    public Player getPlayer() {
+        return player;
+    }
+
+    /**
+     * Retorna o veado deste mundo.
+     *
+     * @return O veado.
+     */
+    public Stag getStag() {
+        return stag;
+    }
+
+    /**
+     * Retorna o registro dos objetos deste mundo.
+     *
+     * @return O registro de objetos.
+     */
+    public ObjectRegistry getRegistry() {
+        return registry;
     }
 }
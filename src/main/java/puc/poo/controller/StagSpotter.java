@@ -1,51 +1,149 @@
 package puc.poo.controller;
 
-import puc.poo.model.Stag;
 import puc.poo.model.GameObject;
+import puc.poo.model.Stag;
 import puc.poo.model.Player;
+import puc.poo.model.PlayerListener;
+import puc.poo.model.Scenario;
+import puc.poo.view.OutputSink;
+
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A classe StagSpotter monitora a presença de um veado (Stag) quando o jogador está na floresta
- * e possui um rifle no seu inventário. A classe implementa Runnable para permitir a sua execução em uma thread separada.
+ * e possui um rifle no seu inventário.
+ * <p>
+ * Em vez de consultar o jogador periodicamente, ela ouve os eventos do {@link Player}: quando a condição
+ * passa a valer (floresta + rifle + veado vivo), a percepção é anunciada logo em seguida (após o
+ * atraso de debounce, se houver) e repetida a cada 10 segundos no {@link AmbientScheduler};
+ * quando a condição deixa de valer, o agendamento é cancelado. Fora da floresta não há nenhum disparo.
+ * </p>
+ * <p>
+ * O rifle é procurado pelo nome no inventário apenas nos eventos, que chegam na thread de comandos; o aviso,
+ * que roda no agendador, confere só o id dele na visão publicada do jogador.
+ * </p>
  */
-public class StagSpotter implements Runnable {
+public class StagSpotter implements PlayerListener, Runnable {
+    private static final long REMINDER_PERIOD_MILLIS = 10_000; // Intervalo entre os avisos enquanto a condição vale
+
     private Stag stag;
     private Player player;
+    private final OutputSink out;
+    private final long debounceMillis; // Atraso até o primeiro aviso, para ignorar passagens rápidas pela floresta
+    private AmbientScheduler scheduler;
+    private ScheduledFuture<?> registration; // Agendamento ativo, se houver
+    private volatile int rifleId; // Id do rifle no inventário, ou 0; atualizado na thread de comandos
 
     /**
-     * Construtor para inicializar os objetos Stag e Player que serão monitorados.
+     * Construtor para inicializar os objetos Stag e Player que serão monitorados, sem debounce.
      *
      * @param stag   O objeto Stag que representa o veado no jogo.
      * @param player O objeto Player que representa o jogador no jogo.
+     * @param out    A saída da sessão do jogador.
+     */
+    public StagSpotter(Stag stag, Player player, OutputSink out) {
+        this(stag, player, out, 0);
+    }
+
+    /**
+     * Construtor para inicializar os objetos Stag e Player que serão monitorados.
+     *
+     * @param stag           O objeto Stag que representa o veado no jogo.
+     * @param player         O objeto Player que representa o jogador no jogo.
+     * @param out            A saída da sessão do jogador.
+     * @param debounceMillis O atraso, em milissegundos, entre a condição passar a valer e o primeiro aviso.
      */
-    public StagSpotter(Stag stag, Player player) {
+    public StagSpotter(Stag stag, Player player, OutputSink out, long debounceMillis) {
         this.stag = stag;
         this.player = player;
+        this.out = out;
+        this.debounceMillis = debounceMillis;
     }
 
     /**
-     * Mét. run que será executado quando a thread iniciar. Verifica periodicamente (a cada 10 segundos)
-     * se o veado está vivo e se o jogador está na floresta com um rifle no inventário.
-     * Se todas as condições forem atendidas, exibe uma mensagem indicando a presença de um veado na proximidade.
+     * Passa a ouvir os eventos do jogador e avalia a condição atual.
+     *
+     * @param scheduler O agendador compartilhado, usado para os avisos.
+     */
+    public synchronized void start(AmbientScheduler scheduler) {
+        this.scheduler = scheduler;
+        player.addListener(this);
+        findRifle();
+        update();
+    }
+
+    /**
+     * Para de ouvir o jogador e cancela os avisos. Deve ser chamado quando a sessão termina.
      */
+    public synchronized void stop() {
+        player.removeListener(this);
+        cancel();
+        scheduler = null;
+    }
+
     @Override
-    public void run() {
-        try {
-            while (true) {
-                // Verifica se o veado está vivo e se o jogador está na floresta
-                if (stag.isAlive() && player.getCurrentScenario().getName().equals("Floresta")) {
-                    GameObject huntingRifle = player.getFromInventory("rifle");
-
-                    // Verifica se o jogador possui um rifle no inventário
-                    if (huntingRifle != null) {
-                        System.out.println("(PERCEPÇÃO) Há um veado na proximidade.");
-                    }
-                }
-
-                Thread.sleep(10000); // Espera por 10 segundos antes de verificar novamente
+    public void scenarioChanged(Player player, Scenario previous, Scenario current) {
+        update();
+    }
+
+    @Override
+    public void inventoryChanged(Player player) {
+        findRifle();
+        update();
+    }
+
+    // Na thread de comandos, que é a única a consultar o inventário em si
+    private void findRifle() {
+        GameObject rifle = player.getFromInventory("rifle");
+        rifleId = rifle == null ? 0 : rifle.getId();
+    }
+
+    /**
+     * Verifica se o veado está vivo e se o jogador está na floresta com um rifle no inventário.
+     *
+     * @return Verdadeiro se o veado pode ser percebido.
+     */
+    private boolean canSenseStag() {
+        // Cenário e inventário lidos de forma consistente, da mesma visão publicada
+        Player.View view = player.view();
+        return stag.isAlive() && view.getCurrentScenario() != null
+                && view.getCurrentScenario().getName().equals(Stag.HUNTING_GROUND) && view.holds(rifleId);
+    }
+
+    /**
+     * Agenda ou cancela os avisos conforme a condição atual.
+     */
+    private synchronized void update() {
+        if (scheduler == null) {
+            return;
+        }
+        if (canSenseStag()) {
+            if (registration == null) {
+                registration = scheduler.schedule(this, debounceMillis, REMINDER_PERIOD_MILLIS, TimeUnit.MILLISECONDS);
             }
-        } catch (InterruptedException e) {
-            throw new RuntimeException(e);
+        } else {
+            cancel();
+        }
+    }
+
+    private void cancel() {
+        if (registration != null) {
+            registration.cancel(false);
+            registration = null;
+        }
+    }
+
+    /**
+     * Anuncia a presença do veado. Se a condição deixou de valer (por exemplo, o veado morreu),
+     * o agendamento é cancelado em vez de anunciar.
+     */
+    @Override
+    public void run() {
+        if (canSenseStag()) {
+            out.announce("(PERCEPÇÃO) Há um veado na proximidade."); // Fora de um comando, enviado na hora
+        } else {
+            update();
         }
     }
-}
\ No newline at end of file
+}
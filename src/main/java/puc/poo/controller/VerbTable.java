@@ -0,0 +1,114 @@
+package puc.poo.controller;
+
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Tabela de verbos usada pelo {@link CommandProcessor} para despachar comandos.
+ * <p>
+ * É uma tabela hash de endereçamento aberto, montada uma única vez, cujas chaves são
+ * os verbos (e seus sinônimos) e cujos valores são os tratadores de cada comando.
+ * A consulta recebe um trecho de um {@link CharSequence} e compara caractere a caractere,
+ * sem criar nenhuma {@code String} intermediária. A comparação ignora maiúsculas/minúsculas.
+ * </p>
+ *
+ * @param <H> O tipo do tratador associado a cada verbo.
+ */
+final class VerbTable<H> {
+
+    private char[][] keys = new char[16][];
+    private Object[] handlers = new Object[16];
+    private int size;
+
+    /**
+     * Registra um tratador para um verbo e todos os seus sinônimos.
+     *
+     * @param handler O tratador do comando.
+     * @param verbs   O verbo e seus sinônimos (por exemplo, "olhar", "observar", "ver").
+     */
+    void register(H handler, String... verbs) {
+        for (String verb : verbs) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+            }
+            char[] key = verb.toLowerCase(Locale.ROOT).toCharArray();
+            int slot = slot(key, 0, key.length);
+            while (keys[slot] != null && !Arrays.equals(keys[slot], key)) {
+                slot = (slot + 1) & (keys.length - 1);
+            }
+            if (keys[slot] == null) {
+                size++;
+            }
+            keys[slot] = key;
+            handlers[slot] = handler;
+        }
+    }
+
+    /**
+     * Obtém o tratador do verbo contido em {@code text[start, end)}.
+     *
+     * @param text  O texto do comando.
+     * @param start O índice inicial do verbo (inclusivo).
+     * @param end   O índice final do verbo (exclusivo).
+     * @return O tratador registrado, ou {@code null} se o verbo não for conhecido.
+     */
+    @SuppressWarnings("unchecked")
+    H lookup(CharSequence text, int start, int end) {
+        int slot = slot(text, start, end);
+        char[] key;
+        while ((key = keys[slot]) != null) {
+            if (matches(key, text, start, end)) {
+                return (H) handlers[slot];
+            }
+            slot = (slot + 1) & (keys.length - 1);
+        }
+        return null;
+    }
+
+    private int slot(char[] key, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + key[i];
+        }
+        return mix(hash);
+    }
+
+    private int slot(CharSequence text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + Character.toLowerCase(text.charAt(i));
+        }
+        return mix(hash);
+    }
+
+    private int mix(int hash) {
+        hash ^= hash >>> 16;
+        return hash & (keys.length - 1);
+    }
+
+    private static boolean matches(char[] key, CharSequence text, int start, int end) {
+        if (key.length != end - start) {
+            return false;
+        }
+        for (int i = 0; i < key.length; i++) {
+            if (key[i] != Character.toLowerCase(text.charAt(start + i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void grow() {
+        char[][] oldKeys = keys;
+        Object[] oldHandlers = handlers;
+        keys = new char[oldKeys.length * 2][];
+        handlers = new Object[oldKeys.length * 2];
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                register((H) oldHandlers[i], new String(oldKeys[i]));
+            }
+        }
+    }
+}
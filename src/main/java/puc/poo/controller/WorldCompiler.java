@@ -0,0 +1,276 @@
+package puc.poo.controller;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectAction;
+import puc.poo.model.ObjectCondition;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.Stag;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A classe WorldCompiler é a etapa de build que transforma uma definição de mundo em texto
+ * ({@code .world}) numa imagem binária ({@link WorldImage}) que o jogo mapeia na memória ao iniciar.
+ * <p>
+ * O mundo é montado uma vez pelo {@link WorldLoader}, com as artes dos cenários já resolvidas, e então
+ * gravado como tabelas de tamanho fixo, um array de inteiros com as listas (objetos, conteúdos, saídas)
+ * e uma tabela de textos sem repetições. Ids de objetos e a ordem dos cenários são mantidos,
+ * de modo que jogos salvos valem para as duas formas do mesmo mundo.
+ * </p>
+ * <p>
+ * Uso: {@code java puc.poo.controller.WorldCompiler <mundo.world> <mundo.img>}
+ * </p>
+ */
+public final class WorldCompiler {
+    private final List<String> strings = new ArrayList<>();
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private int[] pool = new int[1024];
+    private int poolSize;
+
+    private WorldCompiler() {}
+
+    /**
+     * Compila um mundo já montado numa imagem binária.
+     *
+     * @param world O mundo.
+     * @param file  O arquivo da imagem a ser gravado.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public static void compile(ScenarioManager world, Path file) throws IOException {
+        ByteBuffer image = new WorldCompiler().build(world);
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (image.hasRemaining()) {
+                channel.write(image);
+            }
+        }
+        Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Compila um mundo já montado numa imagem mantida na memória, sem arquivo.
+     *
+     * @param world O mundo.
+     * @return A imagem.
+     * @throws IOException Se o mundo não puder ser representado numa imagem.
+     */
+    public static WorldImage compile(ScenarioManager world) throws IOException {
+        return new WorldImage(new WorldCompiler().build(world));
+    }
+
+    private ByteBuffer build(ScenarioManager world) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>(world.getScenarios().values());
+        Map<Scenario, Integer> scenarioIndex = new IdentityHashMap<>();
+        for (int i = 0; i < scenarios.size(); i++) {
+            scenarioIndex.put(scenarios.get(i), i);
+        }
+        ObjectRegistry registry = world.getRegistry();
+        int objectCount = registry.size();
+
+        int[] scenarioTable = new int[scenarios.size() * WorldImage.SCENARIO_INTS];
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario scenario = scenarios.get(i);
+            int at = i * WorldImage.SCENARIO_INTS;
+            scenarioTable[at] = string(scenario.getName());
+            scenarioTable[at + 1] = string(scenario.getBaseDescription());
+            scenarioTable[at + 2] = string(scenario.getImagePath());
+            scenarioTable[at + 3] = poolSize;
+            for (GameObject object : scenario.getObjects()) {
+                add(object.getId());
+            }
+            scenarioTable[at + 4] = poolSize - scenarioTable[at + 3];
+            scenarioTable[at + 5] = poolSize;
+            for (Map.Entry<String, Scenario> exit : scenario.getExits().entrySet()) {
+                Integer target = scenarioIndex.get(exit.getValue());
+                if (target == null) {
+                    throw new IOException("Saída para um cenário fora do mundo: " + exit.getKey());
+                }
+                add(string(exit.getKey()));
+                add(target);
+            }
+            scenarioTable[at + 6] = (poolSize - scenarioTable[at + 5]) / 2;
+        }
+
+        int[] objectTable = new int[objectCount * WorldImage.OBJECT_INTS];
+        List<ObjectAction> actions = new ArrayList<>();
+        for (int id = 1; id <= objectCount; id++) {
+            GameObject object = registry.get(id);
+            int at = (id - 1) * WorldImage.OBJECT_INTS;
+            int flags = 0;
+            if (object.isStorable()) flags |= WorldImage.OBJECT_STORABLE;
+            if (object.isStorage()) flags |= WorldImage.OBJECT_STORAGE;
+            if (object.isOpenable()) flags |= WorldImage.OBJECT_OPENABLE;
+            if (object.isOpen()) flags |= WorldImage.OBJECT_OPEN;
+            if (object.getContents() != null) flags |= WorldImage.OBJECT_HAS_CONTENTS;
+            objectTable[at] = string(object.getName());
+            objectTable[at + 1] = string(object.getDescription());
+            objectTable[at + 2] = flags;
+            objectTable[at + 3] = object.getKeyId();
+            objectTable[at + 4] = poolSize;
+            if (object.getContents() != null) {
+                for (GameObject content : object.getContents()) {
+                    add(content.getId());
+                }
+            }
+            objectTable[at + 5] = poolSize - objectTable[at + 4];
+            if (object.getAction() != null) {
+                objectTable[at + 6] = actions.size();
+                actions.add(object.getAction());
+            } else {
+                objectTable[at + 6] = -1;
+            }
+        }
+
+        int[] actionTable = new int[actions.size() * WorldImage.ACTION_INTS];
+        for (int a = 0; a < actions.size(); a++) {
+            ObjectAction action = actions.get(a);
+            ObjectCondition condition = action.getCondition();
+            int at = a * WorldImage.ACTION_INTS;
+            int flags = 0;
+            if (action.isActive()) flags |= WorldImage.ACTION_ACTIVE;
+            if (action.isRepeatable()) flags |= WorldImage.ACTION_REPEATABLE;
+            if (condition != null) {
+                flags |= WorldImage.ACTION_HAS_CONDITION;
+                if (condition.isSatisfied()) flags |= WorldImage.CONDITION_SATISFIED;
+            }
+            actionTable[at] = action.getActionType().ordinal();
+            actionTable[at + 1] = flags;
+            actionTable[at + 2] = action.getActionCount();
+            actionTable[at + 3] = string(action.getActionDescriptionActive());
+            actionTable[at + 4] = string(action.getActionDescriptionInactive());
+            actionTable[at + 5] = poolSize;
+            if (condition != null && condition.getRequiredObjects() != null) {
+                for (int required : condition.getRequiredObjects()) {
+                    add(required);
+                }
+                actionTable[at + 6] = poolSize - actionTable[at + 5];
+            } else {
+                actionTable[at + 6] = -1;
+            }
+        }
+
+        // Tabela hash dos nomes dos cenários, com no máximo metade dos slots ocupados
+        int slots = Integer.highestOneBit(Math.max(1, scenarios.size()) * 2 - 1) << 1;
+        int[] nameHash = new int[slots];
+        for (int i = 0; i < scenarios.size(); i++) {
+            int slot = scenarios.get(i).getName().hashCode() & (slots - 1);
+            while (nameHash[slot] != 0) {
+                slot = (slot + 1) & (slots - 1);
+            }
+            nameHash[slot] = i + 1;
+        }
+
+        byte[][] encoded = new byte[strings.size()][];
+        int stringBytes = 0;
+        for (int i = 0; i < encoded.length; i++) {
+            encoded[i] = strings.get(i).getBytes(StandardCharsets.UTF_8);
+            stringBytes += encoded[i].length;
+        }
+
+        // Layout
+        int scenarioOffset = WorldImage.HEADER_INTS * Integer.BYTES;
+        int objectOffset = scenarioOffset + scenarioTable.length * Integer.BYTES;
+        int actionOffset = objectOffset + objectTable.length * Integer.BYTES;
+        int poolOffset = actionOffset + actionTable.length * Integer.BYTES;
+        int hashOffset = poolOffset + poolSize * Integer.BYTES;
+        int stringOffset = hashOffset + (1 + slots) * Integer.BYTES;
+        long length = (long) stringOffset + (2L + encoded.length) * Integer.BYTES + stringBytes;
+        if (length > Integer.MAX_VALUE) {
+            throw new IOException("Mundo grande demais para uma imagem (" + length + " bytes).");
+        }
+
+        ByteBuffer image = ByteBuffer.allocate((int) length);
+        Player player = world.getPlayer();
+        Stag stag = world.getStag();
+        Integer start = scenarioIndex.get(player.getCurrentScenario());
+        if (start == null) {
+            throw new IOException("O mundo não define o cenário inicial.");
+        }
+        image.putInt(WorldImage.MAGIC).putInt(WorldImage.VERSION).putInt((int) length)
+                .putInt(scenarios.size()).putInt(objectCount).putInt(actions.size())
+                .putInt(start).putInt(stag.getAntlers() != null ? stag.getAntlers().getId() : 0)
+                .putInt(scenarioOffset).putInt(objectOffset).putInt(actionOffset)
+                .putInt(poolOffset).putInt(hashOffset).putInt(stringOffset);
+        image.asIntBuffer().put(scenarioTable);
+        image.position(objectOffset);
+        image.asIntBuffer().put(objectTable);
+        image.position(actionOffset);
+        image.asIntBuffer().put(actionTable);
+        image.position(poolOffset);
+        image.asIntBuffer().put(pool, 0, poolSize);
+        image.position(hashOffset);
+        image.putInt(slots);
+        image.asIntBuffer().put(nameHash);
+        image.position(stringOffset);
+        image.putInt(encoded.length);
+        int offset = 0;
+        for (byte[] bytes : encoded) {
+            image.putInt(offset);
+            offset += bytes.length;
+        }
+        image.putInt(offset);
+        for (byte[] bytes : encoded) {
+            image.put(bytes);
+        }
+        return image.flip();
+    }
+
+    private int string(String text) {
+        if (text == null) {
+            return -1;
+        }
+        Integer id = stringIds.get(text);
+        if (id == null) {
+            id = strings.size();
+            strings.add(text);
+            stringIds.put(text, id);
+        }
+        return id;
+    }
+
+    private void add(int value) {
+        if (poolSize == pool.length) {
+            pool = Arrays.copyOf(pool, poolSize * 2);
+        }
+        pool[poolSize++] = value;
+    }
+
+    /**
+     * Compila um arquivo de definição de mundo.
+     *
+     * @param args O arquivo {@code .world} de entrada e o arquivo de imagem de saída.
+     * @throws IOException Se a definição for inválida ou a imagem não puder ser gravada.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length != 2) {
+            System.err.println("Uso: WorldCompiler <mundo.world> <mundo.img>");
+            System.exit(2);
+        }
+        ScenarioManager world = new ScenarioManager(new Player(), new Stag());
+        try (Reader reader = Files.newBufferedReader(Path.of(args[0]), StandardCharsets.UTF_8)) {
+            world.loadWorld(reader);
+        }
+        Path output = Path.of(args[1]).toAbsolutePath();
+        Files.createDirectories(output.getParent());
+        compile(world, output);
+        System.out.printf("%s: %d cenários, %d objetos -> %s (%d bytes)%n", args[0],
+                world.getScenarios().size(), world.getRegistry().size(), output, Files.size(output));
+    }
+}
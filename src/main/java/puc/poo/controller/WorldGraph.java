@@ -0,0 +1,448 @@
+package puc.poo.controller;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Scenario;
+import puc.poo.persistence.ScenarioPage;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.function.ToIntFunction;
+
+/**
+ * A classe WorldGraph responde, para uma sessão, perguntas sobre os caminhos entre cenários: qual o caminho
+ * mais curto até um lugar ("ir para &lt;lugar&gt;"), a quantos passos ele está e se dá para chegar lá.
+ * <p>
+ * A topologia das saídas é um {@link ExitGraph} (compartilhado entre as sessões de um mesmo template); esta
+ * classe acrescenta o estado das portas da sessão. Ela é avisada pelo {@link ObjectRegistry} sempre que um
+ * objeto abre ou fecha, então sabe o estado até das portas de cenários que não estão na memória: vale o
+ * último estado visto ou, se a porta nunca mudou, o da topologia.
+ * </p>
+ * <p>
+ * As buscas usam A* com a estimativa dos landmarks do {@link ExitGraph} (nos mundos pequenos, que não têm
+ * landmarks, vira uma busca em largura). Os caminhos ficam num cache, e cada um lembra as portas examinadas
+ * na sua busca: quando uma porta muda, só os caminhos que a examinaram são descartados. Uma porta que a
+ * busca não examinou não muda o resultado, pois só leva a cenários que já não encurtariam o caminho.
+ * </p>
+ * <p>
+ * Como o resto da sessão, não deve ser usada por várias threads ao mesmo tempo.
+ * </p>
+ */
+public final class WorldGraph {
+    private static final int CACHED_ROUTES = 256;
+    private static final int UNREACHABLE = Integer.MAX_VALUE;
+    private static final int[] EMPTY = {};
+
+    private final Supplier<ExitGraph> source; // Monta ou obtém a topologia na primeira consulta
+    private final ObjectRegistry registry;
+    private final IntFunction<Scenario> scenarioAt;
+    private final ToIntFunction<Scenario> indexOf;
+    private ExitGraph topology;
+    private final BitSet changedDoors = new BitSet(); // Portas cujo estado mudou nesta sessão
+    private final BitSet openDoors = new BitSet(); // O estado atual dessas portas
+    private final Map<Long, CachedRoute> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Long, CachedRoute> eldest) {
+            if (size() > CACHED_ROUTES) {
+                forget(eldest.getKey(), eldest.getValue());
+                return true;
+            }
+            return false;
+        }
+    };
+    private final Map<Integer, List<Long>> dependents = new HashMap<>(); // Porta -> caminhos que a examinaram
+    private long hits;
+    private long misses;
+
+    // Memória das buscas, reaproveitada: uma posição só vale se o seu carimbo for o da busca atual
+    // (criada na primeira busca, pois a maioria das sessões nunca usa "ir para")
+    private int[] stamp = EMPTY;
+    private int[] distance = EMPTY;
+    private int[] parentEdge = EMPTY;
+    private int[] parent = EMPTY;
+    private int search;
+    private int[] heapNode = EMPTY;
+    private int[] heapKey = EMPTY;
+    private int heapSize;
+
+    /**
+     * Um caminho entre dois cenários.
+     *
+     * @param scenarios Os índices dos cenários percorridos, do primeiro ao último.
+     * @param steps     As direções a seguir (como em "ir &lt;direção&gt;"), uma a menos que os cenários.
+     */
+    public record Route(int[] scenarios, List<String> steps) {
+
+        /**
+         * Retorna o número de passos do caminho.
+         *
+         * @return O número de saídas atravessadas.
+         */
+        public int length() {
+            return steps.size();
+        }
+    }
+
+    /**
+     * Um resultado do cache: o caminho ({@code null} se não há caminho) e as portas examinadas na busca.
+     */
+    private record CachedRoute(Route route, int[] doors) {}
+
+    /**
+     * Construtor.
+     *
+     * @param source     A topologia do mundo, obtida na primeira consulta.
+     * @param registry   O registro dos objetos da sessão, que avisa quando uma porta muda.
+     * @param scenarioAt Retorna o cenário de um índice, sem precisar montar os seus objetos.
+     * @param indexOf    Retorna o índice de um cenário, ou -1 se ele não for deste mundo.
+     */
+    WorldGraph(Supplier<ExitGraph> source, ObjectRegistry registry, IntFunction<Scenario> scenarioAt,
+               ToIntFunction<Scenario> indexOf) {
+        this.source = source;
+        this.registry = registry;
+        this.scenarioAt = scenarioAt;
+        this.indexOf = indexOf;
+        registry.setOpeningListener(this::doorChanged);
+    }
+
+    private ExitGraph topology() {
+        if (topology == null) {
+            topology = source.get();
+        }
+        return topology;
+    }
+
+    /**
+     * Procura um cenário pelo nome ou por um trecho dele, sem diferenciar maiúsculas de minúsculas.
+     * Um nome exato tem preferência sobre os que apenas contêm o trecho.
+     *
+     * @param name O nome do cenário, ou um trecho dele.
+     * @return O índice do cenário, ou -1 se nenhum nome contiver o trecho.
+     */
+    public int find(String name) {
+        return topology().find(name);
+    }
+
+    /**
+     * Retorna o cenário de um índice.
+     *
+     * @param index O índice.
+     * @return O cenário.
+     */
+    public Scenario scenario(int index) {
+        return scenarioAt.apply(index);
+    }
+
+    /**
+     * Retorna o caminho mais curto até um cenário com as portas como estão agora.
+     *
+     * @param from   O cenário de partida.
+     * @param target O índice do cenário de destino.
+     * @return O caminho, ou {@code null} se não há caminho ou o cenário de partida não é deste mundo.
+     */
+    public Route route(Scenario from, int target) {
+        int start = indexOf.applyAsInt(from);
+        if (start < 0 || target < 0 || target >= topology().size) {
+            return null;
+        }
+        long key = (long) start << 32 | target;
+        CachedRoute cached = cache.get(key);
+        if (cached != null) {
+            hits++;
+            return cached.route();
+        }
+        misses++;
+        BitSet examined = new BitSet();
+        Route route = search(start, target, false, examined);
+        cached = new CachedRoute(route, examined.stream().toArray());
+        cache.put(key, cached);
+        for (int door : cached.doors()) {
+            dependents.computeIfAbsent(door, d -> new ArrayList<>(2)).add(key);
+        }
+        return route;
+    }
+
+    /**
+     * Retorna a quantos passos um cenário está, com as portas como estão agora.
+     *
+     * @param from   O cenário de partida.
+     * @param target O índice do cenário de destino.
+     * @return O número de passos, ou -1 se não há caminho.
+     */
+    public int distance(Scenario from, int target) {
+        Route route = route(from, target);
+        return route != null ? route.length() : -1;
+    }
+
+    /**
+     * Indica se haveria caminho até um cenário se todas as portas estivessem abertas, ou seja, se o que
+     * impede o caminho agora são portas fechadas. O resultado não vai para o cache.
+     *
+     * @param from   O cenário de partida.
+     * @param target O índice do cenário de destino.
+     * @return Verdadeiro se há caminho abrindo portas.
+     */
+    public boolean reachableThroughDoors(Scenario from, int target) {
+        int start = indexOf.applyAsInt(from);
+        return start >= 0 && target >= 0 && target < topology().size
+                && search(start, target, true, new BitSet()) != null;
+    }
+
+    /**
+     * Calcula a distância de um cenário a todos os outros, com as portas como estão agora (busca em largura).
+     *
+     * @param from O cenário de partida.
+     * @return As distâncias pelo índice do cenário; -1 para os cenários sem caminho.
+     */
+    public int[] distances(Scenario from) {
+        ExitGraph graph = topology();
+        int[] result = new int[graph.size];
+        Arrays.fill(result, -1);
+        int start = indexOf.applyAsInt(from);
+        if (start < 0) {
+            return result;
+        }
+        int[] queue = new int[graph.size];
+        int head = 0;
+        int tail = 0;
+        result[start] = 0;
+        queue[tail++] = start;
+        while (head < tail) {
+            int s = queue[head++];
+            for (int e = graph.edgeStart[s]; e < graph.edgeStart[s + 1]; e++) {
+                int next = graph.edgeTarget[e];
+                if (result[next] < 0 && passable(graph.edgeDoor[e])) {
+                    result[next] = result[s] + 1;
+                    queue[tail++] = next;
+                }
+            }
+        }
+        return result;
+    }
+
+    public long getCacheHits() {
+        return hits;
+    }
+
+    public long getCacheMisses() {
+        return misses;
+    }
+
+    /**
+     * Troca o estado das portas pelo de um jogo salvo de um mundo paginado: as portas voltam ao estado da
+     * topologia, exceto as que estão nas páginas informadas. O cache é esvaziado.
+     *
+     * @param pages As páginas dos cenários modificados, pelo índice do cenário.
+     * @throws IOException Se alguma página estiver corrompida.
+     */
+    void reset(Map<Integer, byte[]> pages) throws IOException {
+        changedDoors.clear();
+        openDoors.clear();
+        cache.clear();
+        dependents.clear();
+        for (byte[] page : pages.values()) {
+            ScenarioPage.readOpenings(page, (id, open) -> {
+                changedDoors.set(id);
+                openDoors.set(id, open);
+            });
+        }
+    }
+
+    // Chamado pelo registro quando um objeto abre, fecha ou deixa de ser abrível
+    private void doorChanged(int id) {
+        GameObject object = registry.get(id);
+        boolean open = object != null && object.isOpenable() && object.isOpen();
+        boolean before = topology != null && passable(id);
+        changedDoors.set(id);
+        openDoors.set(id, open);
+        if (topology != null && before != open) {
+            List<Long> keys = dependents.remove(id);
+            if (keys != null) {
+                for (Long key : keys) {
+                    CachedRoute removed = cache.remove(key);
+                    if (removed != null) {
+                        forget(key, removed);
+                    }
+                }
+            }
+        }
+    }
+
+    // Tira um caminho descartado das listas das outras portas que ele examinou
+    private void forget(Long key, CachedRoute cached) {
+        for (int door : cached.doors()) {
+            List<Long> keys = dependents.get(door);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    dependents.remove(door);
+                }
+            }
+        }
+    }
+
+    private boolean passable(int door) {
+        if (door == 0) {
+            return true;
+        }
+        return changedDoors.get(door) ? openDoors.get(door) : topology.initiallyOpen(door);
+    }
+
+    /**
+     * A* do cenário de partida ao de destino. Com {@code relaxed}, todas as portas contam como abertas.
+     * As portas das saídas examinadas são marcadas em {@code examined}.
+     */
+    private Route search(int start, int target, boolean relaxed, BitSet examined) {
+        ExitGraph graph = topology();
+        int[][] landmarks = graph.landmarkDistances();
+        if (estimate(landmarks, start, target) == UNREACHABLE) {
+            return null;
+        }
+        prepare(graph.size);
+        stamp[start] = search;
+        distance[start] = 0;
+        parent[start] = -1;
+        heapSize = 0;
+        push(start, 0);
+        while (heapSize > 0) {
+            int key = heapKey[0];
+            int node = pop();
+            if (key > distance[node] + estimate(landmarks, node, target)) {
+                continue; // Entrada antiga: o cenário já saiu do heap com uma distância menor
+            }
+            if (node == target) {
+                return route(graph, start, target);
+            }
+            for (int e = graph.edgeStart[node]; e < graph.edgeStart[node + 1]; e++) {
+                int door = graph.edgeDoor[e];
+                if (door != 0) {
+                    examined.set(door);
+                    if (!relaxed && !passable(door)) {
+                        continue;
+                    }
+                }
+                int next = graph.edgeTarget[e];
+                int nextDistance = distance[node] + 1;
+                if (stamp[next] != search || nextDistance < distance[next]) {
+                    int h = estimate(landmarks, next, target);
+                    stamp[next] = search;
+                    distance[next] = nextDistance;
+                    parent[next] = node;
+                    parentEdge[next] = e;
+                    if (h != UNREACHABLE) {
+                        push(next, nextDistance + h);
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Limite inferior da distância de um cenário ao destino pelas distâncias aos landmarks (desigualdade
+     * triangular nos dois sentidos), ou {@link #UNREACHABLE} se os landmarks provam que não há caminho.
+     */
+    private static int estimate(int[][] landmarks, int node, int target) {
+        if (landmarks == null) {
+            return 0;
+        }
+        int best = 0;
+        for (int k = 0; k < landmarks.length; k += 2) {
+            int[] fromLandmark = landmarks[k];
+            int[] toLandmark = landmarks[k + 1];
+            if (fromLandmark[node] != UNREACHABLE) {
+                if (fromLandmark[target] == UNREACHABLE) {
+                    return UNREACHABLE; // O landmark chega ao cenário, mas não ao destino
+                }
+                best = Math.max(best, fromLandmark[target] - fromLandmark[node]);
+            }
+            if (toLandmark[target] != UNREACHABLE) {
+                if (toLandmark[node] == UNREACHABLE) {
+                    return UNREACHABLE; // O destino chega ao landmark, mas o cenário não
+                }
+                best = Math.max(best, toLandmark[node] - toLandmark[target]);
+            }
+        }
+        return best;
+    }
+
+    private Route route(ExitGraph graph, int start, int target) {
+        int length = distance[target];
+        int[] scenarios = new int[length + 1];
+        String[] steps = new String[length];
+        for (int node = target, i = length; node != start; node = parent[node], i--) {
+            scenarios[i] = node;
+            steps[i - 1] = graph.label(parentEdge[node]);
+        }
+        scenarios[0] = start;
+        return new Route(scenarios, List.of(steps));
+    }
+
+    private void prepare(int size) {
+        if (stamp.length < size) {
+            stamp = new int[size];
+            distance = new int[size];
+            parent = new int[size];
+            parentEdge = new int[size];
+            search = 0;
+        }
+        if (++search == Integer.MAX_VALUE) {
+            Arrays.fill(stamp, 0);
+            search = 1;
+        }
+    }
+
+    // Heap binário de mínimo pela chave (distância + estimativa)
+
+    private void push(int node, int key) {
+        if (heapSize == heapNode.length) {
+            heapNode = Arrays.copyOf(heapNode, Math.max(64, heapSize * 2));
+            heapKey = Arrays.copyOf(heapKey, Math.max(64, heapSize * 2));
+        }
+        int i = heapSize++;
+        while (i > 0) {
+            int up = (i - 1) >>> 1;
+            if (heapKey[up] <= key) {
+                break;
+            }
+            heapNode[i] = heapNode[up];
+            heapKey[i] = heapKey[up];
+            i = up;
+        }
+        heapNode[i] = node;
+        heapKey[i] = key;
+    }
+
+    private int pop() {
+        int top = heapNode[0];
+        int node = heapNode[--heapSize];
+        int key = heapKey[heapSize];
+        int i = 0;
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= heapSize) {
+                break;
+            }
+            if (child + 1 < heapSize && heapKey[child + 1] < heapKey[child]) {
+                child++;
+            }
+            if (heapKey[child] >= key) {
+                break;
+            }
+            heapNode[i] = heapNode[child];
+            heapKey[i] = heapKey[child];
+            i = child;
+        }
+        heapNode[i] = node;
+        heapKey[i] = key;
+        return top;
+    }
+}
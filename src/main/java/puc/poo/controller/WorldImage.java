@@ -0,0 +1,337 @@
+package puc.poo.controller;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * A classe WorldImage dá acesso a uma imagem binária de mundo gerada pelo {@link WorldCompiler}.
+ * <p>
+ * O arquivo é mapeado na memória ({@code mmap}) e nunca é copiado para o heap: cada consulta lê os bytes
+ * diretamente do mapeamento, e os textos só são decodificados quando pedidos. Abrir uma imagem custa o mesmo
+ * para qualquer tamanho de mundo, e vários processos que abrem o mesmo arquivo compartilham as suas páginas
+ * no cache do sistema operacional. A imagem é imutável e pode ser lida por várias sessões ao mesmo tempo;
+ * cada sessão monta os seus cenários e objetos sob demanda a partir dela ({@link ScenarioManager#loadWorld(WorldImage)}).
+ * </p>
+ *
+ * <pre>
+ * imagem   := cabeçalho cenário* objeto* ação* inteiros hash textos
+ * cabeçalho:= MAGIC VERSION tamanho cenários objetos ações início troféu
+ *             offsetCenários offsetObjetos offsetAções offsetInteiros offsetHash offsetTextos
+ * cenário  := nome descrição arte inícioObjetos nObjetos inícioSaídas nSaídas
+ * objeto   := nome descrição flags chave inícioConteúdo nConteúdo ação
+ * ação     := tipo flags contagem textoAtiva textoInativa inícioExigidos nExigidos
+ * hash     := nSlots slot*                (índice do cenário + 1 pelo hash do nome, sondagem linear)
+ * textos   := nTextos offset* bytes        (UTF-8; o texto i ocupa offset[i] até offset[i + 1])
+ * </pre>
+ * <p>
+ * Todos os campos são inteiros de 32 bits. Os objetos de um cenário, o conteúdo de um objeto, as saídas
+ * (pares direção, cenário) e os objetos exigidos por uma condição ficam no array de inteiros.
+ * Textos ausentes valem -1; objetos são referenciados pelo id (1 em diante) e cenários pelo índice.
+ * </p>
+ */
+public final class WorldImage {
+    static final int MAGIC = 0x4A57494D; // "JWIM"
+    static final int VERSION = 1;
+    static final int HEADER_INTS = 14;
+    static final int SCENARIO_INTS = 7;
+    static final int OBJECT_INTS = 7;
+    static final int ACTION_INTS = 7;
+
+    // Bits das flags de objeto
+    static final int OBJECT_STORABLE = 1;
+    static final int OBJECT_STORAGE = 1 << 1;
+    static final int OBJECT_OPENABLE = 1 << 2;
+    static final int OBJECT_OPEN = 1 << 3;
+    static final int OBJECT_HAS_CONTENTS = 1 << 4;
+
+    // Bits das flags de ação
+    static final int ACTION_ACTIVE = 1;
+    static final int ACTION_REPEATABLE = 1 << 1;
+    static final int ACTION_HAS_CONDITION = 1 << 2;
+    static final int CONDITION_SATISFIED = 1 << 3;
+
+    private final ByteBuffer data;
+    private final int scenarioCount;
+    private final int objectCount;
+    private final int actionCount;
+    private final int startScenario;
+    private final int trophyObject;
+    private final int scenarioTable;
+    private final int objectTable;
+    private final int actionTable;
+    private final int intPool;
+    private final int nameHash;
+    private final int hashMask;
+    private final int stringOffsets;
+    private final int stringBytes;
+    private final int stringCount;
+
+    /**
+     * Mapeia uma imagem de mundo na memória.
+     *
+     * @param file O arquivo da imagem.
+     * @return A imagem.
+     * @throws IOException Se o arquivo não puder ser lido ou não for uma imagem válida.
+     */
+    public static WorldImage open(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // O mapeamento continua válido depois que o canal é fechado
+            return new WorldImage(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    /**
+     * Construtor sobre os bytes de uma imagem.
+     *
+     * @param data Os bytes da imagem (em geral, um mapeamento do arquivo).
+     * @throws IOException Se os bytes não forem uma imagem válida.
+     */
+    WorldImage(ByteBuffer data) throws IOException {
+        this.data = data;
+        if (data.capacity() < HEADER_INTS * Integer.BYTES || data.getInt(0) != MAGIC) {
+            throw new IOException("Arquivo não é uma imagem de mundo.");
+        }
+        if (data.getInt(4) != VERSION) {
+            throw new IOException("Versão de imagem de mundo não suportada: " + data.getInt(4));
+        }
+        if (data.getInt(8) != data.capacity()) {
+            throw new IOException("Imagem de mundo incompleta.");
+        }
+        scenarioCount = data.getInt(12);
+        objectCount = data.getInt(16);
+        actionCount = data.getInt(20);
+        startScenario = data.getInt(24);
+        trophyObject = data.getInt(28);
+        scenarioTable = data.getInt(32);
+        objectTable = data.getInt(36);
+        actionTable = data.getInt(40);
+        intPool = data.getInt(44);
+        nameHash = data.getInt(48);
+        int strings = data.getInt(52);
+        hashMask = data.getInt(nameHash) - 1;
+        stringCount = data.getInt(strings);
+        stringOffsets = strings + Integer.BYTES;
+        stringBytes = stringOffsets + (stringCount + 1) * Integer.BYTES;
+        if (startScenario < 0 || startScenario >= scenarioCount) {
+            throw new IOException("Imagem de mundo sem cenário inicial válido.");
+        }
+    }
+
+    /**
+     * Retorna o número de cenários do mundo.
+     *
+     * @return O número de cenários.
+     */
+    public int scenarioCount() {
+        return scenarioCount;
+    }
+
+    /**
+     * Retorna o número de objetos do mundo, que também é o maior id de objeto.
+     *
+     * @return O número de objetos.
+     */
+    public int objectCount() {
+        return objectCount;
+    }
+
+    int actionCount() {
+        return actionCount;
+    }
+
+    int startScenario() {
+        return startScenario;
+    }
+
+    int trophyObject() {
+        return trophyObject;
+    }
+
+    // Cenários
+
+    String scenarioName(int scenario) {
+        return string(scenarioField(scenario, 0));
+    }
+
+    String scenarioDescription(int scenario) {
+        return string(scenarioField(scenario, 1));
+    }
+
+    String scenarioView(int scenario) {
+        return string(scenarioField(scenario, 2));
+    }
+
+    int scenarioObjectCount(int scenario) {
+        return scenarioField(scenario, 4);
+    }
+
+    int scenarioObject(int scenario, int k) {
+        return pool(scenarioField(scenario, 3) + k);
+    }
+
+    int exitCount(int scenario) {
+        return scenarioField(scenario, 6);
+    }
+
+    String exitDirection(int scenario, int k) {
+        return string(pool(scenarioField(scenario, 5) + 2 * k));
+    }
+
+    int exitTarget(int scenario, int k) {
+        return pool(scenarioField(scenario, 5) + 2 * k + 1);
+    }
+
+    /**
+     * Procura a saída de um cenário numa direção, comparando os bytes sem decodificar os textos.
+     *
+     * @return O índice do cenário de destino, ou -1 se não houver saída nessa direção.
+     */
+    int findExit(int scenario, String direction) {
+        byte[] wanted = direction.getBytes(StandardCharsets.UTF_8);
+        int start = scenarioField(scenario, 5);
+        int count = scenarioField(scenario, 6);
+        for (int k = 0; k < count; k++) {
+            if (stringEquals(pool(start + 2 * k), wanted)) {
+                return pool(start + 2 * k + 1);
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Procura um cenário pelo nome na tabela hash da imagem.
+     *
+     * @return O índice do cenário, ou -1 se não existir.
+     */
+    int findScenario(String name) {
+        byte[] wanted = name.getBytes(StandardCharsets.UTF_8);
+        for (int slot = name.hashCode() & hashMask; ; slot = (slot + 1) & hashMask) {
+            int entry = data.getInt(nameHash + (1 + slot) * Integer.BYTES);
+            if (entry == 0) {
+                return -1;
+            }
+            if (stringEquals(scenarioField(entry - 1, 0), wanted)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    private int scenarioField(int scenario, int field) {
+        if (scenario < 0 || scenario >= scenarioCount) {
+            throw new IndexOutOfBoundsException("Cenário inexistente na imagem: " + scenario);
+        }
+        return data.getInt(scenarioTable + (scenario * SCENARIO_INTS + field) * Integer.BYTES);
+    }
+
+    // Objetos
+
+    String objectName(int id) {
+        return string(objectField(id, 0));
+    }
+
+    String objectDescription(int id) {
+        return string(objectField(id, 1));
+    }
+
+    int objectFlags(int id) {
+        return objectField(id, 2);
+    }
+
+    int objectKey(int id) {
+        return objectField(id, 3);
+    }
+
+    int objectContentCount(int id) {
+        return objectField(id, 5);
+    }
+
+    int objectContent(int id, int k) {
+        return pool(objectField(id, 4) + k);
+    }
+
+    /**
+     * @return O índice da ação do objeto, ou -1 se ele não tiver ação.
+     */
+    int objectAction(int id) {
+        return objectField(id, 6);
+    }
+
+    private int objectField(int id, int field) {
+        if (id <= 0 || id > objectCount) {
+            throw new IndexOutOfBoundsException("Objeto inexistente na imagem: " + id);
+        }
+        return data.getInt(objectTable + ((id - 1) * OBJECT_INTS + field) * Integer.BYTES);
+    }
+
+    // Ações
+
+    int actionType(int action) {
+        return actionField(action, 0);
+    }
+
+    int actionFlags(int action) {
+        return actionField(action, 1);
+    }
+
+    int actionCount(int action) {
+        return actionField(action, 2);
+    }
+
+    String actionDescriptionActive(int action) {
+        return string(actionField(action, 3));
+    }
+
+    String actionDescriptionInactive(int action) {
+        return string(actionField(action, 4));
+    }
+
+    /**
+     * @return O número de objetos exigidos pela condição da ação, ou -1 se a lista não existir.
+     */
+    int actionRequiredCount(int action) {
+        return actionField(action, 6);
+    }
+
+    int actionRequired(int action, int k) {
+        return pool(actionField(action, 5) + k);
+    }
+
+    private int actionField(int action, int field) {
+        return data.getInt(actionTable + (action * ACTION_INTS + field) * Integer.BYTES);
+    }
+
+    // Inteiros e textos
+
+    private int pool(int index) {
+        return data.getInt(intPool + index * Integer.BYTES);
+    }
+
+    private String string(int index) {
+        if (index < 0) {
+            return null;
+        }
+        int start = data.getInt(stringOffsets + index * Integer.BYTES);
+        int end = data.getInt(stringOffsets + (index + 1) * Integer.BYTES);
+        byte[] bytes = new byte[end - start];
+        data.get(stringBytes + start, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private boolean stringEquals(int index, byte[] wanted) {
+        int start = data.getInt(stringOffsets + index * Integer.BYTES);
+        int end = data.getInt(stringOffsets + (index + 1) * Integer.BYTES);
+        if (end - start != wanted.length) {
+            return false;
+        }
+        for (int i = 0; i < wanted.length; i++) {
+            if (data.get(stringBytes + start + i) != wanted[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,370 @@
+package puc.poo.controller;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectAction;
+import puc.poo.model.ObjectAction.ActionType;
+import puc.poo.model.ObjectCondition;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.Stag;
+import puc.poo.view.ScenarioViews;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A classe WorldLoader monta um mundo (cenários, objetos, ações, condições e saídas) a partir de um arquivo
+ * de definição de mundo, no formato descrito em {@code worlds/cabana.world}.
+ * <p>
+ * O arquivo é lido linha a linha, sem ser carregado inteiro na memória: cada declaração cria o seu
+ * cenário ou objeto imediatamente. Referências por id simbólico (chaves, conteúdos, saídas) são resolvidas
+ * na hora quando o alvo já foi declarado e, caso contrário, ficam pendentes até o fim do arquivo.
+ * Os mapas de ids existem apenas durante a carga.
+ * </p>
+ */
+final class WorldLoader {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final Player player;
+    private final Stag stag;
+    private final ObjectRegistry registry;
+    private final Map<String, Scenario> scenarios; // Cenários do mundo, indexados pelo nome
+
+    private final Map<String, Scenario> scenariosById = new HashMap<>();
+    private final Map<String, GameObject> objectsById = new HashMap<>();
+    private final List<Resolution> pending = new ArrayList<>(); // Referências a declarações posteriores
+    private final List<String> tokens = new ArrayList<>(); // Reutilizada a cada linha
+    private final StringBuilder token = new StringBuilder();
+    private int lineNumber;
+    private Scenario start;
+
+    /**
+     * Referência que só pode ser resolvida depois que o seu alvo for declarado.
+     */
+    @FunctionalInterface
+    private interface Resolution {
+        void resolve() throws IOException;
+    }
+
+    @FunctionalInterface
+    private interface Target<T> {
+        void accept(T value) throws IOException;
+    }
+
+    /**
+     * Construtor do carregador.
+     *
+     * @param player    O jogador, posicionado no cenário inicial ao fim da carga.
+     * @param stag      O veado, que recebe o troféu do mundo.
+     * @param registry  O registro em que os objetos são criados.
+     * @param scenarios O mapa que recebe os cenários, na ordem de declaração.
+     */
+    WorldLoader(Player player, Stag stag, ObjectRegistry registry, Map<String, Scenario> scenarios) {
+        this.player = player;
+        this.stag = stag;
+        this.registry = registry;
+        this.scenarios = scenarios;
+    }
+
+    /**
+     * Lê a definição do mundo e monta os cenários.
+     *
+     * @param reader A definição do mundo.
+     * @throws IOException Se a leitura falhar ou a definição for inválida.
+     */
+    void load(Reader reader) throws IOException {
+        BufferedReader in = reader instanceof BufferedReader buffered ? buffered : new BufferedReader(reader, BUFFER_SIZE);
+        String line;
+        while ((line = in.readLine()) != null) {
+            lineNumber++;
+            tokenize(line);
+            if (!tokens.isEmpty()) {
+                declare();
+            }
+        }
+        for (Resolution resolution : pending) {
+            resolution.resolve();
+        }
+        pending.clear();
+        if (start == null) {
+            throw new IOException("O mundo não define o cenário inicial (start).");
+        }
+        player.setCurrentScenario(start);
+    }
+
+    private void declare() throws IOException {
+        String directive = tokens.get(0);
+        switch (directive) {
+            case "scenario" -> declareScenario();
+            case "object" -> declareObject();
+            case "action" -> declareAction();
+            case "exit" -> {
+                expectArguments(3);
+                String direction = tokens.get(2);
+                String targetId = tokens.get(3);
+                withScenario(tokens.get(1), from -> withScenario(targetId, to -> from.addExit(direction, to)));
+            }
+            case "start" -> {
+                expectArguments(1);
+                withScenario(tokens.get(1), scenario -> start = scenario);
+            }
+            case "trophy" -> {
+                expectArguments(1);
+                withObject(tokens.get(1), stag::setAntlers);
+            }
+            default -> throw error(lineNumber, "declaração desconhecida: " + directive);
+        }
+    }
+
+    private void declareScenario() throws IOException {
+        expectArguments(3);
+        String id = tokens.get(1);
+        String view = "";
+        for (int i = 4; i < tokens.size(); i++) {
+            String attribute = tokens.get(i);
+            if (attribute.startsWith("view=")) {
+                view = ScenarioViews.byName(attribute.substring(5));
+                if (view == null) {
+                    throw error(lineNumber, "arte de cenário desconhecida: " + attribute.substring(5));
+                }
+            } else {
+                throw unknownAttribute(attribute);
+            }
+        }
+        Scenario scenario = new Scenario(tokens.get(2), tokens.get(3), view);
+        if (scenariosById.putIfAbsent(id, scenario) != null) {
+            throw error(lineNumber, "cenário declarado duas vezes: " + id);
+        }
+        if (scenarios.putIfAbsent(scenario.getName(), scenario) != null) {
+            throw error(lineNumber, "nome de cenário repetido: " + scenario.getName());
+        }
+    }
+
+    private void declareObject() throws IOException {
+        expectArguments(3);
+        String id = tokens.get(1);
+        if (objectsById.containsKey(id)) {
+            throw error(lineNumber, "objeto declarado duas vezes: " + id);
+        }
+        GameObject object = new GameObject(registry, tokens.get(2), tokens.get(3));
+        objectsById.put(id, object);
+        for (int i = 4; i < tokens.size(); i++) {
+            String attribute = tokens.get(i);
+            switch (attribute) {
+                case "storable" -> object.setAsStorable();
+                case "storage" -> object.setAsStorage(true);
+                case "openable" -> object.setAsOpenable(true);
+                case "open" -> object.setOpen(true);
+                default -> {
+                    if (attribute.startsWith("key=")) {
+                        withObject(attribute.substring(4), key -> object.setKeyId(key.getId()));
+                    } else if (attribute.startsWith("in=")) {
+                        placeObject(object, attribute.substring(3));
+                    } else {
+                        throw unknownAttribute(attribute);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Coloca o objeto num cenário ou dentro de outro objeto, conforme o id.
+     */
+    private void placeObject(GameObject object, String containerId) throws IOException {
+        int line = lineNumber;
+        Resolution place = () -> {
+            Scenario scenario = scenariosById.get(containerId);
+            if (scenario != null) {
+                scenario.addObject(object);
+                return;
+            }
+            GameObject container = objectsById.get(containerId);
+            if (container == null) {
+                throw error(line, "cenário ou objeto desconhecido: " + containerId);
+            }
+            if (!container.hasContentList()) {
+                throw error(line, "o objeto " + containerId + " não é um armazenamento (storage)");
+            }
+            container.addContent(object);
+        };
+        if (scenariosById.containsKey(containerId) || objectsById.containsKey(containerId)) {
+            place.resolve();
+        } else {
+            pending.add(place);
+        }
+    }
+
+    private void declareAction() throws IOException {
+        expectArguments(2);
+        ActionType type;
+        try {
+            type = ActionType.valueOf(tokens.get(2));
+        } catch (IllegalArgumentException e) {
+            throw error(lineNumber, "tipo de ação desconhecido: " + tokens.get(2));
+        }
+        ObjectAction action = new ObjectAction(player, stag, type);
+        for (int i = 3; i < tokens.size(); i++) {
+            String attribute = tokens.get(i);
+            switch (attribute) {
+                case "active" -> action.setActive(true);
+                case "repeatable" -> action.setRepeatable(true);
+                case "condition" -> ensureCondition(action);
+                default -> {
+                    if (attribute.startsWith("on=")) {
+                        action.setActionDescriptionActive(attribute.substring(3));
+                    } else if (attribute.startsWith("off=")) {
+                        action.setActionDescriptionInactive(attribute.substring(4));
+                    } else if (attribute.startsWith("count=")) {
+                        action.setActionCount(parseCount(attribute.substring(6)));
+                    } else if (attribute.startsWith("requires=")) {
+                        ObjectCondition condition = ensureCondition(action);
+                        for (String required : attribute.substring(9).split(",")) {
+                            withObject(required, object -> condition.getRequiredObjects().add(object.getId()));
+                        }
+                    } else {
+                        throw unknownAttribute(attribute);
+                    }
+                }
+            }
+        }
+        withObject(tokens.get(1), object -> object.setAction(action));
+    }
+
+    private static ObjectCondition ensureCondition(ObjectAction action) {
+        if (action.getCondition() == null) {
+            ObjectCondition condition = new ObjectCondition();
+            condition.setRequiredObjects(new ArrayList<>());
+            action.setCondition(condition);
+        }
+        return action.getCondition();
+    }
+
+    private int parseCount(String value) throws IOException {
+        try {
+            return Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw error(lineNumber, "número inválido: " + value);
+        }
+    }
+
+    private void withScenario(String id, Target<Scenario> target) throws IOException {
+        Scenario scenario = scenariosById.get(id);
+        if (scenario != null) {
+            target.accept(scenario);
+            return;
+        }
+        int line = lineNumber;
+        pending.add(() -> {
+            Scenario declared = scenariosById.get(id);
+            if (declared == null) {
+                throw error(line, "cenário desconhecido: " + id);
+            }
+            target.accept(declared);
+        });
+    }
+
+    private void withObject(String id, Target<GameObject> target) throws IOException {
+        GameObject object = objectsById.get(id);
+        if (object != null) {
+            target.accept(object);
+            return;
+        }
+        int line = lineNumber;
+        pending.add(() -> {
+            GameObject declared = objectsById.get(id);
+            if (declared == null) {
+                throw error(line, "objeto desconhecido: " + id);
+            }
+            target.accept(declared);
+        });
+    }
+
+    /**
+     * Divide a linha em palavras. Textos entre aspas podem conter espaços e formar parte de uma palavra
+     * ({@code on="texto"}); {@code \"} e {@code \\} escapam aspas e barras. Um {@code #} no início
+     * de uma palavra começa um comentário. Palavras sem escapes, a maioria, são recortadas da linha sem cópia extra.
+     */
+    private void tokenize(String line) throws IOException {
+        tokens.clear();
+        int length = line.length();
+        int i = 0;
+        while (i < length) {
+            char c = line.charAt(i);
+            if (c == ' ' || c == '\t') {
+                i++;
+                continue;
+            }
+            if (c == '#') {
+                return;
+            }
+            int start = i;
+            while (i < length && (c = line.charAt(i)) != ' ' && c != '\t' && c != '"') {
+                i++;
+            }
+            if (i == length || c != '"') {
+                tokens.add(line.substring(start, i));
+                continue;
+            }
+            if (i == start) {
+                // Texto entre aspas sem escapes, o caso comum de nomes e descrições
+                int close = line.indexOf('"', i + 1);
+                int escape = line.indexOf('\\', i + 1);
+                if (close > 0 && (escape < 0 || escape > close)
+                        && (close + 1 == length || line.charAt(close + 1) == ' ' || line.charAt(close + 1) == '\t')) {
+                    tokens.add(line.substring(i + 1, close));
+                    i = close + 1;
+                    continue;
+                }
+            }
+            // Palavra com aspas: copia caractere a caractere, tratando os escapes
+            token.setLength(0);
+            token.append(line, start, i);
+            boolean quoted = false;
+            while (i < length) {
+                c = line.charAt(i);
+                if (quoted) {
+                    if (c == '\\' && i + 1 < length) {
+                        c = line.charAt(++i);
+                    } else if (c == '"') {
+                        quoted = false;
+                        i++;
+                        continue;
+                    }
+                } else if (c == '"') {
+                    quoted = true;
+                    i++;
+                    continue;
+                } else if (c == ' ' || c == '\t') {
+                    break;
+                }
+                token.append(c);
+                i++;
+            }
+            if (quoted) {
+                throw error(lineNumber, "aspas não fechadas");
+            }
+            tokens.add(token.toString());
+        }
+    }
+
+    private void expectArguments(int count) throws IOException {
+        if (tokens.size() < count + 1) {
+            throw error(lineNumber, "\"" + tokens.get(0) + "\" espera " + count + " argumento(s)");
+        }
+    }
+
+    private IOException unknownAttribute(String attribute) {
+        return error(lineNumber, "atributo desconhecido em \"" + tokens.get(0) + "\": " + attribute);
+    }
+
+    private static IOException error(int line, String message) {
+        return new IOException("Definição de mundo inválida, linha " + line + ": " + message);
+    }
+}
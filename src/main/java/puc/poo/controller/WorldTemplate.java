@@ -0,0 +1,160 @@
+package puc.poo.controller;
+
+import puc.poo.model.ActionTemplate;
+import puc.poo.model.ObjectAction.ActionType;
+import puc.poo.model.ObjectTemplate;
+import puc.poo.model.Player;
+import puc.poo.model.ScenarioTemplate;
+import puc.poo.model.Stag;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A classe WorldTemplate é a parte imutável de um mundo, compartilhada por todas as sessões que o jogam.
+ * <p>
+ * Ela lê uma {@link WorldImage} e guarda os templates de cenários, objetos e ações já decodificados, de modo que
+ * nomes, descrições e artes existem uma única vez no servidor. Cada sessão monta por cima apenas o seu estado
+ * ({@link ImageWorld}): instâncias leves de {@link puc.poo.model.Scenario} e {@link puc.poo.model.GameObject}
+ * que apontam para os textos do template e guardam o que muda no jogo. Um cenário ou objeto que nenhuma
+ * sessão visitou não é decodificado. As saídas e listas de objetos continuam sendo lidas direto da imagem.
+ * </p>
+ * <p>
+ * Pode ser usada por várias threads: um template decodificado ao mesmo tempo por duas sessões é criado
+ * duas vezes, mas só uma cópia é guardada.
+ * </p>
+ */
+public final class WorldTemplate {
+    private static final ActionType[] ACTION_TYPES = ActionType.values();
+
+    private final WorldImage image;
+    private final AtomicReferenceArray<ScenarioTemplate> scenarios;
+    private final AtomicReferenceArray<ObjectTemplate> objects;
+    private volatile ExitGraph exits;
+
+    /**
+     * Construtor sobre uma imagem de mundo.
+     *
+     * @param image A imagem.
+     */
+    public WorldTemplate(WorldImage image) {
+        this.image = image;
+        this.scenarios = new AtomicReferenceArray<>(image.scenarioCount());
+        this.objects = new AtomicReferenceArray<>(image.objectCount());
+    }
+
+    /**
+     * Retorna o template do mundo padrão ({@value ScenarioManager#DEFAULT_WORLD}), compilado na memória
+     * na primeira chamada e compartilhado por todo o processo.
+     *
+     * @return O template do mundo padrão.
+     */
+    public static WorldTemplate defaultWorld() {
+        return DefaultWorld.TEMPLATE;
+    }
+
+    /**
+     * Retorna a imagem do mundo.
+     *
+     * @return A imagem.
+     */
+    public WorldImage getImage() {
+        return image;
+    }
+
+    /**
+     * Retorna a topologia das saídas do mundo, montada na primeira chamada e compartilhada pelas sessões.
+     */
+    ExitGraph exits() {
+        ExitGraph graph = exits;
+        if (graph == null) {
+            synchronized (this) {
+                graph = exits;
+                if (graph == null) {
+                    graph = ExitGraph.of(image);
+                    exits = graph;
+                }
+            }
+        }
+        return graph;
+    }
+
+    /**
+     * Retorna o template de um cenário, decodificando-o na primeira vez.
+     */
+    ScenarioTemplate scenario(int index) {
+        ScenarioTemplate template = scenarios.get(index);
+        if (template == null) {
+            template = new ScenarioTemplate(image.scenarioName(index), image.scenarioDescription(index),
+                    image.scenarioView(index));
+            if (!scenarios.compareAndSet(index, null, template)) {
+                template = scenarios.get(index);
+            }
+        }
+        return template;
+    }
+
+    /**
+     * Retorna o template de um objeto, decodificando-o na primeira vez.
+     */
+    ObjectTemplate object(int id) {
+        ObjectTemplate template = objects.get(id - 1);
+        if (template == null) {
+            template = decodeObject(id);
+            if (!objects.compareAndSet(id - 1, null, template)) {
+                template = objects.get(id - 1);
+            }
+        }
+        return template;
+    }
+
+    private ObjectTemplate decodeObject(int id) {
+        int flags = image.objectFlags(id);
+        int[] contents = null;
+        if ((flags & WorldImage.OBJECT_HAS_CONTENTS) != 0) {
+            contents = new int[image.objectContentCount(id)];
+            for (int k = 0; k < contents.length; k++) {
+                contents[k] = image.objectContent(id, k);
+            }
+        }
+        int action = image.objectAction(id);
+        return new ObjectTemplate(id, image.objectName(id), image.objectDescription(id),
+                (flags & WorldImage.OBJECT_STORABLE) != 0, (flags & WorldImage.OBJECT_STORAGE) != 0,
+                (flags & WorldImage.OBJECT_OPENABLE) != 0, (flags & WorldImage.OBJECT_OPEN) != 0,
+                image.objectKey(id), contents, action >= 0 ? decodeAction(action) : null);
+    }
+
+    private ActionTemplate decodeAction(int index) {
+        int flags = image.actionFlags(index);
+        int[] required = null;
+        int count = image.actionRequiredCount(index);
+        if (count >= 0) {
+            required = new int[count];
+            for (int k = 0; k < count; k++) {
+                required[k] = image.actionRequired(index, k);
+            }
+        }
+        return new ActionTemplate(ACTION_TYPES[image.actionType(index)],
+                (flags & WorldImage.ACTION_ACTIVE) != 0, (flags & WorldImage.ACTION_REPEATABLE) != 0,
+                image.actionCount(index), image.actionDescriptionActive(index), image.actionDescriptionInactive(index),
+                (flags & WorldImage.ACTION_HAS_CONDITION) != 0, (flags & WorldImage.CONDITION_SATISFIED) != 0, required);
+    }
+
+    /**
+     * Compila o mundo padrão só quando ele é usado pela primeira vez.
+     */
+    private static final class DefaultWorld {
+        static final WorldTemplate TEMPLATE;
+
+        static {
+            ScenarioManager world = new ScenarioManager(new Player(), new Stag());
+            world.initializeScenarios();
+            try {
+                TEMPLATE = new WorldTemplate(WorldCompiler.compile(world));
+            } catch (IOException e) {
+                throw new UncheckedIOException(e); // O mundo padrão faz parte do jogo
+            }
+        }
+    }
+}
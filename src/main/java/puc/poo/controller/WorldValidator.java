@@ -0,0 +1,796 @@
+package puc.poo.controller;
+
+import puc.poo.model.ObjectAction.ActionType;
+import puc.poo.model.Player;
+import puc.poo.model.Stag;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A classe WorldValidator verifica, sem jogar, se um mundo pode ser vencido: explora os estados alcançáveis
+ * (posição, inventário, trancas abertas, armazenamentos esvaziados e veado) e aponta mundos sem vitória,
+ * cenários e objetos inalcançáveis e os becos sem saída, ações depois das quais não dá mais para vencer.
+ * <p>
+ * As regras são as do {@link CommandProcessor}: "pegar" só objetos armazenáveis, "usar" um armazenamento
+ * (mesmo trancado) passa o conteúdo para o inventário, "abrir" exige a chave no inventário, o rifle só
+ * atira na {@value Stag#HUNTING_GROUND} e a vitória é soltar "{@value CommandProcessor#TROPHY_NAME}" em
+ * "{@value CommandProcessor#TROPHY_ROOM}". As saídas e portas são as do {@link ExitGraph}. A posição é o
+ * par (cenário atual, cenário anterior), pois "voltar" só troca esses dois: um caminho de mão única pode
+ * prender o jogador.
+ * </p>
+ * <p>
+ * Para não enumerar cada ordem de ações, um estado é expandido até não mudar mais: o jogador pode ir e
+ * voltar entre os pares da mesma componente fortemente conexa, e pegar, usar e abrir só acrescentam
+ * capacidades, então tudo o que está ao alcance nela é feito de uma vez. Os ramos são só as escolhas sem
+ * volta: sair da componente por um caminho de mão única, atirar (acertar; errar, se o rifle não se repete)
+ * e soltar um objeto útil que não pode ser pego de novo. Fechar portas e soltar objetos armazenáveis nunca
+ * ajudam a vencer e não são explorados; as portas são consideradas fixas no cenário, e cada objeto pode
+ * ser nomeado pelo jogador sem ambiguidade.
+ * </p>
+ * <p>
+ * Os estados são expandidos em paralelo, nível a nível, com um mapa concorrente que evita repetir estados;
+ * o limite de estados é conferido a cada estado novo, e não só entre os níveis.
+ * Uso: {@code java puc.poo.controller.WorldValidator <mundo.world|mundo.img> [limite de estados]}
+ * </p>
+ */
+public final class WorldValidator {
+    public static final int DEFAULT_MAX_STATES = 100_000;
+    private static final int MAX_DEAD_ENDS = 20; // Becos listados no relatório
+
+    private final WorldImage image;
+    private final ExitGraph exits;
+    private final int scenarioCount;
+    private final int objectCount;
+    private final int startScenario;
+    private final int trophy; // Id do troféu deixado pelo veado, ou 0
+
+    // Objetos, pelo id
+    private final int[] flags;
+    private final int[] keys;
+    private final int[] location; // Cenário onde o objeto começa solto, ou -1
+    private final int[] contentStart;
+    private final int[] contentIds;
+    private final int[] lockStart; // Trancas de cada chave: lockIds[lockStart[k]] até lockIds[lockStart[k + 1]]
+    private final int[] lockIds;
+    private final BitSet doors = new BitSet(); // Objetos que são portas de alguma saída
+    private final BitSet hasAction = new BitSet();
+    private final BitSet rifles = new BitSet(); // Ação RIFLE ativa
+    private final BitSet repeatable = new BitSet();
+    private final BitSet trophies = new BitSet(); // Objetos que vencem o jogo
+    private final BitSet initiallyOpen = new BitSet();
+
+    // Cenários
+    private final int[] objectStart; // Objetos soltos de cada cenário, na ordem da imagem
+    private final int[] objectIds;
+    private final BitSet huntingGrounds = new BitSet();
+    private final BitSet trophyRooms = new BitSet();
+    private final int[] edgeSource;
+    private final int[] doorEdgeStart; // Arestas de cada porta
+    private final int[] doorEdges;
+
+    // Posições: o par (cenário, anterior). Os pares de s ficam em [pairStart[s], pairStart[s + 1]); o
+    // último é "sem anterior", e os outros seguem os vizinhos de s (de entrada ou saída) em ordem crescente.
+    private final int[] neighborStart;
+    private final int[] neighbors;
+    private final int[] pairStart;
+    private final int[] pairScenario;
+    private final int[] pairPrevious;
+
+    /**
+     * Resultado da validação.
+     *
+     * @param winnable             Se alguma sequência de comandos vence o jogo (com sorte nos tiros).
+     * @param problems             Por que o jogo não pode ser vencido, se for o caso.
+     * @param deadEnds             Ações que, a partir de um estado que ainda podia vencer, impedem a vitória.
+     * @param unreachableScenarios Cenários aonde o jogador nunca chega.
+     * @param unreachableObjects   Objetos que o jogador nunca vê nem pega.
+     * @param states               O número de estados explorados.
+     * @param complete             Falso se a exploração parou no limite de estados.
+     */
+    public record Report(boolean winnable, List<String> problems, List<String> deadEnds,
+                         List<String> unreachableScenarios, List<String> unreachableObjects, int states,
+                         boolean complete) {
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder();
+            text.append(winnable ? "O mundo pode ser vencido." : "O mundo NÃO pode ser vencido.");
+            text.append(" (").append(states).append(complete ? " estados)" : " estados, exploração incompleta)");
+            append(text, "Problemas", problems);
+            append(text, "Becos sem saída", deadEnds);
+            append(text, "Cenários inalcançáveis", unreachableScenarios);
+            append(text, "Objetos inalcançáveis", unreachableObjects);
+            return text.toString();
+        }
+
+        private static void append(StringBuilder text, String title, List<String> lines) {
+            if (!lines.isEmpty()) {
+                text.append('\n').append(title).append(':');
+                for (String line : lines) {
+                    text.append("\n- ").append(line);
+                }
+            }
+        }
+    }
+
+    /**
+     * Estado do jogo no começo de uma expansão. Os conjuntos não são alterados depois de criados.
+     */
+    private record State(int pair, BitSet held, BitSet open, BitSet emptied, BitSet spent, boolean stagAlive,
+                         int trophyAt) {}
+
+    /**
+     * Um estado explorado e como se chegou a ele.
+     */
+    private static final class Node {
+        final State state;
+        final String step; // A ação que levou a este estado, para o relatório
+        final List<Node> parents = new ArrayList<>(1);
+        volatile boolean winnable;
+
+        Node(State state, String step) {
+            this.state = state;
+            this.step = step;
+        }
+
+        synchronized void addParent(Node parent) {
+            parents.add(parent);
+        }
+    }
+
+    // Acumulado de todas as expansões, sob o lock do validador
+    private final BitSet reachedScenarios = new BitSet();
+    private final BitSet seenObjects = new BitSet();
+    private boolean trophyRoomReached;
+    private boolean trophyHeld;
+    private boolean stagShot;
+
+    // Limite de estados: cada estado novo reserva uma vaga antes de entrar no mapa
+    private int maxStates;
+    private final AtomicInteger stateCount = new AtomicInteger();
+    private volatile boolean truncated; // Algum estado novo ficou de fora por falta de vaga
+
+    private WorldValidator(WorldImage image) {
+        this.image = image;
+        this.exits = ExitGraph.of(image);
+        this.scenarioCount = image.scenarioCount();
+        this.objectCount = image.objectCount();
+        this.startScenario = image.startScenario();
+        this.trophy = image.trophyObject();
+
+        flags = new int[objectCount + 1];
+        keys = new int[objectCount + 1];
+        location = new int[objectCount + 1];
+        Arrays.fill(location, -1);
+        contentStart = new int[objectCount + 2];
+        int[] lockCount = new int[objectCount + 2];
+        for (int id = 1; id <= objectCount; id++) {
+            flags[id] = image.objectFlags(id);
+            keys[id] = image.objectKey(id);
+            if ((flags[id] & WorldImage.OBJECT_HAS_CONTENTS) != 0) {
+                contentStart[id + 1] = image.objectContentCount(id);
+            }
+            if ((flags[id] & WorldImage.OBJECT_OPENABLE) != 0) {
+                if (keys[id] > 0 && keys[id] <= objectCount) {
+                    lockCount[keys[id] + 1]++;
+                }
+                int open = WorldImage.OBJECT_OPENABLE | WorldImage.OBJECT_OPEN;
+                initiallyOpen.set(id, (flags[id] & open) == open);
+            }
+            int action = image.objectAction(id);
+            if (action >= 0) {
+                hasAction.set(id);
+                int actionFlags = image.actionFlags(action);
+                if (image.actionType(action) == ActionType.RIFLE.ordinal()
+                        && (actionFlags & WorldImage.ACTION_ACTIVE) != 0) {
+                    rifles.set(id);
+                    repeatable.set(id, (actionFlags & WorldImage.ACTION_REPEATABLE) != 0);
+                }
+            }
+            if (image.objectName(id).equals(CommandProcessor.TROPHY_NAME)) {
+                trophies.set(id);
+            }
+        }
+        for (int id = 1; id <= objectCount; id++) {
+            contentStart[id + 1] += contentStart[id];
+            lockCount[id + 1] += lockCount[id];
+        }
+        contentIds = new int[contentStart[objectCount + 1]];
+        lockStart = lockCount;
+        lockIds = new int[lockStart[objectCount + 1]];
+        int[] lockFill = Arrays.copyOf(lockStart, objectCount + 1);
+        for (int id = 1; id <= objectCount; id++) {
+            for (int k = 0; k < contentStart[id + 1] - contentStart[id]; k++) {
+                contentIds[contentStart[id] + k] = image.objectContent(id, k);
+            }
+            if ((flags[id] & WorldImage.OBJECT_OPENABLE) != 0 && keys[id] > 0 && keys[id] <= objectCount) {
+                lockIds[lockFill[keys[id]]++] = id;
+            }
+        }
+
+        objectStart = new int[scenarioCount + 1];
+        for (int s = 0; s < scenarioCount; s++) {
+            objectStart[s + 1] = objectStart[s] + image.scenarioObjectCount(s);
+            String name = image.scenarioName(s);
+            huntingGrounds.set(s, name.equals(Stag.HUNTING_GROUND));
+            trophyRooms.set(s, name.equals(CommandProcessor.TROPHY_ROOM));
+        }
+        objectIds = new int[objectStart[scenarioCount]];
+        for (int s = 0; s < scenarioCount; s++) {
+            for (int k = 0; k < objectStart[s + 1] - objectStart[s]; k++) {
+                int id = image.scenarioObject(s, k);
+                objectIds[objectStart[s] + k] = id;
+                location[id] = s;
+            }
+        }
+
+        int edges = exits.edgeTarget.length;
+        edgeSource = new int[edges];
+        doorEdgeStart = new int[objectCount + 2];
+        for (int s = 0; s < scenarioCount; s++) {
+            for (int e = exits.edgeStart[s]; e < exits.edgeStart[s + 1]; e++) {
+                edgeSource[e] = s;
+                if (exits.edgeDoor[e] != 0) {
+                    doors.set(exits.edgeDoor[e]);
+                    doorEdgeStart[exits.edgeDoor[e] + 1]++;
+                }
+            }
+        }
+        for (int id = 1; id <= objectCount; id++) {
+            doorEdgeStart[id + 1] += doorEdgeStart[id];
+        }
+        doorEdges = new int[doorEdgeStart[objectCount + 1]];
+        int[] doorFill = Arrays.copyOf(doorEdgeStart, objectCount + 1);
+        for (int e = 0; e < edges; e++) {
+            if (exits.edgeDoor[e] != 0) {
+                doorEdges[doorFill[exits.edgeDoor[e]]++] = e;
+            }
+        }
+
+        // Vizinhos de cada cenário (destinos e origens das saídas), sem repetição e em ordem
+        int[][] adjacent = new int[scenarioCount][];
+        int[] count = new int[scenarioCount];
+        for (int e = 0; e < edges; e++) {
+            count[edgeSource[e]]++;
+            count[exits.edgeTarget[e]]++;
+        }
+        for (int s = 0; s < scenarioCount; s++) {
+            adjacent[s] = new int[count[s]];
+            count[s] = 0;
+        }
+        for (int e = 0; e < edges; e++) {
+            int s = edgeSource[e];
+            int t = exits.edgeTarget[e];
+            adjacent[s][count[s]++] = t;
+            adjacent[t][count[t]++] = s;
+        }
+        neighborStart = new int[scenarioCount + 1];
+        int[] unique = new int[scenarioCount];
+        for (int s = 0; s < scenarioCount; s++) {
+            int[] list = adjacent[s];
+            Arrays.sort(list);
+            int distinct = 0;
+            for (int i = 0; i < list.length; i++) {
+                if (i == 0 || list[i] != list[i - 1]) {
+                    list[distinct++] = list[i];
+                }
+            }
+            adjacent[s] = Arrays.copyOf(list, distinct);
+            unique[s] = distinct;
+            neighborStart[s + 1] = neighborStart[s] + distinct;
+        }
+        neighbors = new int[neighborStart[scenarioCount]];
+        pairStart = new int[scenarioCount + 1];
+        for (int s = 0; s < scenarioCount; s++) {
+            System.arraycopy(adjacent[s], 0, neighbors, neighborStart[s], unique[s]);
+            pairStart[s + 1] = pairStart[s] + unique[s] + 1;
+        }
+        int pairs = pairStart[scenarioCount];
+        pairScenario = new int[pairs];
+        pairPrevious = new int[pairs];
+        for (int s = 0; s < scenarioCount; s++) {
+            for (int k = 0; k <= unique[s]; k++) {
+                pairScenario[pairStart[s] + k] = s;
+                pairPrevious[pairStart[s] + k] = k < unique[s] ? neighbors[neighborStart[s] + k] : -1;
+            }
+        }
+    }
+
+    /**
+     * Valida um mundo montado pelo {@link ScenarioManager}, antes de ele ser jogado.
+     *
+     * @param world O mundo.
+     * @return O relatório.
+     * @throws IOException Se o mundo não puder ser representado numa imagem.
+     */
+    public static Report validate(ScenarioManager world) throws IOException {
+        return validate(WorldCompiler.compile(world), DEFAULT_MAX_STATES);
+    }
+
+    /**
+     * Valida um mundo a partir da sua imagem.
+     *
+     * @param image     A imagem do mundo.
+     * @param maxStates O número máximo de estados explorados.
+     * @return O relatório.
+     */
+    public static Report validate(WorldImage image, int maxStates) {
+        return new WorldValidator(image).run(maxStates);
+    }
+
+    private Report run(int maxStates) {
+        this.maxStates = maxStates;
+        BitSet none = new BitSet();
+        State initial = new State(pair(startScenario, -1), none, initiallyOpen, none, none, true, -1);
+        Map<State, Node> states = new ConcurrentHashMap<>();
+        Node root = new Node(initial, null);
+        states.put(initial, root);
+        stateCount.set(1);
+        List<Node> frontier = List.of(root);
+        while (!frontier.isEmpty() && stateCount.get() < maxStates) {
+            frontier = frontier.parallelStream().flatMap(node -> expand(node, states).stream()).toList();
+        }
+        boolean complete = frontier.isEmpty() && !truncated;
+
+        // Vence quem tem algum caminho até um estado vencedor
+        ArrayDeque<Node> queue = new ArrayDeque<>();
+        for (Node node : states.values()) {
+            if (node.winnable) {
+                queue.add(node);
+            }
+        }
+        while (!queue.isEmpty()) {
+            for (Node parent : queue.poll().parents) {
+                if (!parent.winnable) {
+                    parent.winnable = true;
+                    queue.add(parent);
+                }
+            }
+        }
+
+        List<String> problems = new ArrayList<>();
+        TreeSet<String> deadEnds = new TreeSet<>();
+        if (root.winnable) {
+            for (Node node : states.values()) {
+                if (!node.winnable && node.parents.stream().anyMatch(parent -> parent.winnable)) {
+                    deadEnds.add(node.step);
+                }
+            }
+        } else {
+            if (!complete) {
+                problems.add("A exploração parou no limite de " + maxStates + " estados sem achar uma vitória.");
+            }
+            if (trophies.isEmpty()) {
+                problems.add("Não há objeto \"" + CommandProcessor.TROPHY_NAME + "\" no mundo.");
+            } else if (!trophyHeld) {
+                if (!trophies.get(trophy)) {
+                    problems.add("O veado não deixa \"" + CommandProcessor.TROPHY_NAME
+                            + "\" ao morrer, e o jogador não os encontra em outro lugar.");
+                } else if (!stagShot) {
+                    problems.add("O veado nunca pode ser abatido: falta um rifle ao alcance em \""
+                            + Stag.HUNTING_GROUND + "\".");
+                } else {
+                    problems.add("O jogador nunca consegue pegar \"" + CommandProcessor.TROPHY_NAME + "\".");
+                }
+            }
+            if (!trophyRoomReached) {
+                problems.add("O jogador nunca chega a \"" + CommandProcessor.TROPHY_ROOM + "\".");
+            }
+        }
+
+        List<String> unreachableScenarios = new ArrayList<>();
+        for (int s = reachedScenarios.nextClearBit(0); s < scenarioCount; s = reachedScenarios.nextClearBit(s + 1)) {
+            unreachableScenarios.add(image.scenarioName(s));
+        }
+        List<String> unreachableObjects = new ArrayList<>();
+        for (int id = seenObjects.nextClearBit(1); id <= objectCount; id = seenObjects.nextClearBit(id + 1)) {
+            unreachableObjects.add(image.objectName(id) + " (id " + id + ")");
+        }
+        return new Report(root.winnable, List.copyOf(problems),
+                deadEnds.stream().limit(MAX_DEAD_ENDS).toList(), List.copyOf(unreachableScenarios),
+                List.copyOf(unreachableObjects), states.size(), complete);
+    }
+
+    /**
+     * Expande um estado até não mudar mais e retorna os estados novos a que as escolhas sem volta levam.
+     */
+    private List<Node> expand(Node node, Map<State, Node> states) {
+        Expansion expansion = new Expansion(node.state);
+        expansion.run();
+        synchronized (this) {
+            reachedScenarios.or(expansion.reached);
+            seenObjects.or(expansion.seen);
+            trophyRoomReached |= expansion.available.intersects(trophyRooms);
+            trophyHeld |= expansion.held.intersects(trophies);
+            stagShot |= !node.state.stagAlive();
+        }
+        if (expansion.won()) {
+            node.winnable = true;
+            return List.of();
+        }
+
+        State state = node.state;
+        BitSet held = expansion.held;
+        BitSet open = expansion.open;
+        BitSet emptied = expansion.emptied;
+        List<Node> created = new ArrayList<>();
+
+        // Sair da componente por um caminho sem volta
+        BitSet entries = expansion.entries();
+        for (int pair = entries.nextSetBit(0); pair >= 0; pair = entries.nextSetBit(pair + 1)) {
+            String step = "Ir de \"" + image.scenarioName(pairPrevious[pair]) + "\" para \""
+                    + image.scenarioName(pairScenario[pair]) + "\" sem poder voltar";
+            visit(node, new State(pair, held, open, emptied, state.spent(), state.stagAlive(), state.trophyAt()),
+                    step, states, created);
+        }
+
+        // Atirar no veado
+        int rifle = state.stagAlive() ? expansion.usableRifle() : 0;
+        if (rifle != 0) {
+            int ground = expansion.huntingGround(rifle);
+            BitSet spent = state.spent();
+            if (!repeatable.get(rifle)) {
+                spent = (BitSet) spent.clone();
+                spent.set(rifle);
+                visit(node, new State(state.pair(), held, open, emptied, spent, true, state.trophyAt()),
+                        "Errar o tiro com \"" + image.objectName(rifle) + "\", que não atira de novo",
+                        states, created);
+            }
+            visit(node, new State(state.pair(), held, open, emptied, spent, false, trophy != 0 ? ground : -1),
+                    "Abater o veado", states, created);
+        }
+
+        // Soltar um objeto útil que não pode ser pego de volta (o pior caso: longe de onde ele serve)
+        for (int id = held.nextSetBit(0); id >= 0; id = held.nextSetBit(id + 1)) {
+            boolean useful = lockStart[id + 1] > lockStart[id] || rifles.get(id) || trophies.get(id);
+            if (useful && (flags[id] & WorldImage.OBJECT_STORABLE) == 0 && !state.held().get(id)) {
+                BitSet without = (BitSet) held.clone();
+                without.clear(id);
+                visit(node, new State(state.pair(), without, open, emptied, state.spent(), state.stagAlive(),
+                        state.trophyAt()), "Soltar \"" + image.objectName(id) + "\", que não pode ser pego de volta",
+                        states, created);
+            }
+        }
+        return created;
+    }
+
+    // Liga o estado ao pai; um estado novo só entra no mapa se ainda houver vaga abaixo do limite
+    private void visit(Node parent, State state, String step, Map<State, Node> states, List<Node> created) {
+        Node child = states.get(state);
+        if (child == null) {
+            if (stateCount.incrementAndGet() > maxStates) {
+                stateCount.decrementAndGet();
+                truncated = true;
+                return;
+            }
+            child = new Node(state, step);
+            Node existing = states.putIfAbsent(state, child);
+            if (existing == null) {
+                created.add(child);
+            } else {
+                stateCount.decrementAndGet(); // Outra thread inseriu o mesmo estado antes
+                child = existing;
+            }
+        }
+        child.addParent(parent);
+    }
+
+    private int pair(int scenario, int previous) {
+        if (previous < 0) {
+            return pairStart[scenario + 1] - 1;
+        }
+        int k = Arrays.binarySearch(neighbors, neighborStart[scenario], neighborStart[scenario + 1], previous);
+        return pairStart[scenario] + k - neighborStart[scenario];
+    }
+
+    /**
+     * A expansão de um estado: a partir do par inicial, marca os pares alcançáveis (forward) e, entre eles,
+     * os que voltam ao inicial (backward, a componente do jogador). Cada cenário da componente tem os seus
+     * objetos examinados uma vez; pegar, usar e abrir podem abrir portas, que acrescentam arestas.
+     */
+    private final class Expansion {
+        final int root;
+        final BitSet held;
+        final BitSet open;
+        final BitSet emptied;
+        final BitSet spent;
+        final int trophyAt;
+        final BitSet forward = new BitSet();
+        final BitSet backward = new BitSet();
+        final BitSet reached = new BitSet(); // Cenários com algum par em forward
+        final BitSet available = new BitSet(); // Cenários com algum par em backward
+        final BitSet seen = new BitSet();
+        private final BitSet movesPropagated = new BitSet(); // Cenários cujos pares já receberam as arestas de saída
+        private final IntStack forwardQueue = new IntStack();
+        private final IntStack backwardQueue = new IntStack();
+        private final IntStack scenarioQueue = new IntStack();
+
+        Expansion(State state) {
+            root = state.pair();
+            held = (BitSet) state.held().clone();
+            open = (BitSet) state.open().clone();
+            emptied = (BitSet) state.emptied().clone();
+            spent = state.spent();
+            trophyAt = state.trophyAt();
+        }
+
+        void run() {
+            addForward(root);
+            markBackward(root);
+            while (!scenarioQueue.isEmpty() || !backwardQueue.isEmpty() || !forwardQueue.isEmpty()) {
+                if (!scenarioQueue.isEmpty()) {
+                    examine(scenarioQueue.pop());
+                } else if (!backwardQueue.isEmpty()) {
+                    propagateBackward(backwardQueue.pop());
+                } else {
+                    propagateForward(forwardQueue.pop());
+                }
+            }
+        }
+
+        boolean won() {
+            return held.intersects(trophies) && available.intersects(trophyRooms);
+        }
+
+        /**
+         * Retorna os pares fora da componente ligados diretamente a ela.
+         */
+        BitSet entries() {
+            BitSet entries = new BitSet();
+            for (int u = backward.nextSetBit(0); u >= 0; u = backward.nextSetBit(u + 1)) {
+                int s = pairScenario[u];
+                for (int e = exits.edgeStart[s]; e < exits.edgeStart[s + 1]; e++) {
+                    int v = pair(exits.edgeTarget[e], s);
+                    if (passable(e) && !backward.get(v)) {
+                        entries.set(v);
+                    }
+                }
+                int previous = pairPrevious[u];
+                if (previous >= 0 && !backward.get(pair(previous, s))) {
+                    entries.set(pair(previous, s));
+                }
+            }
+            return entries;
+        }
+
+        /**
+         * Retorna um rifle que ainda atira e pode ser usado numa floresta da componente, ou 0.
+         */
+        int usableRifle() {
+            if (!available.intersects(huntingGrounds)) {
+                return 0;
+            }
+            for (int id = rifles.nextSetBit(0); id >= 0; id = rifles.nextSetBit(id + 1)) {
+                if (!spent.get(id) && (held.get(id)
+                        || location[id] >= 0 && huntingGrounds.get(location[id]) && available.get(location[id]))) {
+                    return id;
+                }
+            }
+            return 0;
+        }
+
+        /**
+         * Retorna a floresta onde o rifle é usado: a primeira da componente, se ele está no inventário, ou
+         * aquela onde ele está solto.
+         */
+        int huntingGround(int rifle) {
+            if (!held.get(rifle)) {
+                return location[rifle];
+            }
+            BitSet grounds = (BitSet) available.clone();
+            grounds.and(huntingGrounds);
+            return grounds.nextSetBit(0);
+        }
+
+        private boolean passable(int edge) {
+            int door = exits.edgeDoor[edge];
+            return door == 0 || open.get(door);
+        }
+
+        private void addForward(int pair) {
+            if (!forward.get(pair)) {
+                forward.set(pair);
+                reached.set(pairScenario[pair]);
+                forwardQueue.push(pair);
+            }
+        }
+
+        private void markBackward(int pair) {
+            if (!backward.get(pair)) {
+                backward.set(pair);
+                backwardQueue.push(pair);
+                int s = pairScenario[pair];
+                if (!available.get(s)) {
+                    available.set(s);
+                    scenarioQueue.push(s);
+                }
+            }
+        }
+
+        private void propagateForward(int u) {
+            int s = pairScenario[u];
+            for (int e = exits.edgeStart[s]; e < exits.edgeStart[s + 1]; e++) {
+                if (passable(e)) {
+                    link(u, pair(exits.edgeTarget[e], s));
+                }
+            }
+            int previous = pairPrevious[u];
+            if (previous >= 0) {
+                link(u, pair(previous, s)); // "voltar"
+            }
+        }
+
+        private void link(int u, int v) {
+            addForward(v);
+            if (backward.get(v)) {
+                markBackward(u);
+            }
+        }
+
+        // Marca os predecessores de v que já são alcançáveis: quem volta a v também volta ao par inicial
+        private void propagateBackward(int v) {
+            int t = pairScenario[v];
+            int s = pairPrevious[v];
+            if (s < 0) {
+                return;
+            }
+            int back = pair(s, t); // "voltar" de (s, t) leva a (t, s)
+            if (forward.get(back)) {
+                markBackward(back);
+            }
+            if (!movesPropagated.get(s)) {
+                for (int e = exits.edgeStart[s]; e < exits.edgeStart[s + 1]; e++) {
+                    if (exits.edgeTarget[e] == t && passable(e)) {
+                        // Qualquer par de s chega a (t, s) por essa saída; os que entrarem em forward
+                        // depois são ligados em propagateForward
+                        movesPropagated.set(s);
+                        for (int u = pairStart[s]; u < pairStart[s + 1]; u++) {
+                            if (forward.get(u)) {
+                                markBackward(u);
+                            }
+                        }
+                        break;
+                    }
+                }
+            }
+        }
+
+        private void examine(int scenario) {
+            for (int k = objectStart[scenario]; k < objectStart[scenario + 1]; k++) {
+                inspect(objectIds[k]);
+            }
+            if (trophyAt == scenario) {
+                inspect(trophy);
+            }
+        }
+
+        // Um objeto solto num cenário da componente
+        private void inspect(int id) {
+            seen.set(id);
+            if (held.get(id)) {
+                return;
+            }
+            if ((flags[id] & WorldImage.OBJECT_STORABLE) != 0 && !doors.get(id)) {
+                gain(id);
+                return;
+            }
+            if (usableStorage(id)) {
+                empty(id);
+            }
+            if (!open.get(id) && (flags[id] & WorldImage.OBJECT_OPENABLE) != 0 && held.get(keys[id])) {
+                unlock(id);
+            }
+        }
+
+        private void gain(int id) {
+            if (held.get(id)) {
+                return;
+            }
+            held.set(id);
+            seen.set(id);
+            if (usableStorage(id)) {
+                empty(id);
+            }
+            for (int k = lockStart[id]; k < lockStart[id + 1]; k++) {
+                int lock = lockIds[k];
+                if (!open.get(lock) && !held.get(lock) && location[lock] >= 0 && available.get(location[lock])) {
+                    unlock(lock);
+                }
+            }
+        }
+
+        private boolean usableStorage(int id) {
+            return (flags[id] & WorldImage.OBJECT_STORAGE) != 0 && !hasAction.get(id) && !emptied.get(id);
+        }
+
+        private void empty(int storage) {
+            emptied.set(storage);
+            for (int k = contentStart[storage]; k < contentStart[storage + 1]; k++) {
+                gain(contentIds[k]);
+            }
+        }
+
+        private void unlock(int lock) {
+            open.set(lock);
+            for (int k = doorEdgeStart[lock]; k < doorEdgeStart[lock + 1]; k++) {
+                int e = doorEdges[k];
+                int s = edgeSource[e];
+                int v = pair(exits.edgeTarget[e], s);
+                for (int u = pairStart[s]; u < pairStart[s + 1]; u++) {
+                    if (forward.get(u)) {
+                        link(u, v);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Pilha de inteiros sem objetos por elemento.
+     */
+    private static final class IntStack {
+        private int[] items = new int[16];
+        private int size;
+
+        void push(int value) {
+            if (size == items.length) {
+                items = Arrays.copyOf(items, size * 2);
+            }
+            items[size++] = value;
+        }
+
+        int pop() {
+            return items[--size];
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+    }
+
+    /**
+     * Valida um mundo e mostra o relatório. Termina com código 1 se o mundo não pode ser vencido.
+     *
+     * @param args O arquivo do mundo ({@code .world} ou imagem {@code .img}) e, opcionalmente, o limite de estados.
+     * @throws IOException Se o mundo não puder ser lido.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1 || args.length > 2) {
+            System.err.println("Uso: WorldValidator <mundo.world|mundo.img> [limite de estados]");
+            System.exit(2);
+        }
+        Path file = Path.of(args[0]);
+        int maxStates = args.length > 1 ? Integer.parseInt(args[1]) : DEFAULT_MAX_STATES;
+        long start = System.nanoTime();
+        WorldImage image;
+        if (file.toString().endsWith(".img")) {
+            image = WorldImage.open(file);
+        } else {
+            ScenarioManager world = new ScenarioManager(new Player(), new Stag());
+            try (Reader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+                world.loadWorld(reader);
+            }
+            image = WorldCompiler.compile(world);
+        }
+        Report report = validate(image, maxStates);
+        System.out.println(report);
+        System.out.printf("%s: %d cenários, %d objetos, validado em %d ms%n", args[0], image.scenarioCount(),
+                image.objectCount(), (System.nanoTime() - start) / 1_000_000);
+        if (!report.winnable()) {
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,21 @@
+package puc.poo.model;
+
+import puc.poo.model.ObjectAction.ActionType;
+
+/**
+ * Parte imutável de uma ação e o seu estado inicial, compartilhados por todas as sessões de um mundo.
+ *
+ * @param type                 O tipo da ação.
+ * @param active               Se a ação começa ativa.
+ * @param repeatable           Se a ação pode ser repetida.
+ * @param count                Quantas vezes a ação ainda pode ser repetida.
+ * @param descriptionActive    O texto da ação ativa.
+ * @param descriptionInactive  O texto da ação inativa.
+ * @param hasCondition         Se a ação tem condição.
+ * @param conditionSatisfied   Se a condição começa satisfeita.
+ * @param required             Os ids dos objetos exigidos pela condição, ou {@code null}. Não deve ser alterado.
+ */
+public record ActionTemplate(ActionType type, boolean active, boolean repeatable, int count,
+                             String descriptionActive, String descriptionInactive,
+                             boolean hasCondition, boolean conditionSatisfied, int[] required) {
+}
@@ -1,45 +1,63 @@
 package puc.poo.model;
 
-import java.util.ArrayList;
+import puc.poo.view.OutputSink;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.RandomAccess;
 
 /** A classe GameObject é uma estrutura que pode representar uma variedade de objetos no jogo,
  * desde simples itens até recipientes que podem ser trancados e destrancados,
  * além de permitir a realização de ações definidas pelo desenvolvedor.
+ * Todo objeto pertence ao {@link ObjectRegistry} do seu mundo, que lhe atribui o id e guarda o seu estado:
+ * a instância é só uma referência (registro, id) a esse estado. Duas instâncias com o mesmo id no mesmo
+ * registro são o mesmo objeto ({@link #equals(Object)}), e a alteração feita por uma é vista pela outra.
  */
 public class GameObject {
 
-    private static ArrayList<GameObject> allGameObjects = new ArrayList<>();
-
+    private final ObjectRegistry registry;
     private final int id;
-    private String name;
-    private String description;
-    private boolean isStorage; // É armazenamento?
-    private boolean isStorable; // Pode ser armazenado no inventário?
-    private int keyId; // ID da chave para destravar, se aplicável
-    private boolean isOpenable; // Objeto é abrível?
-    private boolean isOpen; // Objeto está aberto/fechado?
-    private boolean hasAction; // Objeto possui ação?
-    private ObjectAction action; // Ação do objeto
-    private ArrayList<GameObject> contents; // Conteúdo armazenado
 
     /**
-     * Construtor genérico que inicializa um objeto com um nome e uma descrição.
+     * Construtor genérico que inicializa um objeto com um nome e uma descrição
+     * e o registra no mundo ao qual pertence.
      *
+     * @param registry    O registro de objetos do mundo.
      * @param name        O nome do objeto.
      * @param description A descrição do objeto.
      */
-    public GameObject(String name, String description) {
-        allGameObjects.add(this);
-        this.id = allGameObjects.size();
-        this.name = name;
-        this.description = description;
+    public GameObject(ObjectRegistry registry, String name, String description) {
+        this.registry = registry;
+        this.id = registry.register(name, description);
+    }
+
+    /**
+     * Construtor a partir do template compartilhado de um mundo carregado de uma imagem binária,
+     * usado ao criar os objetos sob demanda. O objeto é registrado com o id do template e recebe o seu
+     * estado inicial; os textos não são copiados. O conteúdo e a ação são montados por quem cria o objeto.
+     *
+     * @param registry O registro de objetos do mundo.
+     * @param template O template do objeto.
+     */
+    public GameObject(ObjectRegistry registry, ObjectTemplate template) {
+        registry.register(template);
+        this.registry = registry;
+        this.id = template.id();
+    }
+
+    /**
+     * Construtor de mais uma referência a um objeto já registrado.
+     */
+    GameObject(ObjectRegistry registry, int id) {
+        this.registry = registry;
+        this.id = id;
     }
 
     /**
      * Marca o objeto como armazenável no inventário.
      */
     public void setAsStorable() {
-        this.isStorable = true;
+        registry.set(id, ObjectRegistry.STORABLE, true);
     }
 
     /**
@@ -48,12 +66,8 @@ public class GameObject {
      * @param storable Indica se o objeto é um armazenamento.
      */
     public void setAsStorage(boolean storable) {
-        this.isStorage = storable;
-        if (storable) {
-            this.contents = new ArrayList<>();
-        } else {
-            this.contents = null;
-        }
+        registry.set(id, ObjectRegistry.STORAGE, storable);
+        registry.setContents(id, storable ? new int[0] : null);
     }
 
     /**
@@ -63,8 +77,8 @@ public class GameObject {
      * @param isOpen Indica se o objeto está aberto.
      */
     public void setLock(int keyId, boolean isOpen) {
-        this.keyId = keyId;
-        this.isOpen = isOpen;
+        registry.setKeyId(id, keyId);
+        registry.set(id, ObjectRegistry.OPEN, isOpen);
     }
 
     /**
@@ -73,8 +87,7 @@ public class GameObject {
      * @param action A ação a ser associada ao objeto.
      */
     public void setAction(ObjectAction action) {
-        this.action = action;
-        this.hasAction = true;
+        registry.setAction(id, action);
     }
 
     /**
@@ -83,15 +96,15 @@ public class GameObject {
      * @return true se o objeto for interativo, false caso contrário.
      */
     public boolean isInteractive() {
-        return hasAction || keyId != 0;
+        return hasAction() || getKeyId() != 0;
     }
 
     public boolean isOpenable() {
-        return isOpenable;
+        return registry.is(id, ObjectRegistry.OPENABLE);
     }
 
     public void setAsOpenable(boolean openable) {
-        isOpenable = openable;
+        registry.set(id, ObjectRegistry.OPENABLE, openable);
     }
 
     public int getId() {
@@ -99,135 +112,229 @@ public class GameObject {
     }
 
     public String getName() {
-        return name;
+        return registry.name(id);
     }
 
     public void setName(String name) {
-        this.name = name;
+        registry.setName(id, name);
     }
 
     public String getDescription() {
-        return description;
+        return registry.description(id);
     }
 
     public void setDescription(String description) {
-        this.description = description;
+        registry.setDescription(id, description);
     }
 
     public int getKeyId() {
-        return keyId;
+        return registry.keyId(id);
     }
 
     public void setKeyId(int keyId) {
-        this.keyId = keyId;
+        registry.setKeyId(id, keyId);
     }
 
     public boolean isOpen() {
-        return isOpen;
+        return registry.is(id, ObjectRegistry.OPEN);
     }
 
     public void setOpen(boolean open) {
-        isOpen = open;
+        registry.set(id, ObjectRegistry.OPEN, open);
     }
 
     public boolean isStorable() {
-        return isStorable;
+        return registry.is(id, ObjectRegistry.STORABLE);
     }
 
     public void setStorable(boolean storable) {
-        isStorable = storable;
+        registry.set(id, ObjectRegistry.STORABLE, storable);
     }
 
     public boolean isStorage() {
-        return isStorage;
+        return registry.is(id, ObjectRegistry.STORAGE);
     }
 
     public void setStorage(boolean storage) {
-        isStorage = storage;
+        registry.set(id, ObjectRegistry.STORAGE, storage);
+    }
+
+    /**
+     * Substitui o conteúdo do objeto.
+     *
+     * @param newContents Os objetos guardados, ou {@code null} se o objeto não guarda nada.
+     */
+    public void setContents(List<GameObject> newContents) {
+        if (newContents == null) {
+            registry.setContents(id, null);
+            return;
+        }
+        int[] ids = new int[newContents.size()];
+        for (int i = 0; i < ids.length; i++) {
+            ids[i] = newContents.get(i).getId();
+        }
+        registry.setContents(id, ids);
+    }
+
+    /**
+     * Retorna o conteúdo do objeto, como estava no momento da chamada. A lista não pode ser alterada:
+     * as mudanças passam por {@link #addContent(GameObject)}, {@link #clearContents()} e
+     * {@link #setContents(List)}.
+     *
+     * @return Os objetos guardados, ou {@code null} se o objeto não guarda nada.
+     */
+    public List<GameObject> getContents() {
+        int[] ids = registry.contents(id);
+        return ids != null ? new Contents(registry, ids) : null;
+    }
+
+    /**
+     * Indica se o objeto tem lista de conteúdo, mesmo vazia, sem copiá-la.
+     *
+     * @return Verdadeiro se o objeto pode guardar objetos.
+     */
+    public boolean hasContentList() {
+        return registry.hasContents(id);
+    }
+
+    /**
+     * Retorna quantos objetos estão guardados neste, sem copiar o conteúdo.
+     *
+     * @return O número de objetos guardados; 0 se o objeto não guarda nada.
+     */
+    public int getContentCount() {
+        return registry.contentCount(id);
     }
 
-    public void setContents(ArrayList<GameObject> newContents) {
-        contents = newContents;
+    /**
+     * Indica se não há nenhum objeto guardado neste.
+     *
+     * @return Verdadeiro se o conteúdo está vazio ou se o objeto não guarda nada.
+     */
+    public boolean isEmpty() {
+        return registry.isEmpty(id);
+    }
+
+    /**
+     * Retorna o objeto guardado na posição informada, lido direto do registro.
+     *
+     * @param index A posição, de 0 a {@link #getContentCount()} - 1.
+     * @return O objeto guardado.
+     */
+    public GameObject getContentAt(int index) {
+        return new GameObject(registry, registry.contentAt(id, index));
+    }
+
+    /**
+     * Guarda um objeto dentro deste, ao fim do conteúdo.
+     *
+     * @param content O objeto guardado.
+     */
+    public void addContent(GameObject content) {
+        registry.addContent(id, content.getId());
     }
 
-    public ArrayList<GameObject> getContents() {
-        return contents;
+    /**
+     * Esvazia o conteúdo do objeto, que continua podendo guardar objetos.
+     */
+    public void clearContents() {
+        registry.setContents(id, new int[0]);
     }
 
     public boolean hasAction() {
-        return hasAction;
+        return registry.hasAction(id);
     }
 
     public ObjectAction getAction() {
-        return action;
+        return registry.action(id);
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        return other instanceof GameObject object && object.id == id && object.registry == registry;
+    }
+
+    @Override
+    public int hashCode() {
+        return id;
+    }
+
+    /**
+     * Indica se o inventário tem a chave deste objeto, ou seja, se o jogador consegue abri-lo e trancá-lo.
+     *
+     * @param inventory O inventário do jogador.
+     * @return Verdadeiro se o objeto tem tranca e a chave está no inventário.
+     */
+    public boolean canBeOpenedWith(Inventory inventory) {
+        return isOpenable() && inventory.holds(getKeyId());
     }
 
     /**
      * Destranca o objeto usando um inventário fornecido.
      *
      * @param inventory O inventário contendo as chaves necessárias.
+     * @param out       A saída da sessão.
      */
-    public void unlock(ArrayList<GameObject> inventory) {
+    public void unlock(Inventory inventory, OutputSink out) {
         // Se o objeto não for abrível
         if (!this.isOpenable()) {
-            System.out.println("Não é possível destrancar esse objeto. Ele não possui trancas.");
+            out.println("Não é possível destrancar esse objeto. Ele não possui trancas.");
             return;
         }
 
         // Se o objeto já estiver destrancado
-        if (this.isOpen) {
-            System.out.println("Esse objeto já está destrancado.");
+        if (this.isOpen()) {
+            out.println("Esse objeto já está destrancado.");
             return;
         }
 
-        // Procura um item no inventário que destranque este objeto
-        for (GameObject item : inventory) {
-            if (item.getId() == this.keyId) {
-                this.isOpen = true;
-                System.out.println("Você abriu \"" + this.getName().toUpperCase() +
-                        "\" com \"" + item.getName().toUpperCase() + "\"!");
-                return;  // Sai do metodo após destravar
-            }
+        // Um teste de bit nas capacidades do jogador: ele tem a chave desta tranca?
+        if (inventory.holds(this.getKeyId())) {
+            GameObject item = inventory.get(this.getKeyId());
+            this.setOpen(true);
+            out.println("Você abriu \"" + this.getName().toUpperCase() +
+                    "\" com \"" + item.getName().toUpperCase() + "\"!");
+            return;  // Sai do metodo após destravar
         }
 
         if (!this.isOpen()) {
-            System.out.printf("O objeto \"%s\" está fechado.\n", this.getName().toUpperCase());
+            out.printf("O objeto \"%s\" está fechado.\n", this.getName().toUpperCase());
         }
 
         // Se não encontrou um item válido
-        System.out.println("Você não possui um item que destranque \"" + this.getName().toUpperCase() + "\".");
+        out.println("Você não possui um item que destranque \"" + this.getName().toUpperCase() + "\".");
     }
 
     /**
      * Tranca o objeto usando um inventário fornecido.
      *
      * @param inventory O inventário contendo as chaves necessárias.
+     * @param out       A saída da sessão.
      */
-    public void lock(ArrayList<GameObject> inventory) {
+    public void lock(Inventory inventory, OutputSink out) {
         // Se o objeto não for abrível
         if (!this.isOpenable()) {
-            System.out.println("Não é possível trancar esse objeto. Ele não possui trancas.");
+            out.println("Não é possível trancar esse objeto. Ele não possui trancas.");
             return;
         }
 
         // Se o objeto já estiver trancado
-        if (!this.isOpen) {
-            System.out.println("Esse objeto já está trancado.");
+        if (!this.isOpen()) {
+            out.println("Esse objeto já está trancado.");
             return;
         }
 
-        // Procura um item no inventário que tranque este objeto
-        for (GameObject item : inventory) {
-            if (item.getId() == this.keyId) {
-                this.isOpen = false;
-                System.out.println("Você trancou \"" + this.getName().toUpperCase() +
-                        "\" com \"" + item.getName().toUpperCase() + "\"!");
-                return;  // Sai do metodo após destravar
-            }
+        // Um teste de bit nas capacidades do jogador: ele tem a chave desta tranca?
+        if (inventory.holds(this.getKeyId())) {
+            GameObject item = inventory.get(this.getKeyId());
+            this.setOpen(false);
+            out.println("Você trancou \"" + this.getName().toUpperCase() +
+                    "\" com \"" + item.getName().toUpperCase() + "\"!");
+            return;  // Sai do metodo após destravar
         }
 
         // Se não encontrou um item válido
-        System.out.println("Você não possui um item que tranque \"" + this.getName().toUpperCase() + "\".");
+        out.println("Você não possui um item que tranque \"" + this.getName().toUpperCase() + "\".");
     }
 
     /**
@@ -235,41 +342,59 @@ public class GameObject {
      *
      * @param gameObject O objeto a ser removido do conteúdo.
      * @param player     O jogador que receberá o objeto.
+     * @param out        A saída da sessão.
      */
-    public void getContent(GameObject gameObject, Player player) {
+    public void getContent(GameObject gameObject, Player player, OutputSink out) {
         if (gameObject.isStorable()) {
             if (gameObject.isOpen()) {
-                if (!gameObject.getContents().isEmpty()) {
+                if (!gameObject.isEmpty()) {
                     player.addToInventory(gameObject);
                     player.getCurrentScenario().removeObject(gameObject);
                 } else {
-                    System.out.println("Esse objeto está vazio.");
+                    out.println("Esse objeto está vazio.");
                 }
             } else {
-                System.out.println("Esse objeto está fechado. Abra-o primeiro.");
+                out.println("Esse objeto está fechado. Abra-o primeiro.");
             }
         } else {
-            System.out.println("\"%s\" não pode guardar objetos.".formatted(this.getName().toUpperCase()));
+            out.println("\"%s\" não pode guardar objetos.".formatted(this.getName().toUpperCase()));
         }
     }
 
     /**
      * Executa a ação associada a este objeto, se houver.
+     *
+     * @param out A saída da sessão.
      */
-    public void executeAction() {
+    public void executeAction(OutputSink out) {
+        ObjectAction action = getAction();
         if (action != null) {
-            action.execute(); // Chama o execute() da classe ObjectAction
+            action.execute(out); // Chama o execute() da classe ObjectAction
         } else {
-            System.out.println("Este objeto não possui uma ação definida.");
+            out.println("Este objeto não possui uma ação definida.");
         }
     }
 
     /**
-     * Retorna todos os objetos instanciados.
-     *
-     * @return Um ArrayList contendo todos os objetos instanciados.
+     * Lista somente de leitura sobre uma cópia dos ids do conteúdo.
      */
-    public static ArrayList<GameObject> getAllObjects() {
-        return allGameObjects;
+    private static final class Contents extends AbstractList<GameObject> implements RandomAccess {
+        private final ObjectRegistry registry;
+        private final int[] ids;
+
+        Contents(ObjectRegistry registry, int[] ids) {
+            this.registry = registry;
+            this.ids = ids;
+        }
+
+        @Override
+        public GameObject get(int index) {
+            return new GameObject(registry, ids[index]);
+        }
+
+        @Override
+        public int size() {
+            return ids.length;
+        }
     }
-}
\ No newline at end of file
+}
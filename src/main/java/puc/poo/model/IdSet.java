@@ -0,0 +1,81 @@
+package puc.poo.model;
+
+import java.util.Arrays;
+
+/**
+ * Conjunto imutável de ids positivos, guardado como bits em blocos de tamanho fixo.
+ * <p>
+ * É o conjunto dos ids carregados pelo jogador: {@link Inventory} troca a instância a cada mudança e
+ * {@link Player} publica a instância atual na sua {@link Player.View} sem copiá-la. Incluir ou tirar um id
+ * copia só a tabela de blocos e o bloco do id (64 longs), e não o conjunto inteiro; os demais blocos são
+ * compartilhados entre as versões. Um bloco nunca é alterado depois de criado.
+ * </p>
+ */
+final class IdSet {
+    static final IdSet EMPTY = new IdSet(new long[0][]);
+
+    private static final int BLOCK_SHIFT = 12; // 4096 ids por bloco
+    private static final int BLOCK_WORDS = (1 << BLOCK_SHIFT) / Long.SIZE;
+
+    private final long[][] blocks; // null = bloco sem nenhum id
+
+    private IdSet(long[][] blocks) {
+        this.blocks = blocks;
+    }
+
+    /**
+     * Indica se o id está no conjunto.
+     *
+     * @param id O id.
+     * @return Verdadeiro se o id está no conjunto (nunca, se não for positivo).
+     */
+    boolean contains(int id) {
+        if (id <= 0) {
+            return false;
+        }
+        int block = id >>> BLOCK_SHIFT;
+        if (block >= blocks.length || blocks[block] == null) {
+            return false;
+        }
+        return (blocks[block][(id >>> 6) & (BLOCK_WORDS - 1)] & (1L << id)) != 0;
+    }
+
+    /**
+     * Retorna o conjunto com o id incluído.
+     *
+     * @param id O id, positivo.
+     * @return Um novo conjunto, ou este mesmo se o id já estiver nele.
+     */
+    IdSet with(int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Id inválido: " + id);
+        }
+        if (contains(id)) {
+            return this;
+        }
+        int block = id >>> BLOCK_SHIFT;
+        long[][] copy = Arrays.copyOf(blocks, Math.max(blocks.length, block + 1));
+        long[] words = copy[block] == null ? new long[BLOCK_WORDS] : copy[block].clone();
+        words[(id >>> 6) & (BLOCK_WORDS - 1)] |= 1L << id;
+        copy[block] = words;
+        return new IdSet(copy);
+    }
+
+    /**
+     * Retorna o conjunto sem o id.
+     *
+     * @param id O id.
+     * @return Um novo conjunto, ou este mesmo se o id não estiver nele.
+     */
+    IdSet without(int id) {
+        if (!contains(id)) {
+            return this;
+        }
+        int block = id >>> BLOCK_SHIFT;
+        long[][] copy = blocks.clone();
+        long[] words = copy[block].clone();
+        words[(id >>> 6) & (BLOCK_WORDS - 1)] &= ~(1L << id);
+        copy[block] = words;
+        return new IdSet(copy);
+    }
+}
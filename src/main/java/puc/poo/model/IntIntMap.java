@@ -0,0 +1,146 @@
+package puc.poo.model;
+
+import java.util.Arrays;
+
+/**
+ * Mapa de inteiros positivos para inteiros, numa tabela de endereçamento aberto sem objetos por entrada.
+ * <p>
+ * Usado onde um {@code Map<Integer, Integer>} pagaria um objeto por chave e por valor: a posição de cada
+ * id no {@link Inventory} e a vaga de cada objeto carregado no {@link ObjectRegistry}. As remoções trazem
+ * de volta as chaves seguintes da mesma sequência, então a tabela não acumula marcas de remoção.
+ * </p>
+ */
+final class IntIntMap {
+    private int[] keys; // 0 indica vaga livre, por isso as chaves precisam ser positivas
+    private int[] values;
+    private int size;
+
+    IntIntMap() {
+        this(16);
+    }
+
+    /**
+     * @param capacity A capacidade inicial da tabela, uma potência de 2.
+     */
+    IntIntMap(int capacity) {
+        keys = new int[capacity];
+        values = new int[capacity];
+    }
+
+    /**
+     * Retorna o valor da chave.
+     *
+     * @param key     A chave, positiva.
+     * @param missing O valor retornado se a chave não estiver no mapa.
+     * @return O valor associado à chave, ou {@code missing} (sempre, se a chave não for positiva).
+     */
+    int get(int key, int missing) {
+        if (key <= 0) {
+            return missing; // 0 marca as vagas livres e não pode achar o valor de uma delas
+        }
+        int slot = slotOf(key);
+        return keys[slot] == key ? values[slot] : missing;
+    }
+
+    /**
+     * Associa um valor à chave, substituindo o anterior.
+     *
+     * @param key   A chave, positiva.
+     * @param value O valor.
+     */
+    void put(int key, int value) {
+        if (key <= 0) {
+            throw new IllegalArgumentException("Chave inválida: " + key);
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            if ((size + 1) * 2 > keys.length) {
+                grow();
+                slot = slotOf(key);
+            }
+            keys[slot] = key;
+            size++;
+        }
+        values[slot] = value;
+    }
+
+    /**
+     * Remove a chave do mapa.
+     *
+     * @param key A chave.
+     * @return Verdadeiro se a chave estava no mapa.
+     */
+    boolean remove(int key) {
+        if (key <= 0) {
+            return false;
+        }
+        int slot = slotOf(key);
+        if (keys[slot] != key) {
+            return false;
+        }
+        deleteSlot(slot);
+        size--;
+        return true;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private void grow() {
+        int[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new int[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = slotOf(oldKeys[i]);
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Retorna a vaga da chave na tabela, ou a vaga livre onde ela seria inserida.
+     */
+    private int slotOf(int key) {
+        int mask = keys.length - 1;
+        int slot = home(key) & mask;
+        while (keys[slot] != 0 && keys[slot] != key) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    // Espalha chaves consecutivas (ids) pela tabela
+    private static int home(int key) {
+        int hash = key * 0x9E3779B9;
+        return hash ^ hash >>> 16;
+    }
+
+    // Remove uma vaga da tabela trazendo de volta as chaves seguintes da mesma sequência
+    private void deleteSlot(int slot) {
+        int mask = keys.length - 1;
+        int gap = slot;
+        int next = (gap + 1) & mask;
+        while (keys[next] != 0) {
+            int home = home(keys[next]) & mask;
+            // A chave em "next" pode ocupar a lacuna se a sua posição ideal não estiver entre a lacuna e ela
+            if (((next - home) & mask) >= ((next - gap) & mask)) {
+                keys[gap] = keys[next];
+                values[gap] = values[next];
+                gap = next;
+            }
+            next = (next + 1) & mask;
+        }
+        keys[gap] = 0;
+        values[gap] = 0;
+    }
+}
@@ -0,0 +1,196 @@
+package puc.poo.model;
+
+import java.util.AbstractCollection;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * A classe Inventory guarda os objetos carregados pelo jogador, na ordem em que foram pegos.
+ * <p>
+ * Os objetos ficam num array em ordem de inserção (usado por "inventário" e pelos jogos salvos),
+ * indexado por id numa tabela de inteiros ({@link IntIntMap}) e por trechos do nome num
+ * {@link ObjectNameIndex}. Assim, buscar por id (as chaves de portas e baús) custa O(1) e buscar
+ * por nome só confere os objetos que têm o trigrama mais raro da consulta. Um objeto removido
+ * deixa uma lacuna no array, compactada quando as lacunas passam do número de objetos.
+ * </p>
+ * <p>
+ * Os ids carregados também ficam num conjunto de bits imutável ({@link IdSet}, as capacidades do jogador):
+ * saber se o jogador tem a chave de uma tranca é um único teste de bit, o que permite responder em lote
+ * quais trancas de um cenário ele consegue abrir ({@link Player#getOpenableLocks()}). Cada mudança troca o
+ * conjunto por uma nova versão que compartilha quase tudo com a anterior, e o {@link Player} publica essa
+ * versão para as outras threads sem copiá-la.
+ * </p>
+ * <p>
+ * Para quem está fora do pacote, o inventário é uma coleção somente de leitura: as mudanças passam
+ * pelo {@link Player}, que notifica os ouvintes e publica o estado para as outras threads.
+ * </p>
+ */
+public final class Inventory extends AbstractCollection<GameObject> {
+    private GameObject[] items = new GameObject[8]; // Em ordem de inserção, com lacunas (null)
+    private int end; // Posições usadas em items, incluindo as lacunas
+    private int size; // Objetos no inventário
+    private final IntIntMap positions = new IntIntMap(); // Id -> posição em items
+    private final ObjectNameIndex names = new ObjectNameIndex();
+    private IdSet held = IdSet.EMPTY; // Ids dos objetos no inventário, trocado a cada mudança
+
+    Inventory() {}
+
+    /**
+     * Retorna o objeto com o id informado, se estiver no inventário.
+     *
+     * @param id O id do objeto.
+     * @return O objeto, ou {@code null} se não estiver no inventário.
+     */
+    public GameObject get(int id) {
+        if (!holds(id)) {
+            return null;
+        }
+        return items[positions.get(id, 0)];
+    }
+
+    /**
+     * Indica se o objeto com o id informado está no inventário, por exemplo a chave de uma tranca.
+     *
+     * @param id O id do objeto.
+     * @return Verdadeiro se o objeto está no inventário.
+     */
+    public boolean holds(int id) {
+        return held.contains(id);
+    }
+
+    /**
+     * Retorna o primeiro objeto, na ordem em que foram pegos, cujo nome contém o trecho informado.
+     *
+     * @param name O trecho do nome, sem diferenciar maiúsculas de minúsculas.
+     * @return O objeto, ou {@code null} se nenhum nome contiver o trecho.
+     */
+    public GameObject find(String name) {
+        return names.find(ObjectNameIndex.normalize(name));
+    }
+
+    // Ids carregados, para a visão publicada pelo jogador; imutável, então não precisa de cópia
+    IdSet heldIds() {
+        return held;
+    }
+
+    @Override
+    public boolean contains(Object object) {
+        return object instanceof GameObject gameObject && gameObject.equals(get(gameObject.getId()));
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Iterator<GameObject> iterator() {
+        return new Iterator<>() {
+            private int next = skipGaps(0);
+
+            @Override
+            public boolean hasNext() {
+                return next < end;
+            }
+
+            @Override
+            public GameObject next() {
+                if (next >= end) {
+                    throw new NoSuchElementException();
+                }
+                GameObject item = items[next];
+                next = skipGaps(next + 1);
+                return item;
+            }
+        };
+    }
+
+    private int skipGaps(int index) {
+        while (index < end && items[index] == null) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Adiciona um objeto ao fim do inventário. Um objeto que já está no inventário não é repetido.
+     *
+     * @return Verdadeiro se o objeto foi adicionado.
+     */
+    boolean put(GameObject object) {
+        if (holds(object.getId())) {
+            return false;
+        }
+        if (end == items.length) {
+            items = Arrays.copyOf(items, end * 2);
+        }
+        items[end] = object;
+        positions.put(object.getId(), end);
+        end++;
+        size++;
+        held = held.with(object.getId());
+        names.add(object);
+        return true;
+    }
+
+    /**
+     * Remove um objeto do inventário.
+     *
+     * @return Verdadeiro se o objeto estava no inventário.
+     */
+    boolean delete(GameObject object) {
+        if (!holds(object.getId())) {
+            return false;
+        }
+        items[positions.get(object.getId(), 0)] = null;
+        positions.remove(object.getId());
+        held = held.without(object.getId());
+        size--;
+        names.remove(object);
+        if (end - size > size && end > 8) {
+            compact();
+        }
+        return true;
+    }
+
+    /**
+     * Remove todos os objetos cujo nome contém o trecho informado.
+     *
+     * @return Verdadeiro se algum objeto foi removido.
+     */
+    boolean deleteMatching(String name) {
+        String query = ObjectNameIndex.normalize(name);
+        boolean changed = false;
+        GameObject object;
+        while ((object = names.find(query)) != null) {
+            changed |= delete(object);
+        }
+        return changed;
+    }
+
+    /**
+     * Esvazia o inventário.
+     */
+    void reset() {
+        Arrays.fill(items, 0, end, null);
+        positions.clear();
+        held = IdSet.EMPTY;
+        end = 0;
+        size = 0;
+        names.clear();
+    }
+
+    // Reescreve os objetos sem lacunas e atualiza as posições
+    private void compact() {
+        int live = 0;
+        for (int i = 0; i < end; i++) {
+            if (items[i] != null) {
+                positions.put(items[i].getId(), live);
+                items[live++] = items[i];
+            }
+        }
+        Arrays.fill(items, live, end, null);
+        end = live;
+    }
+}
@@ -1,5 +1,9 @@
 package puc.poo.model;
 
+import puc.poo.view.OutputSink;
+
+import java.util.ArrayList;
+
 /**
  * Esta classe representa uma ação de objeto GameObject que pode ser realizada por um jogador num cenário num jogo.
  * Uma ação pode ser de diferentes tipos, como RIFLE, MUNIÇÃO, ou GENÉRICA.
@@ -42,6 +46,44 @@ public class ObjectAction {
         this.actionType = actionType;
     }
 
+    /**
+     * Construtor a partir do template compartilhado de um mundo, com o estado inicial da ação.
+     *
+     * @param player   Jogador executando a ação.
+     * @param stag     O veado do mundo.
+     * @param template O template da ação.
+     */
+    public ObjectAction(Player player, Stag stag, ActionTemplate template) {
+        this(player, stag, template.type());
+        this.isActive = template.active();
+        this.isRepeatable = template.repeatable();
+        this.actionCount = template.count();
+        this.actionDescriptionActive = template.descriptionActive();
+        this.actionDescriptionInactive = template.descriptionInactive();
+        if (template.hasCondition()) {
+            ObjectCondition condition = new ObjectCondition();
+            if (template.required() != null) {
+                ArrayList<Integer> required = new ArrayList<>(template.required().length);
+                for (int id : template.required()) {
+                    required.add(id);
+                }
+                condition.setRequiredObjects(required);
+            }
+            condition.setSatisfied(template.conditionSatisfied());
+            this.condition = condition;
+            this.hasCondition = true;
+        }
+    }
+
+    /**
+     * Retorna o tipo da ação.
+     *
+     * @return Tipo da ação.
+     */
+    public ActionType getActionType() {
+        return actionType;
+    }
+
     /**
      * Retorna a contagem de ações restantes.
      *
@@ -171,48 +213,47 @@ public class ObjectAction {
 
     /**
      * Executa a ação.
+     *
+     * @param out A saída da sessão.
      */
-    public void execute() {
+    public void execute(OutputSink out) {
         if (actionType == ActionType.GENERIC) {
             if (isRepeatable && actionCount > 0) {
-                System.out.println(actionDescriptionActive);
+                out.println(actionDescriptionActive);
                 actionCount--;
             } else if (isRepeatable && actionCount == 0) {
-                System.out.println(actionDescriptionInactive);
+                out.println(actionDescriptionInactive);
                 return;
             }
         }
 
         if (actionType == ActionType.GENERIC && hasCondition && condition != null && !condition.checkCondition(player)) {
-            System.out.println("A condição para executar esta ação não foi satisfeita.");
+            out.println("A condição para executar esta ação não foi satisfeita.");
             return;
         }
 
         if (isActive) {
             if (actionType == ActionType.RIFLE) {
-                if (!player.getCurrentScenario().getName().equals("Floresta")) {
-                    System.out.println("Não devo usar isso aqui.");
+                if (!player.getCurrentScenario().getName().equals(Stag.HUNTING_GROUND)) {
+                    out.println("Não devo usar isso aqui.");
                 } else {
                     if (stag.isAlive()) {
                         boolean killed = stag.tryToKill();
                         if (killed) {
-                            try {
-                                stag.setAlive(false);
-                                System.out.println("Você mirou e atirou!");
-                                Thread.sleep(1000);
-                                System.out.println("O veado foi morto.");
-                                Thread.sleep(1000);
-                                System.out.println("(Devo coletar seus chifres.)");
-                                GameObject forest_antlers = new GameObject("chifres do veado", "Chifres do veado que você coletou. Serve como um troféu");
-                                forest_antlers.setAsStorable();
-                                player.getCurrentScenario().addObject(forest_antlers);
-                            } catch (Exception e) {}
-
+                            stag.setAlive(false);
+                            out.println("Você mirou e atirou!");
+                            out.pause(1000);
+                            out.println("O veado foi morto.");
+                            out.pause(1000);
+                            out.println("(Devo coletar seus chifres.)");
+                            if (stag.getAntlers() != null) {
+                                player.getCurrentScenario().addObject(stag.getAntlers());
+                            }
                         } else {
-                            System.out.println("Você mirou e atirou, mas o veado escapou!");
+                            out.println("Você mirou e atirou, mas o veado escapou!");
                         }
                     } else {
-                        System.out.println("O veado já está morto.");
+                        out.println("O veado já está morto.");
                     }
                 }
             } else if (actionType == ActionType.AMMO) {
@@ -221,15 +262,15 @@ public class ObjectAction {
                 
                 if (this.getHasCondition() && this.condition.isSatisfied()) {
                     this.setActionCount(5);
-                    System.out.println("Rifle recarregado com cinco balas.");
+                    out.println("Rifle recarregado com cinco balas.");
                 } else {
-                    System.out.println("Preciso do rifle para usar isso.");
+                    out.println("Preciso do rifle para usar isso.");
                 }
             } else {
-                System.out.println(actionDescriptionActive);
+                out.println(actionDescriptionActive);
             }
         } else {
-            System.out.println(actionDescriptionInactive != null ? actionDescriptionInactive : "Ação inativa.");
+            out.println(actionDescriptionInactive != null ? actionDescriptionInactive : "Ação inativa.");
         }
     }
 }
@@ -56,11 +56,11 @@ public class ObjectCondition {
      * Verifica se determinados objetos estão no inventário do jogador.
      * Se algum objeto necessário estiver presente, a condição é marcada como satisfeita.
      *
-     * @param inventory Lista de objetos no inventário do jogador.
+     * @param inventory O inventário do jogador.
      */
-    public void checkObjListInventory(ArrayList<GameObject> inventory) {
+    public void checkObjListInventory(Inventory inventory) {
         for (Integer gameObjectID : requiredObjects) {
-            if (inventory.stream().anyMatch(obj -> gameObjectID.equals(obj.getId()))) {
+            if (inventory.get(gameObjectID) != null) {
                 isSatisfied = true;
             }
         }
@@ -74,6 +74,6 @@ public class ObjectCondition {
      */
     public boolean checkCondition(Player player) {
         // Verifica se o jogador está no cenário da floresta
-        return player.getCurrentScenario().getName().equals("Floresta");
+        return player.getCurrentScenario().getName().equals(Stag.HUNTING_GROUND);
     }
 }
\ No newline at end of file
@@ -0,0 +1,223 @@
+package puc.poo.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Índice de nomes dos objetos de um cenário, usado por {@link Scenario#getObject(String)}.
+ * <p>
+ * É um índice de trigramas: cada objeto ocupa uma posição, na ordem de inserção, e cada trecho de três
+ * caracteres do nome normalizado (em minúsculas) guarda a lista crescente das posições cujo nome o contém.
+ * Uma consulta percorre só a lista do seu trigrama mais raro e confirma cada candidato com
+ * {@code String.contains}, mantendo a semântica da busca linear anterior. A memória cresce de forma
+ * linear com o tamanho dos nomes (no máximo uma entrada por caractere), ao contrário de uma trie de sufixos.
+ * </p>
+ * <p>
+ * Consultas com menos de três caracteres não têm trigrama e percorrem os nomes em ordem. Um objeto removido
+ * deixa a sua posição vazia, ignorada nas listas; o índice é remontado quando as posições vazias passam
+ * das ocupadas. A posição de cada objeto é achada pelo id numa {@link IntIntMap}, então remover não percorre
+ * as listas, que num inventário grande de nomes parecidos teriam quase todos os objetos.
+ * </p>
+ */
+final class ObjectNameIndex {
+    private static final int GRAM = 3;
+
+    private GameObject[] objects = new GameObject[4]; // Por posição, na ordem de inserção; null se removido
+    private String[] names = new String[4]; // Nome normalizado de cada posição
+    private int end; // Posições usadas, incluindo as vazias
+    private int live; // Posições ocupadas
+    private final Map<Long, Postings> postings = new HashMap<>();
+    private final IntIntMap slots = new IntIntMap(); // Id -> primeira posição ocupada por um objeto com esse id
+
+    /**
+     * Lista crescente das posições cujo nome contém um trigrama.
+     */
+    private static final class Postings {
+        private int[] slots = new int[2];
+        private int size;
+
+        void add(int slot) {
+            if (size > 0 && slots[size - 1] == slot) {
+                return; // O trigrama aparece mais de uma vez no mesmo nome
+            }
+            if (size == slots.length) {
+                slots = Arrays.copyOf(slots, size * 2);
+            }
+            slots[size++] = slot;
+        }
+    }
+
+    /**
+     * Normaliza um nome para indexação e consulta.
+     *
+     * @param name O nome a ser normalizado.
+     * @return O nome em minúsculas.
+     */
+    static String normalize(String name) {
+        return name.toLowerCase(Locale.ROOT);
+    }
+
+    // Os três caracteres do trigrama que começa em start, num único long
+    private static long gram(String name, int start) {
+        return ((long) name.charAt(start) << 32) | ((long) name.charAt(start + 1) << 16) | name.charAt(start + 2);
+    }
+
+    /**
+     * Indexa o objeto numa nova posição, depois de todos os já indexados.
+     *
+     * @param object O objeto a ser indexado.
+     */
+    void add(GameObject object) {
+        String name = normalize(object.getName());
+        if (name.isEmpty()) {
+            return; // Nenhuma consulta encontra um nome vazio
+        }
+        if (end == objects.length) {
+            objects = Arrays.copyOf(objects, end * 2);
+            names = Arrays.copyOf(names, end * 2);
+        }
+        objects[end] = object;
+        names[end] = name;
+        index(end, name);
+        if (slots.get(object.getId(), -1) < 0) {
+            slots.put(object.getId(), end);
+        }
+        end++;
+        live++;
+    }
+
+    private void index(int slot, String name) {
+        for (int i = 0; i + GRAM <= name.length(); i++) {
+            postings.computeIfAbsent(gram(name, i), g -> new Postings()).add(slot);
+        }
+    }
+
+    /**
+     * Remove o objeto do índice, deixando a sua posição vazia.
+     *
+     * @param object O objeto a ser removido.
+     */
+    void remove(GameObject object) {
+        String name = normalize(object.getName());
+        int slot = slotOf(object, name);
+        if (slot < 0) {
+            return;
+        }
+        objects[slot] = null;
+        names[slot] = null;
+        if (slots.get(object.getId(), -1) == slot) {
+            slots.remove(object.getId());
+        }
+        live--;
+        if (live == 0) {
+            clear();
+        } else if (end - live > live && end > 8) {
+            rebuild();
+        }
+    }
+
+    // Pelo id; se o objeto não estiver na tabela (o mesmo id indexado mais de uma vez), percorre a lista
+    // do primeiro trigrama. Compara primeiro as referências; outra referência ao mesmo objeto (um
+    // GameObject é só um par registro-id) é achada depois, por equals
+    private int slotOf(GameObject object, String name) {
+        int found = slots.get(object.getId(), -1);
+        if (found >= 0 && object.equals(objects[found])) {
+            return found;
+        }
+        found = -1;
+        if (name.length() >= GRAM) {
+            Postings candidates = postings.get(gram(name, 0));
+            for (int i = 0; candidates != null && i < candidates.size; i++) {
+                int slot = candidates.slots[i];
+                if (objects[slot] == object) {
+                    return slot;
+                }
+                if (found < 0 && object.equals(objects[slot])) {
+                    found = slot;
+                }
+            }
+            return found;
+        }
+        for (int slot = 0; slot < end; slot++) {
+            if (objects[slot] == object) {
+                return slot;
+            }
+            if (found < 0 && object.equals(objects[slot])) {
+                found = slot;
+            }
+        }
+        return found;
+    }
+
+    // Reindexa os objetos restantes em posições contíguas, na mesma ordem
+    private void rebuild() {
+        postings.clear();
+        slots.clear();
+        int next = 0;
+        for (int slot = 0; slot < end; slot++) {
+            if (objects[slot] != null) {
+                objects[next] = objects[slot];
+                names[next] = names[slot];
+                index(next, names[next]);
+                if (slots.get(objects[next].getId(), -1) < 0) {
+                    slots.put(objects[next].getId(), next);
+                }
+                next++;
+            }
+        }
+        Arrays.fill(objects, next, end, null);
+        Arrays.fill(names, next, end, null);
+        end = next;
+    }
+
+    /**
+     * Procura um objeto cujo nome contenha o trecho informado.
+     *
+     * @param query O trecho a ser procurado, já normalizado.
+     * @return O primeiro objeto indexado que contém o trecho, ou {@code null} se não houver.
+     */
+    GameObject find(String query) {
+        if (query.isEmpty()) {
+            return null;
+        }
+        if (query.length() < GRAM) {
+            for (int slot = 0; slot < end; slot++) {
+                if (names[slot] != null && names[slot].contains(query)) {
+                    return objects[slot];
+                }
+            }
+            return null;
+        }
+        Postings rarest = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            Postings candidates = postings.get(gram(query, i));
+            if (candidates == null) {
+                return null; // Nenhum nome tem este trigrama
+            }
+            if (rarest == null || candidates.size < rarest.size) {
+                rarest = candidates;
+            }
+        }
+        for (int i = 0; i < rarest.size; i++) {
+            int slot = rarest.slots[i];
+            if (names[slot] != null && (query.length() == GRAM || names[slot].contains(query))) {
+                return objects[slot];
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Remove todos os objetos do índice.
+     */
+    void clear() {
+        Arrays.fill(objects, 0, end, null);
+        Arrays.fill(names, 0, end, null);
+        postings.clear();
+        slots.clear();
+        end = 0;
+        live = 0;
+    }
+}
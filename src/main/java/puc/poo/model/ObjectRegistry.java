@@ -0,0 +1,461 @@
+package puc.poo.model;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.IntConsumer;
+import java.util.function.IntFunction;
+
+/**
+ * A classe ObjectRegistry guarda o estado de todos os {@link GameObject} de um mundo e distribui seus ids.
+ * <p>
+ * Cada mundo (ou seja, cada sessão criada pelo ScenarioManager) tem o seu próprio registro, então
+ * ids de mundos diferentes não colidem e os objetos de um mundo podem ser liberados junto com ele.
+ * Os ids são densos e começam em 1 (o id 0 significa "sem chave" em {@link GameObject#getKeyId()}).
+ * </p>
+ * <p>
+ * O estado fica em arrays paralelos, um por campo, e não em um objeto Java por item: as propriedades
+ * (armazenável, armazenamento, abrível, aberto) são bits de um {@code int[]}, as chaves ficam num
+ * {@code int[]} e os textos em arrays de referências. O conteúdo de um armazenamento é um trecho de um
+ * único {@code int[]} de ids, e as ações, que poucos objetos têm, ficam num mapa à parte. Um
+ * {@link GameObject} é só um par (registro, id) que lê e escreve nesses arrays, então cada objeto custa
+ * 16 bytes no registro, contra os ~50 de um objeto com um campo para cada propriedade, e a instância só
+ * existe enquanto alguém (um cenário, o inventário) a guarda.
+ * </p>
+ * <p>
+ * Num mundo montado de uma vez, a posição de um objeto nos arrays é o próprio id. Os objetos são
+ * registrados pela thread que monta ou joga o mundo; a leitura pode ser feita de outras threads depois
+ * que o mundo estiver montado.
+ * </p>
+ * <p>
+ * Um mundo carregado de uma imagem binária já conhece todos os seus ids, mas cria os objetos sob demanda:
+ * nesse caso o registro recebe o número de objetos e uma função que cria o objeto de um id na primeira
+ * vez que ele é pedido. Só os objetos criados ocupam memória (em vagas dos arrays, achadas pelo id num
+ * {@link IntIntMap}), então o custo do registro de uma sessão não depende do tamanho do mundo. Esse
+ * registro só deve ser usado pela thread da sessão.
+ * </p>
+ */
+public class ObjectRegistry {
+    // Bits de flags; PRESENT marca as vagas ocupadas, de modo que uma vaga livre tem flags 0
+    static final int STORABLE = 1;
+    static final int STORAGE = 1 << 1;
+    static final int OPENABLE = 1 << 2;
+    static final int OPEN = 1 << 3;
+    static final int HAS_CONTENTS = 1 << 4; // Tem uma lista de conteúdo, mesmo que vazia
+    private static final int HAS_ACTION = 1 << 5; // Tem uma entrada no mapa de ações
+    private static final int PRESENT = 1 << 31;
+
+    private static final int[] EMPTY = {};
+
+    private int[] flags = new int[8];
+    private int[] keyIds = new int[8];
+    private String[] names = new String[8];
+    private String[] descriptions = new String[8];
+    private int size;
+    private final Map<Integer, ObjectAction> actions = new HashMap<>(); // Pelo id; poucos objetos têm ação
+
+    // Conteúdo: cada armazenamento tem um trecho [rangeStart, rangeStart + rangeLength) de contentIds
+    private final IntIntMap ranges = new IntIntMap(4); // Id -> índice do trecho
+    private int[] rangeStart = EMPTY;
+    private int[] rangeLength = EMPTY;
+    private int rangeCount; // Índices de trecho já usados, incluindo os livres
+    private int[] freeRanges = EMPTY;
+    private int freeRangeCount;
+    private int[] contentIds = EMPTY;
+    private int contentEnd; // Posições usadas em contentIds, incluindo as abandonadas
+    private int contentGarbage; // Posições abandonadas por trechos que mudaram de lugar ou foram esvaziados
+
+    private final IntFunction<GameObject> materializer; // Cria objetos ainda não carregados, se houver
+    private final IntIntMap slots; // Id -> vaga + 1 dos objetos criados sob demanda, ou null
+    private int slotEnd; // Vagas já usadas, incluindo as livres
+    private int[] freeSlots;
+    private int freeSlotCount;
+    private IntConsumer openingListener; // Avisado quando um objeto abre, fecha ou muda de abrível, se houver
+
+    /**
+     * Construtor de um registro vazio, preenchido à medida que os objetos são criados.
+     */
+    public ObjectRegistry() {
+        this.materializer = null;
+        this.slots = null;
+    }
+
+    /**
+     * Construtor de um registro cujos objetos são criados sob demanda.
+     *
+     * @param size         O número de objetos do mundo.
+     * @param materializer Função que cria o objeto de um id (registrando-o com
+     *                     {@link GameObject#GameObject(ObjectRegistry, ObjectTemplate)}).
+     */
+    public ObjectRegistry(int size, IntFunction<GameObject> materializer) {
+        this.size = size;
+        this.materializer = materializer;
+        this.slots = new IntIntMap();
+        this.freeSlots = EMPTY;
+    }
+
+    /**
+     * Registra um novo objeto e retorna o seu id.
+     *
+     * @param name        O nome do objeto.
+     * @param description A descrição do objeto.
+     * @return O id atribuído ao objeto.
+     */
+    int register(String name, String description) {
+        if (slots != null) {
+            throw new IllegalStateException("Objetos criados sob demanda já têm id.");
+        }
+        ensureCapacity(size + 1);
+        fill(size, PRESENT, 0, name, description);
+        return ++size;
+    }
+
+    /**
+     * Registra um objeto com o id e o estado inicial de um template.
+     *
+     * @param template O template do objeto.
+     */
+    void register(ObjectTemplate template) {
+        int id = template.id();
+        if (id <= 0) {
+            throw new IllegalArgumentException("Id de objeto inválido: " + id);
+        }
+        int slot;
+        if (slots != null) {
+            if (id > size || slots.get(id, 0) != 0) {
+                throw new IllegalStateException("Id de objeto já registrado ou fora do mundo: " + id);
+            }
+            slot = freeSlotCount > 0 ? freeSlots[--freeSlotCount] : slotEnd++;
+            ensureCapacity(slot + 1);
+            slots.put(id, slot + 1);
+        } else {
+            slot = id - 1;
+            ensureCapacity(id);
+            if (flags[slot] != 0) {
+                throw new IllegalStateException("Id de objeto já registrado: " + id);
+            }
+            size = Math.max(size, id);
+        }
+        int bits = PRESENT;
+        if (template.storable()) bits |= STORABLE;
+        if (template.storage()) bits |= STORAGE;
+        if (template.openable()) bits |= OPENABLE;
+        if (template.open()) bits |= OPEN;
+        fill(slot, bits, template.keyId(), template.name(), template.description());
+    }
+
+    private void fill(int slot, int bits, int keyId, String name, String description) {
+        flags[slot] = bits;
+        keyIds[slot] = keyId;
+        names[slot] = name;
+        descriptions[slot] = description;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > flags.length) {
+            int length = Math.max(capacity, flags.length * 2);
+            flags = Arrays.copyOf(flags, length);
+            keyIds = Arrays.copyOf(keyIds, length);
+            names = Arrays.copyOf(names, length);
+            descriptions = Arrays.copyOf(descriptions, length);
+        }
+    }
+
+    /**
+     * Obtém um objeto pelo id.
+     *
+     * @param id O id do objeto.
+     * @return O objeto, ou {@code null} se o id não pertencer a este mundo.
+     */
+    public GameObject get(int id) {
+        if (slotOf(id) >= 0) {
+            return new GameObject(this, id);
+        }
+        return slots != null && id > 0 && id <= size ? materializer.apply(id) : null;
+    }
+
+    /**
+     * Descarta o estado de um objeto de um mundo criado sob demanda. O próximo acesso a esse id cria
+     * o objeto de novo, a partir da imagem.
+     *
+     * @param id O id do objeto.
+     */
+    public void unload(int id) {
+        if (materializer == null) {
+            throw new IllegalStateException("Somente objetos criados sob demanda podem ser descartados.");
+        }
+        int slot = slotOf(id);
+        if (slot < 0) {
+            return;
+        }
+        dropContents(id);
+        actions.remove(id);
+        fill(slot, 0, 0, null, null);
+        slots.remove(id);
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, Math.max(8, freeSlotCount * 2));
+        }
+        freeSlots[freeSlotCount++] = slot;
+    }
+
+    /**
+     * Retorna a quantidade de objetos registrados, que também é o maior id em uso.
+     *
+     * @return O número de objetos do mundo.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Define quem é avisado, pelo id, quando um objeto abre, fecha ou passa a ser (ou deixa de ser) abrível,
+     * por exemplo o grafo de caminhos do mundo, que acompanha o estado das portas.
+     *
+     * @param listener O ouvinte, ou {@code null} para nenhum.
+     */
+    public void setOpeningListener(IntConsumer listener) {
+        this.openingListener = listener;
+    }
+
+    /**
+     * Libera todos os objetos do mundo. Deve ser chamado quando a sessão termina.
+     */
+    public void release() {
+        flags = new int[8];
+        keyIds = new int[8];
+        names = new String[8];
+        descriptions = new String[8];
+        actions.clear();
+        ranges.clear();
+        rangeCount = 0;
+        freeRangeCount = 0;
+        contentEnd = 0;
+        contentGarbage = 0;
+        if (slots != null) {
+            slots.clear();
+            slotEnd = 0;
+            freeSlotCount = 0;
+        } else {
+            size = 0;
+        }
+    }
+
+    // A vaga do id nos arrays, ou -1 se o objeto não está na memória
+    private int slotOf(int id) {
+        if (slots != null) {
+            return slots.get(id, 0) - 1;
+        }
+        return id > 0 && id <= size && flags[id - 1] != 0 ? id - 1 : -1;
+    }
+
+    // A vaga de um objeto que já foi entregue a alguém; num mundo sob demanda, ele é recriado se foi descartado
+    private int slot(int id) {
+        int slot = slotOf(id);
+        if (slot < 0 && slots != null && id > 0 && id <= size) {
+            materializer.apply(id);
+            slot = slotOf(id);
+        }
+        if (slot < 0) {
+            throw new IllegalStateException("Objeto não registrado: " + id);
+        }
+        return slot;
+    }
+
+    // Acesso ao estado, usado pelo GameObject
+
+    boolean is(int id, int flag) {
+        return (flags[slot(id)] & flag) != 0;
+    }
+
+    void set(int id, int flag, boolean value) {
+        int slot = slot(id);
+        int before = flags[slot];
+        flags[slot] = value ? before | flag : before & ~flag;
+        if (openingListener != null && ((before ^ flags[slot]) & (OPEN | OPENABLE)) != 0) {
+            openingListener.accept(id);
+        }
+    }
+
+    int keyId(int id) {
+        return keyIds[slot(id)];
+    }
+
+    void setKeyId(int id, int keyId) {
+        keyIds[slot(id)] = keyId;
+    }
+
+    String name(int id) {
+        return names[slot(id)];
+    }
+
+    void setName(int id, String name) {
+        names[slot(id)] = name;
+    }
+
+    String description(int id) {
+        return descriptions[slot(id)];
+    }
+
+    void setDescription(int id, String description) {
+        descriptions[slot(id)] = description;
+    }
+
+    boolean hasAction(int id) {
+        return is(id, HAS_ACTION);
+    }
+
+    ObjectAction action(int id) {
+        return hasAction(id) ? actions.get(id) : null;
+    }
+
+    void setAction(int id, ObjectAction action) {
+        set(id, HAS_ACTION, true);
+        actions.put(id, action);
+    }
+
+    /**
+     * Retorna os ids do conteúdo de um objeto, ou {@code null} se ele não tem lista de conteúdo.
+     */
+    int[] contents(int id) {
+        if (!is(id, HAS_CONTENTS)) {
+            return null;
+        }
+        int range = ranges.get(id, -1);
+        return range < 0 ? new int[0] : Arrays.copyOfRange(contentIds, rangeStart[range], rangeStart[range] + rangeLength[range]);
+    }
+
+    /**
+     * Indica se um objeto tem lista de conteúdo, mesmo vazia.
+     */
+    boolean hasContents(int id) {
+        return is(id, HAS_CONTENTS);
+    }
+
+    /**
+     * Retorna quantos objetos estão dentro de um objeto, sem copiar o conteúdo; 0 se ele não tem lista de conteúdo.
+     */
+    int contentCount(int id) {
+        int range = ranges.get(id, -1);
+        return range < 0 ? 0 : rangeLength[range];
+    }
+
+    /**
+     * Indica se um objeto não guarda nenhum objeto, tenha ou não lista de conteúdo.
+     */
+    boolean isEmpty(int id) {
+        return contentCount(id) == 0;
+    }
+
+    /**
+     * Retorna o id do objeto na posição informada do conteúdo de outro.
+     *
+     * @throws IndexOutOfBoundsException Se a posição não estiver no conteúdo.
+     */
+    int contentAt(int id, int index) {
+        Objects.checkIndex(index, contentCount(id));
+        return contentIds[rangeStart[ranges.get(id, -1)] + index];
+    }
+
+    /**
+     * Substitui o conteúdo de um objeto; {@code null} remove a lista de conteúdo.
+     */
+    void setContents(int id, int[] ids) {
+        if (ids == null) {
+            set(id, HAS_CONTENTS, false);
+            dropContents(id);
+            return;
+        }
+        set(id, HAS_CONTENTS, true);
+        int range = range(id);
+        if (ids.length > rangeLength[range]) {
+            contentGarbage += rangeLength[range];
+            rangeStart[range] = reserve(ids.length);
+        } else {
+            contentGarbage += rangeLength[range] - ids.length;
+        }
+        System.arraycopy(ids, 0, contentIds, rangeStart[range], ids.length);
+        rangeLength[range] = ids.length;
+        compactContents();
+    }
+
+    /**
+     * Acrescenta um objeto ao fim do conteúdo de outro, criando a lista de conteúdo se preciso.
+     */
+    void addContent(int id, int contentId) {
+        set(id, HAS_CONTENTS, true);
+        int range = range(id);
+        int start = rangeStart[range];
+        int length = rangeLength[range];
+        if (start + length != contentEnd) { // O trecho não está no fim: muda para lá
+            int moved = reserve(length);
+            System.arraycopy(contentIds, start, contentIds, moved, length);
+            contentGarbage += length;
+            rangeStart[range] = moved;
+        }
+        int at = reserve(1); // Antes de indexar: reserve pode trocar o array
+        contentIds[at] = contentId;
+        rangeLength[range]++;
+    }
+
+    // O índice do trecho de conteúdo do objeto, criado vazio no fim se ainda não existir
+    private int range(int id) {
+        int range = ranges.get(id, -1);
+        if (range < 0) {
+            range = freeRangeCount > 0 ? freeRanges[--freeRangeCount] : rangeCount++;
+            if (range == rangeStart.length) {
+                rangeStart = Arrays.copyOf(rangeStart, Math.max(8, range * 2));
+                rangeLength = Arrays.copyOf(rangeLength, Math.max(8, range * 2));
+            }
+            rangeStart[range] = contentEnd;
+            rangeLength[range] = 0;
+            ranges.put(id, range);
+        }
+        return range;
+    }
+
+    private void dropContents(int id) {
+        int range = ranges.get(id, -1);
+        if (range < 0) {
+            return;
+        }
+        contentGarbage += rangeLength[range];
+        rangeStart[range] = -1; // Trecho livre, ignorado pela compactação
+        rangeLength[range] = 0;
+        ranges.remove(id);
+        if (freeRangeCount == freeRanges.length) {
+            freeRanges = Arrays.copyOf(freeRanges, Math.max(8, freeRangeCount * 2));
+        }
+        freeRanges[freeRangeCount++] = range;
+        compactContents();
+    }
+
+    // Reserva posições no fim de contentIds e retorna a primeira
+    private int reserve(int count) {
+        if (contentEnd + count > contentIds.length) {
+            contentIds = Arrays.copyOf(contentIds, Math.max(Math.max(32, contentEnd + count), contentIds.length * 2));
+        }
+        int start = contentEnd;
+        contentEnd += count;
+        return start;
+    }
+
+    // Reescreve os trechos sem as posições abandonadas, quando elas passam das que estão em uso
+    private void compactContents() {
+        if (contentGarbage <= contentEnd - contentGarbage || contentEnd < 64) {
+            return;
+        }
+        int[] compacted = new int[Math.max(32, (contentEnd - contentGarbage) * 2)];
+        int end = 0;
+        for (int range = 0; range < rangeCount; range++) {
+            if (rangeStart[range] >= 0) {
+                System.arraycopy(contentIds, rangeStart[range], compacted, end, rangeLength[range]);
+                rangeStart[range] = end;
+                end += rangeLength[range];
+            }
+        }
+        contentIds = compacted;
+        contentEnd = end;
+        contentGarbage = 0;
+    }
+}
@@ -0,0 +1,24 @@
+package puc.poo.model;
+
+/**
+ * Parte imutável de um objeto e o seu estado inicial, compartilhados por todas as sessões de um mundo.
+ * <p>
+ * Cada sessão cria o seu {@link GameObject} a partir do template, com referências aos mesmos textos;
+ * só o estado que muda durante o jogo (aberto, conteúdo, ação) é copiado para a sessão.
+ * Os arrays não devem ser alterados.
+ * </p>
+ *
+ * @param id          O id do objeto no mundo.
+ * @param name        O nome do objeto.
+ * @param description A descrição do objeto.
+ * @param storable    Se pode ser guardado no inventário.
+ * @param storage     Se é um armazenamento.
+ * @param openable    Se pode ser aberto.
+ * @param open        Se começa aberto.
+ * @param keyId       O id da chave que o abre, ou 0.
+ * @param contents    Os ids do conteúdo inicial, ou {@code null} se o objeto não guarda objetos.
+ * @param action      A ação do objeto, ou {@code null}.
+ */
+public record ObjectTemplate(int id, String name, String description, boolean storable, boolean storage,
+                             boolean openable, boolean open, int keyId, int[] contents, ActionTemplate action) {
+}
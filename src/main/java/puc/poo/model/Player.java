@@ -1,28 +1,96 @@
 package puc.poo.model;
 
 import java.util.ArrayList;
+import java.util.List;
 import java.util.Stack;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantLock;
 
 /**
  * A classe Player é estruturada para gerenciar o estado do jogador
  * em termos de localização no cenário, inventário de objetos e rastreamento dos cenários anteriores.
  * Os métodos incluem adicionar, remover e acessar objetos no inventário,
  * bem como alterar e verificar o cenário atual e os cenários anteriores.
+ * Mudanças de cenário e de inventário são notificadas aos {@link PlayerListener} registrados.
+ *
+ * <p>
+ * <b>Concorrência:</b> o cenário atual e o inventário ({@link Inventory}, indexado por id e por nome)
+ * só são modificados e consultados diretamente pela thread de comandos. A cada mudança, sob uma trava
+ * usada apenas pelos escritores, o jogador publica uma {@link View} imutável com o cenário e os ids do
+ * inventário. Os ids já são um conjunto imutável mantido pelo inventário, então publicar não copia nada
+ * e custa o mesmo com 10 ou com 100 mil objetos. Outras threads (como a do StagSpotter) leem essa visão
+ * com {@link #view()}, sem trava: sempre enxergam um cenário e um inventário coerentes entre si e nunca
+ * atrasam a thread de comandos. Quem precisa dos objetos, e não só dos ids, consulta o inventário na
+ * thread de comandos.
+ * A pilha de cenários anteriores é usada apenas pela thread de comandos.
+ * </p>
  */
 public class Player {
 
-    private Scenario currentScenario;
-    private final ArrayList<GameObject> inventory;
+    /**
+     * Estado imutável do jogador num instante, para leitura por outras threads: o cenário atual e os ids
+     * dos objetos do inventário.
+     */
+    public static final class View {
+        private static final View EMPTY = new View(null, IdSet.EMPTY);
+
+        private final Scenario currentScenario;
+        private final IdSet held; // Compartilhado com o inventário, que troca a instância a cada mudança
+
+        private View(Scenario currentScenario, IdSet held) {
+            this.currentScenario = currentScenario;
+            this.held = held;
+        }
+
+        /**
+         * Retorna o cenário atual do jogador neste instante.
+         *
+         * @return O cenário atual, ou {@code null} antes do primeiro cenário.
+         */
+        public Scenario getCurrentScenario() {
+            return currentScenario;
+        }
+
+        /**
+         * Indica se o objeto com o id informado estava no inventário, por exemplo a chave de uma tranca.
+         *
+         * @param id O id do objeto.
+         * @return Verdadeiro se o objeto estava no inventário.
+         */
+        public boolean holds(int id) {
+            return held.contains(id);
+        }
+    }
+
+    private volatile Scenario currentScenario;
+    private final Inventory inventory = new Inventory();
+    private final ReentrantLock writeLock = new ReentrantLock(); // Serializa as mudanças e a publicação da visão
+    private volatile View view = View.EMPTY; // Última visão publicada, lida sem trava
     private final Stack<Scenario> previousScenarios;
+    private final List<PlayerListener> listeners = new CopyOnWriteArrayList<>(); // Ouvintes dos eventos do jogador
 
     /**
      * Construtor para inicializar o inventário e os cenários anteriores que o jogador passou.
      */
     public Player() {
-        inventory = new ArrayList<>();
         previousScenarios = new Stack<>();
     }
 
+    /**
+     * Retorna o cenário atual e o inventário de forma consistente, como estavam na última mudança.
+     * Pode ser chamado de qualquer thread, sem bloquear a thread de comandos.
+     *
+     * @return A visão publicada do jogador.
+     */
+    public View view() {
+        return view;
+    }
+
+    // Com writeLock: publica o estado atual para as outras threads
+    private void publish() {
+        view = new View(currentScenario, inventory.heldIds());
+    }
+
     /**
      * Retorna o cenário atual do jogador.
      *
@@ -39,28 +107,59 @@ public class Player {
      * @param scenario O novo cenário atual.
      */
     public void setCurrentScenario(Scenario scenario) {
-        if (currentScenario != null) {
-            previousScenarios.push(currentScenario);
+        Scenario previous;
+        writeLock.lock();
+        try {
+            previous = currentScenario;
+            currentScenario = scenario;
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+        if (previous != null) {
+            previousScenarios.push(previous);
+        }
+        for (PlayerListener listener : listeners) {
+            listener.scenarioChanged(this, previous, scenario);
         }
-        this.currentScenario = scenario;
     }
 
     /**
-     * Adiciona um objeto ao inventário do jogador.
+     * Adiciona um objeto ao fim do inventário do jogador.
      *
      * @param object O objeto a ser adicionado.
      */
     public void addToInventory(GameObject object) {
-        inventory.add(object);
+        boolean changed;
+        writeLock.lock();
+        try {
+            changed = inventory.put(object);
+            if (changed) {
+                publish();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        inventoryChanged(changed);
     }
 
     /**
-     * Remove um objeto do inventário do jogador com base no nome.
+     * Remove do inventário do jogador todos os objetos cujo nome contém o trecho informado.
      *
      * @param name O nome do objeto a ser removido.
      */
     public void removeFromInventory(String name) {
-        inventory.removeIf(obj -> obj.getName().toLowerCase().contains(name.toLowerCase()));
+        boolean changed;
+        writeLock.lock();
+        try {
+            changed = inventory.deleteMatching(name);
+            if (changed) {
+                publish();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        inventoryChanged(changed);
     }
 
     /**
@@ -69,23 +168,124 @@ public class Player {
      * @param object O objeto a ser removido.
      */
     public void removeFromInventory(GameObject object) {
-        inventory.remove(object);
+        boolean changed;
+        writeLock.lock();
+        try {
+            changed = inventory.delete(object);
+            if (changed) {
+                publish();
+            }
+        } finally {
+            writeLock.unlock();
+        }
+        inventoryChanged(changed);
+    }
+
+    /**
+     * Notifica os ouvintes se o inventário mudou.
+     */
+    private void inventoryChanged(boolean changed) {
+        if (!changed) {
+            return;
+        }
+        for (PlayerListener listener : listeners) {
+            listener.inventoryChanged(this);
+        }
     }
 
     /**
-     * Retorna um objeto do inventário com base no nome.
+     * Registra um ouvinte para as mudanças de cenário e de inventário do jogador.
+     *
+     * @param listener O ouvinte a ser registrado.
+     */
+    public void addListener(PlayerListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Remove um ouvinte registrado.
+     *
+     * @param listener O ouvinte a ser removido.
+     */
+    public void removeListener(PlayerListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Retorna o primeiro objeto do inventário cujo nome contém o trecho informado. Para a thread de comandos.
      *
      * @param name O nome do objeto a ser procurado.
      * @return O objeto correspondente ou null se não encontrado.
      */
     public GameObject getFromInventory(String name) {
-        name = name.toLowerCase();
-        for (GameObject obj : inventory) {
-            if (obj.getName().contains(name)) {
-                return obj;
+        return inventory.find(name);
+    }
+
+    /**
+     * Retorna um objeto do inventário pelo id. Para a thread de comandos.
+     *
+     * @param id O id do objeto.
+     * @return O objeto, ou {@code null} se ele não estiver no inventário.
+     */
+    public GameObject getFromInventory(int id) {
+        return inventory.get(id);
+    }
+
+    /**
+     * Retorna os objetos do cenário atual que o jogador consegue abrir ou trancar com as chaves que carrega,
+     * para dicas e interfaces. Cada objeto custa um teste de bit, qualquer que seja o tamanho do inventário.
+     * Para a thread de comandos: num mundo paginado, percorrer os objetos do cenário pode carregá-los no
+     * {@link ObjectRegistry}, que só a sessão altera.
+     *
+     * @return Os objetos com tranca cuja chave está no inventário, na ordem do cenário.
+     */
+    public List<GameObject> getOpenableLocks() {
+        List<GameObject> locks = new ArrayList<>();
+        if (currentScenario != null) {
+            for (GameObject object : currentScenario.getObjects()) {
+                if (object.canBeOpenedWith(inventory)) {
+                    locks.add(object);
+                }
             }
         }
-        return null;
+        return locks;
+    }
+
+    /**
+     * Substitui todo o estado do jogador, como ao carregar um jogo salvo.
+     * Os ouvintes são notificados da mudança de cenário e de inventário.
+     *
+     * @param current   O cenário atual.
+     * @param previous  Os cenários anteriores, do mais antigo ao mais recente.
+     * @param inventory O inventário.
+     */
+    public void restore(Scenario current, List<Scenario> previous, List<GameObject> inventory) {
+        Scenario before;
+        writeLock.lock();
+        try {
+            before = currentScenario;
+            currentScenario = current;
+            this.inventory.reset();
+            inventory.forEach(this.inventory::put);
+            publish();
+        } finally {
+            writeLock.unlock();
+        }
+        previousScenarios.clear();
+        previousScenarios.addAll(previous);
+        for (PlayerListener listener : listeners) {
+            listener.scenarioChanged(this, before, current);
+            listener.inventoryChanged(this);
+        }
+    }
+
+    /**
+     * Retorna os cenários anteriores sem alterá-los, do mais antigo ao mais recente.
+     *
+     * @return Uma cópia da pilha de cenários anteriores.
+     */
+    public List<Scenario> getPreviousScenarios() {
+        return new ArrayList<>(previousScenarios);
     }
 
     /**
@@ -108,11 +308,13 @@ public class Player {
     }
 
     /**
-     * Retorna a lista de GameObjects que estão no inventário do jogador.
+     * Retorna o inventário do jogador, em ordem de inserção. É uma visão somente de leitura, para a
+     * thread de comandos; para alterá-lo use {@link #addToInventory(GameObject)} e
+     * {@link #removeFromInventory(GameObject)}, e de outras threads use {@link #view()}.
      *
-     * @return A lista de objetos no inventário.
+     * @return O inventário.
      */
-    public ArrayList<GameObject> getInventory() {
+    public Inventory getInventory() {
         return inventory;
     }
-}
\ No newline at end of file
+}
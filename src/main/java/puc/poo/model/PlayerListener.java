@@ -0,0 +1,28 @@
+package puc.poo.model;
+
+/**
+ * Interface para quem precisa reagir a mudanças no estado do jogador
+ * (por exemplo, regras de percepção como o StagSpotter).
+ * <p>
+ * Os eventos são disparados pelo {@link Player} na thread que fez a mudança, logo após a mudança.
+ * Os métodos têm implementação vazia por padrão, para que cada ouvinte trate apenas o que lhe interessa.
+ * </p>
+ */
+public interface PlayerListener {
+
+    /**
+     * Chamado quando o jogador muda de cenário.
+     *
+     * @param player   O jogador.
+     * @param previous O cenário anterior, ou {@code null} se for o primeiro.
+     * @param current  O novo cenário atual.
+     */
+    default void scenarioChanged(Player player, Scenario previous, Scenario current) {}
+
+    /**
+     * Chamado quando um objeto entra ou sai do inventário do jogador.
+     *
+     * @param player O jogador.
+     */
+    default void inventoryChanged(Player player) {}
+}
@@ -1,7 +1,12 @@
 package puc.poo.model;
 
-import java.util.HashMap;
+import puc.poo.view.EncodedView;
+
+import java.util.Collection;
+import java.util.Collections;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.StampedLock;
 
 /**
  * Classe responsável pela criação dos cenários de um jogo.
@@ -22,14 +27,28 @@ import java.util.Map;
  * <li>{@code Scenario.getName()} - obtém o nome do cenário</li>
  * <li>{@code Scenario.getExit(String direction)} - obtém a saída do cenário a partir da direção fornecida</li>
  * </ul>
+ *
+ * <p>
+ * <b>Concorrência:</b> objetos e saídas ficam em mapas concorrentes, que podem ser percorridos de
+ * qualquer thread sem travas. O índice de nomes não é seguro para threads: é alterado sob a trava de
+ * escrita de um {@link StampedLock} próprio do cenário e consultado sob a trava de leitura. Uma busca
+ * só percorre os candidatos de um trigrama, então a trava fica com cada leitor por muito pouco tempo.
+ * </p>
+ * <p>
+ * O índice de nomes só é montado na primeira busca por nome, de modo que cenários nunca visitados
+ * (a maioria, num mundo grande) não pagam a sua memória.
+ * </p>
  */
 public class Scenario {
 
     private final String description;
     private final String imagePath;
+    private volatile EncodedView view; // Arte codificada, obtida na primeira exibição
     private final Map<String, GameObject> objects;
+    private volatile ObjectNameIndex objectIndex; // índice de nomes para buscas parciais, criado na primeira busca
+    private final StampedLock indexLock = new StampedLock(); // protege objectIndex
     private final String name;
-    private final Map<String, Scenario> exits = new HashMap<>(); // p/ guardar as saídas de cada cenário
+    private final Map<String, Scenario> exits = new ConcurrentHashMap<>(); // p/ guardar as saídas de cada cenário
 
     /**
      * Construtor para criar um novo cenário.
@@ -42,7 +61,17 @@ public class Scenario {
         this.name = name;
         this.description = description;
         this.imagePath = imagePath;
-        this.objects = new HashMap<>();
+        this.objects = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Construtor para criar o cenário de uma sessão a partir do template compartilhado do mundo.
+     * Os textos do template são usados sem cópia.
+     *
+     * @param template O template do cenário.
+     */
+    public Scenario(ScenarioTemplate template) {
+        this(template.name(), template.description(), template.imagePath());
     }
 
     /**
@@ -51,7 +80,19 @@ public class Scenario {
      * @param object O objeto do jogo a ser adicionado.
      */
     public void addObject(GameObject object) {
-        objects.put(object.getName(), object);
+        long stamp = indexLock.writeLock();
+        try {
+            GameObject replaced = objects.put(object.getName(), object);
+            ObjectNameIndex index = objectIndex;
+            if (index != null) {
+                if (replaced != null) {
+                    index.remove(replaced);
+                }
+                index.add(object);
+            }
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
     }
 
     /**
@@ -60,11 +101,20 @@ public class Scenario {
      * @param name O nome do objeto a ser removido.
      */
     public void removeObjectByName(String name) {
-        name = name.toLowerCase();
-        for (GameObject obj : objects.values()) {
-            if (obj.getName().contains(name)) {
-                objects.remove(obj);
+        name = ObjectNameIndex.normalize(name);
+        if (name.isEmpty()) {
+            return;
+        }
+        ObjectNameIndex index = index();
+        long stamp = indexLock.writeLock();
+        try {
+            GameObject obj;
+            while ((obj = index.find(name)) != null) {
+                objects.remove(obj.getName(), obj);
+                index.remove(obj);
             }
+        } finally {
+            indexLock.unlockWrite(stamp);
         }
     }
 
@@ -74,28 +124,96 @@ public class Scenario {
      * @param object O objeto do jogo a ser removido.
      */
     public void removeObject(GameObject object) {
-        objects.entrySet()
-                .stream()
-                .filter(entry -> entry.getValue().equals(object))
-                .map(Map.Entry::getKey)
-                .findFirst()
-                .ifPresent(objects::remove);
+        long stamp = indexLock.writeLock();
+        try {
+            ObjectNameIndex index = objectIndex;
+            if (objects.remove(object.getName(), object) && index != null) {
+                index.remove(object);
+            }
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
     }
 
     /**
-     * Obtém um objeto do cenário pelo nome.
+     * Obtém um objeto do cenário por qualquer trecho do seu nome (ex.: "chave" encontra "chave da cabana").
+     * A busca usa o índice de trigramas do cenário e só confere os objetos que têm o trigrama mais raro do trecho.
      *
      * @param name O nome do objeto a ser obtido.
      * @return O objeto do jogo, ou {@code null} se não encontrado.
      */
     public GameObject getObject(String name) {
-        name = name.toLowerCase();
-        for (GameObject obj : objects.values()) {
-            if (obj.getName().contains(name)) {
-                return obj;
+        String query = ObjectNameIndex.normalize(name);
+        ObjectNameIndex index = index();
+        long stamp = indexLock.readLock();
+        try {
+            return index.find(query);
+        } finally {
+            indexLock.unlockRead(stamp);
+        }
+    }
+
+    /**
+     * Retorna o índice de nomes, montando-o a partir dos objetos presentes na primeira vez.
+     */
+    private ObjectNameIndex index() {
+        ObjectNameIndex index = objectIndex;
+        if (index != null) {
+            return index;
+        }
+        long stamp = indexLock.writeLock();
+        try {
+            index = objectIndex;
+            if (index == null) {
+                index = new ObjectNameIndex();
+                for (GameObject object : objects.values()) {
+                    index.add(object);
+                }
+                objectIndex = index;
+            }
+            return index;
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Retorna os objetos presentes no cenário.
+     *
+     * @return Uma visão não modificável dos objetos do cenário.
+     */
+    public Collection<GameObject> getObjects() {
+        return Collections.unmodifiableCollection(objects.values());
+    }
+
+    /**
+     * Remove todos os objetos do cenário.
+     */
+    public void clearObjects() {
+        long stamp = indexLock.writeLock();
+        try {
+            objects.clear();
+            ObjectNameIndex index = objectIndex;
+            if (index != null) {
+                index.clear();
             }
+        } finally {
+            indexLock.unlockWrite(stamp);
+        }
+    }
+
+    /**
+     * Remove todos os objetos do cenário e descarta o índice de nomes, liberando a memória
+     * de um cenário que saiu da memória num mundo paginado.
+     */
+    protected void unloadObjects() {
+        long stamp = indexLock.writeLock();
+        try {
+            objects.clear();
+            objectIndex = null;
+        } finally {
+            indexLock.unlockWrite(stamp);
         }
-        return null;
     }
 
     /**
@@ -114,6 +232,15 @@ public class Scenario {
         return descriptionWithItems.toString();
     }
 
+    /**
+     * Obtém a descrição do cenário, sem a lista de objetos presentes.
+     *
+     * @return A descrição fixa do cenário.
+     */
+    public String getBaseDescription() {
+        return description;
+    }
+
     /**
      * Obtém o caminho da imagem do cenário.
      *
@@ -123,6 +250,20 @@ public class Scenario {
         return imagePath;
     }
 
+    /**
+     * Obtém a arte do cenário pronta para ser exibida, codificada uma vez e compartilhada.
+     *
+     * @return A arte do cenário.
+     */
+    public EncodedView getView() {
+        EncodedView encoded = view;
+        if (encoded == null) {
+            encoded = EncodedView.of(String.valueOf(imagePath));
+            view = encoded; // Mesmo fora do cache de EncodedView, a arte é codificada uma vez por cenário
+        }
+        return encoded;
+    }
+
     /**
      * Obtém o nome do cenário.
      *
@@ -151,4 +292,13 @@ public class Scenario {
     public Scenario getExit(String direction) {
         return exits.get(direction);
     }
+
+    /**
+     * Retorna as saídas do cenário.
+     *
+     * @return Uma visão não modificável das saídas, indexadas pela direção.
+     */
+    public Map<String, Scenario> getExits() {
+        return Collections.unmodifiableMap(exits);
+    }
 }
\ No newline at end of file
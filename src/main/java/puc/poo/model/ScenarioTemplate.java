@@ -0,0 +1,15 @@
+package puc.poo.model;
+
+/**
+ * Parte imutável de um cenário: o que é igual para todos os jogadores de um mundo.
+ * <p>
+ * Um template é criado uma vez por mundo e compartilhado pelas sessões; cada sessão cria o seu
+ * {@link Scenario} a partir dele, que só acrescenta o estado próprio da sessão (os objetos presentes).
+ * </p>
+ *
+ * @param name        O nome do cenário.
+ * @param description A descrição fixa do cenário.
+ * @param imagePath   A arte do cenário.
+ */
+public record ScenarioTemplate(String name, String description, String imagePath) {
+}
@@ -1,20 +1,33 @@
 package puc.poo.model;
 
-import java.util.Random;
-
 /**
  * Classe Stag representa um NPC (personagem não jogável) veado no jogo.
  * A classe gerencia o estado de vida do veado e se os chifres foram coletados.
  */
 public class Stag {
+    public static final String HUNTING_GROUND = "Floresta"; // Cenário onde o veado vive e pode ser abatido
+
     private final String nome = "veado";
-    private boolean alive; // Indica se o veado está vivo.
-    private boolean antlersCollected; // Indica se os chifres foram coletados.
+    private volatile boolean alive; // Indica se o veado está vivo. Volátil: lido pelo StagSpotter em outra thread.
+    private volatile boolean antlersCollected; // Indica se os chifres foram coletados.
+    private GameObject antlers; // Troféu deixado no cenário quando o veado morre
+    private final WorldRandom random; // Fonte de aleatoriedade do mundo, usada nos tiros
 
     /**
-     * Construtor padrão que inicializa o estado do veado como vivo e chifres não coletados.
+     * Construtor padrão que inicializa o estado do veado como vivo e chifres não coletados,
+     * com uma fonte de aleatoriedade de semente aleatória.
      */
     public Stag() {
+        this(new WorldRandom());
+    }
+
+    /**
+     * Construtor que inicializa o veado vivo, com chifres não coletados, usando a fonte de aleatoriedade do mundo.
+     *
+     * @param random A fonte de aleatoriedade do mundo.
+     */
+    public Stag(WorldRandom random) {
+        this.random = random;
         alive = true;
         antlersCollected = false;
     }
@@ -53,13 +66,49 @@ public class Stag {
         this.antlersCollected = true;
     }
 
+    /**
+     * Define se os chifres do veado foram coletados.
+     *
+     * @param antlersCollected Verdadeiro se os chifres foram coletados.
+     */
+    public void setAntlersCollected(boolean antlersCollected) {
+        this.antlersCollected = antlersCollected;
+    }
+
+    /**
+     * Retorna o objeto dos chifres, que aparece no cenário quando o veado é morto.
+     *
+     * @return O objeto dos chifres, ou {@code null} se não houver.
+     */
+    public GameObject getAntlers() {
+        return antlers;
+    }
+
+    /**
+     * Define o objeto dos chifres. Ele é criado junto com o mundo, no mesmo registro de objetos,
+     * em vez de ser instanciado durante o jogo.
+     *
+     * @param antlers O objeto dos chifres.
+     */
+    public void setAntlers(GameObject antlers) {
+        this.antlers = antlers;
+    }
+
+    /**
+     * Retorna a fonte de aleatoriedade do mundo, cujo estado faz parte dos jogos salvos.
+     *
+     * @return A fonte de aleatoriedade.
+     */
+    public WorldRandom getRandom() {
+        return random;
+    }
+
     /**
      * Tenta matar o veado com uma chance de 60%.
      *
      * @return Verdadeiro se o veado for morto, falso caso contrário.
      */
     public boolean tryToKill() {
-        Random random = new Random();
         // 60% de chance de morrer
         return random.nextDouble() < 0.6;
     }
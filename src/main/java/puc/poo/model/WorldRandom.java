@@ -0,0 +1,61 @@
+package puc.poo.model;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
+
+/**
+ * A classe WorldRandom é a fonte de números aleatórios de um mundo.
+ * <p>
+ * É um gerador SplitMix64: todo o estado cabe num único {@code long}, que avança uma constante a cada número
+ * sorteado. Por isso o estado pode ser gravado nos jogos salvos e restaurado, e um mundo criado com a mesma
+ * semente e os mesmos comandos chega sempre aos mesmos resultados (reexecução do diário, testes de carga).
+ * Não é seguro para uso por várias threads; cada mundo tem o seu.
+ * </p>
+ */
+public class WorldRandom implements RandomGenerator {
+    private static final long GOLDEN_GAMMA = 0x9E3779B97F4A7C15L;
+
+    private long state;
+
+    /**
+     * Construtor com semente aleatória.
+     */
+    public WorldRandom() {
+        this(ThreadLocalRandom.current().nextLong());
+    }
+
+    /**
+     * Construtor com semente definida, para resultados reproduzíveis.
+     *
+     * @param seed A semente.
+     */
+    public WorldRandom(long seed) {
+        this.state = seed;
+    }
+
+    @Override
+    public long nextLong() {
+        long z = (state += GOLDEN_GAMMA);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Retorna o estado atual do gerador, para ser gravado.
+     *
+     * @return O estado.
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * Restaura um estado gravado por {@link #getState()}.
+     *
+     * @param state O estado.
+     */
+    public void setState(long state) {
+        this.state = state;
+    }
+}
@@ -0,0 +1,284 @@
+package puc.poo.persistence;
+
+import puc.poo.controller.AmbientScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.zip.CRC32;
+
+/**
+ * A classe CommandJournal é o diário (write-ahead log) dos comandos aceitos numa sessão.
+ * <p>
+ * Cada registro é acrescentado a um buffer em memória; o primeiro registro de um lote agenda uma gravação
+ * no {@link AmbientScheduler} após a janela de lote, e todos os registros que chegarem até lá são gravados
+ * juntos no {@link FileChannel} com um único {@code force}. Assim uma queda perde no máximo uma janela
+ * de lote, sem o custo de um fsync por comando.
+ * </p>
+ * <p>
+ * Se a gravação agendada falhar, o lote se perde e o diário deixa de ser uma continuação fiel do checkpoint:
+ * a falha é guardada, relatada pela próxima chamada a {@link #appendCommand(CharSequence)} ou {@link #flush()},
+ * e o diário recusa novos registros até o próximo {@link #reset(long)}, feito junto com um novo checkpoint.
+ * </p>
+ *
+ * <pre>
+ * diário   := MAGIC:int epoch:long registro*
+ * registro := tipo:byte tamanho:varint dados crc32:int
+ * </pre>
+ * <p>
+ * O tipo é {@code 'C'} para um comando (texto UTF-8); outros tipos são ignorados na leitura.
+ * O epoch liga o diário ao checkpoint do qual ele continua.
+ * Na leitura, um registro incompleto ou com CRC inválido no fim do arquivo (gravação interrompida) é descartado.
+ * </p>
+ */
+public class CommandJournal implements AutoCloseable {
+    public static final long DEFAULT_BATCH_WINDOW_MILLIS = 50;
+
+    private static final int MAGIC = 0x4A57414C; // "JWAL"
+    private static final int HEADER_SIZE = Integer.BYTES + Long.BYTES;
+    private static final byte COMMAND = 'C';
+
+    /**
+     * Conteúdo de um diário: os comandos na ordem em que foram aceitos.
+     *
+     * @param epoch    O epoch do checkpoint ao qual o diário pertence.
+     * @param commands Os comandos gravados.
+     */
+    public record Contents(long epoch, List<String> commands) {}
+
+    private final FileChannel channel;
+    private final long batchWindowMillis;
+    private final ReentrantLock bufferLock = new ReentrantLock(); // Protege pending, flushScheduled e failure
+    private final ReentrantLock writeLock = new ReentrantLock(); // Serializa as gravações no arquivo
+    private ByteArrayOutputStream pending = new ByteArrayOutputStream();
+    private boolean flushScheduled;
+    private IOException failure; // Falha de uma gravação agendada, guardada até o próximo reset
+    private final CRC32 crc = new CRC32();
+
+    /**
+     * Abre (ou cria) o diário de uma sessão, descartando o conteúdo anterior e começando um novo epoch.
+     *
+     * @param file              O arquivo do diário.
+     * @param epoch             O epoch do checkpoint a partir do qual o diário continua.
+     * @param batchWindowMillis A janela de lote, em milissegundos.
+     * @throws IOException Se o arquivo não puder ser aberto.
+     */
+    public CommandJournal(Path file, long epoch, long batchWindowMillis) throws IOException {
+        this.channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        this.batchWindowMillis = batchWindowMillis;
+        reset(epoch);
+    }
+
+    /**
+     * Grava um comando aceito pelo processador de comandos.
+     *
+     * @param command O comando.
+     * @throws IOException Se uma gravação anterior falhou e o diário espera um novo checkpoint.
+     */
+    public void appendCommand(CharSequence command) throws IOException {
+        append(COMMAND, command.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private void append(byte type, byte[] data) throws IOException {
+        bufferLock.lock();
+        try {
+            checkFailure();
+            pending.write(type);
+            int length = data.length;
+            while ((length & ~0x7F) != 0) {
+                pending.write((length & 0x7F) | 0x80);
+                length >>>= 7;
+            }
+            pending.write(length);
+            pending.write(data, 0, data.length);
+            crc.reset();
+            crc.update(type);
+            crc.update(data);
+            int checksum = (int) crc.getValue();
+            pending.write(checksum >>> 24);
+            pending.write(checksum >>> 16);
+            pending.write(checksum >>> 8);
+            pending.write(checksum);
+
+            if (!flushScheduled) {
+                flushScheduled = true;
+                AmbientScheduler.shared().schedule(this::flushQuietly, batchWindowMillis, TimeUnit.MILLISECONDS);
+            }
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Grava no disco todos os registros pendentes, com um único {@code force}.
+     *
+     * @throws IOException Se a gravação falhar, agora ou numa gravação agendada anterior.
+     */
+    public void flush() throws IOException {
+        writeLock.lock();
+        try {
+            byte[] batch;
+            bufferLock.lock();
+            try {
+                checkFailure();
+                batch = pending.toByteArray();
+                pending.reset();
+                flushScheduled = false;
+            } finally {
+                bufferLock.unlock();
+            }
+            if (batch.length > 0 && channel.isOpen()) {
+                ByteBuffer buffer = ByteBuffer.wrap(batch);
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer, channel.size());
+                }
+                channel.force(false);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    // Gravação agendada: não há quem receba a exceção na thread do agendador, então ela fica para a próxima chamada
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (IOException e) {
+            bufferLock.lock();
+            try {
+                if (failure == null) {
+                    failure = e;
+                }
+            } finally {
+                bufferLock.unlock();
+            }
+        }
+    }
+
+    // Chamado com bufferLock
+    private void checkFailure() throws IOException {
+        if (failure != null) {
+            throw new IOException("Registros do diário não puderam ser gravados: " + failure.getMessage(), failure);
+        }
+    }
+
+    /**
+     * Indica se uma gravação agendada falhou desde o último {@link #reset(long)}, perdendo registros.
+     *
+     * @return Verdadeiro se o diário precisa de um novo checkpoint.
+     */
+    public boolean hasFailed() {
+        bufferLock.lock();
+        try {
+            return failure != null;
+        } finally {
+            bufferLock.unlock();
+        }
+    }
+
+    /**
+     * Descarta todo o diário e começa um novo epoch. Chamado logo após um checkpoint,
+     * que já contém o efeito de todos os registros anteriores, inclusive os de um lote que falhou.
+     *
+     * @param epoch O epoch do novo checkpoint.
+     * @throws IOException Se o arquivo não puder ser gravado.
+     */
+    public final void reset(long epoch) throws IOException {
+        writeLock.lock();
+        try {
+            bufferLock.lock();
+            try {
+                pending.reset();
+                failure = null;
+            } finally {
+                bufferLock.unlock();
+            }
+            channel.truncate(0);
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).putInt(MAGIC).putLong(epoch).flip();
+            while (header.hasRemaining()) {
+                channel.write(header, header.position());
+            }
+            channel.force(false);
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Grava os registros pendentes e fecha o arquivo.
+     *
+     * @throws IOException Se a gravação falhar.
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    /**
+     * Lê um diário gravado, ignorando um eventual registro incompleto no fim.
+     *
+     * @param file O arquivo do diário.
+     * @return O conteúdo do diário, ou {@code null} se o arquivo não existir ou não tiver cabeçalho válido.
+     * @throws IOException Se o arquivo não puder ser lido.
+     */
+    public static Contents read(Path file) throws IOException {
+        ByteBuffer data;
+        try (FileChannel in = FileChannel.open(file, StandardOpenOption.READ)) {
+            data = ByteBuffer.allocate((int) in.size());
+            while (data.hasRemaining() && in.read(data) >= 0) {
+                // Lê o arquivo inteiro
+            }
+            data.flip();
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        if (data.remaining() < HEADER_SIZE || data.getInt() != MAGIC) {
+            return null;
+        }
+        long epoch = data.getLong();
+
+        List<String> commands = new ArrayList<>();
+        CRC32 crc = new CRC32();
+        while (data.hasRemaining()) {
+            byte type = data.get();
+            int length = 0;
+            boolean complete = false;
+            for (int shift = 0; shift < 35 && data.hasRemaining(); shift += 7) {
+                int b = data.get() & 0xFF;
+                length |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) {
+                    complete = true;
+                    break;
+                }
+            }
+            if (!complete || length < 0 || data.remaining() < length + Integer.BYTES) {
+                break; // Registro incompleto: a gravação foi interrompida
+            }
+            byte[] record = new byte[length];
+            data.get(record);
+            crc.reset();
+            crc.update(type);
+            crc.update(record);
+            if (data.getInt() != (int) crc.getValue()) {
+                break; // Registro corrompido
+            }
+            if (type == COMMAND) {
+                commands.add(new String(record, StandardCharsets.UTF_8));
+            }
+        }
+        return new Contents(epoch, commands);
+    }
+}
@@ -0,0 +1,185 @@
+package puc.poo.persistence;
+
+import puc.poo.controller.CommandProcessor;
+import puc.poo.controller.ScenarioManager;
+import puc.poo.view.OutputSink;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+/**
+ * A classe DurableSession torna uma sessão de jogo recuperável após uma queda do processo.
+ * <p>
+ * O estado da sessão fica em dois arquivos: um checkpoint ({@code <sessão>.ckpt}, um {@link GameSnapshot}
+ * precedido do seu epoch) e o {@link CommandJournal} com os comandos aceitos desde esse checkpoint
+ * ({@code <sessão>.wal}). Na recuperação, o checkpoint é restaurado e os comandos do diário são reexecutados
+ * em silêncio até chegar ao ponto da queda. Um novo checkpoint é feito
+ * no início da sessão, a cada {@value #CHECKPOINT_INTERVAL} comandos, o que mantém o diário curto, e depois de
+ * um "carregar", que não vai para o diário.
+ * </p>
+ * <p>
+ * Um comando só entra no diário depois de executado sem erros. Se ainda assim um registro falhar na
+ * reexecução, ele é pulado; o checkpoint feito logo depois da recuperação o tira do diário.
+ * </p>
+ * <p>
+ * O epoch protege contra uma queda entre gravar o checkpoint e zerar o diário: um diário cujo epoch não é o
+ * do checkpoint já está contido nele e é ignorado.
+ * </p>
+ */
+public class DurableSession implements AutoCloseable {
+    private static final int CHECKPOINT_INTERVAL = 200; // Comandos entre dois checkpoints
+
+    private final ScenarioManager world;
+    private final CommandProcessor processor;
+    private final Path checkpointFile;
+    private final Path journalFile;
+    private CommandJournal journal;
+    private long epoch;
+    private int commandsSinceCheckpoint;
+    private boolean worldReplaced; // Um jogo salvo foi carregado desde o último checkpoint
+    private int skippedCommands; // Registros que falharam na última recuperação
+
+    /**
+     * Construtor da sessão durável.
+     *
+     * @param world     O mundo da sessão.
+     * @param processor O processador de comandos da sessão, cujos comandos serão gravados no diário.
+     * @param directory O diretório dos arquivos de sessão.
+     * @param sessionId O identificador da sessão (por exemplo, o nome do jogador).
+     */
+    public DurableSession(ScenarioManager world, CommandProcessor processor, Path directory, String sessionId) {
+        if (!SnapshotStore.isValidSlot(sessionId)) {
+            throw new IllegalArgumentException("Identificador de sessão inválido: " + sessionId);
+        }
+        this.world = world;
+        this.processor = processor;
+        this.checkpointFile = directory.resolve(sessionId + ".ckpt");
+        this.journalFile = directory.resolve(sessionId + ".wal");
+    }
+
+    /**
+     * Restaura a sessão anterior, se houver: aplica o último checkpoint e reexecuta o diário.
+     *
+     * @return Verdadeiro se uma sessão anterior foi recuperada.
+     * @throws IOException Se os arquivos da sessão não puderem ser lidos.
+     */
+    public boolean recover() throws IOException {
+        byte[] checkpoint;
+        try {
+            checkpoint = Files.readAllBytes(checkpointFile);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (checkpoint.length < Long.BYTES) {
+            throw new IOException("Checkpoint de sessão corrompido.");
+        }
+        epoch = ByteBuffer.wrap(checkpoint).getLong();
+        GameSnapshot.restore(world, Arrays.copyOfRange(checkpoint, Long.BYTES, checkpoint.length));
+
+        CommandJournal.Contents contents = CommandJournal.read(journalFile);
+        if (contents != null && contents.epoch() == epoch) {
+            replay(contents);
+        }
+        return true;
+    }
+
+    /**
+     * Reexecuta os comandos do diário em silêncio. Como o estado da {@link puc.poo.model.WorldRandom}
+     * faz parte do checkpoint, os tiros têm os mesmos resultados da sessão original. O processador da
+     * reexecução não tem jogos salvos, então a recuperação nunca lê nem grava esses arquivos.
+     */
+    private void replay(CommandJournal.Contents contents) {
+        CommandProcessor replayer = new CommandProcessor(world.getPlayer(), world.getScenarios(), OutputSink.silent());
+        replayer.setWorldGraph(processor.getWorldGraph());
+        for (String command : contents.commands()) {
+            try {
+                replayer.processCommand(command);
+            } catch (RuntimeException e) {
+                skippedCommands++; // Um registro que falha não pode impedir a sessão de ser retomada
+            }
+        }
+    }
+
+    /**
+     * Retorna quantos registros do diário falharam e foram pulados na última recuperação.
+     *
+     * @return O número de registros pulados.
+     */
+    public int getSkippedCommands() {
+        return skippedCommands;
+    }
+
+    /**
+     * Faz o checkpoint inicial e passa a gravar no diário os comandos da sessão.
+     *
+     * @throws IOException Se os arquivos da sessão não puderem ser gravados.
+     */
+    public void start() throws IOException {
+        Files.createDirectories(checkpointFile.getParent());
+        checkpoint();
+        processor.setJournal(journal);
+        processor.setLoadListener(() -> worldReplaced = true);
+    }
+
+    /**
+     * Deve ser chamado após cada comando; faz um novo checkpoint periodicamente, se um jogo salvo foi carregado
+     * ou se o diário perdeu registros numa gravação que falhou.
+     *
+     * @throws IOException Se o checkpoint não puder ser gravado.
+     */
+    public void afterCommand() throws IOException {
+        if (++commandsSinceCheckpoint >= CHECKPOINT_INTERVAL || worldReplaced || journal.hasFailed()) {
+            checkpoint();
+        }
+    }
+
+    /**
+     * Grava o estado atual num novo checkpoint e zera o diário.
+     *
+     * @throws IOException Se o checkpoint não puder ser gravado.
+     */
+    public void checkpoint() throws IOException {
+        epoch++;
+        byte[] snapshot = GameSnapshot.capture(world);
+        ByteBuffer checkpoint = ByteBuffer.allocate(Long.BYTES + snapshot.length).putLong(epoch).put(snapshot);
+        SnapshotStore.writeDurably(checkpointFile, checkpoint.array());
+        if (journal == null) {
+            journal = new CommandJournal(journalFile, epoch, CommandJournal.DEFAULT_BATCH_WINDOW_MILLIS);
+        } else {
+            journal.reset(epoch);
+        }
+        commandsSinceCheckpoint = 0;
+        worldReplaced = false;
+    }
+
+    /**
+     * Encerra a sessão de um jogo que terminou normalmente, apagando os seus arquivos.
+     *
+     * @throws IOException Se os arquivos não puderem ser apagados.
+     */
+    public void finish() throws IOException {
+        close();
+        Files.deleteIfExists(journalFile);
+        Files.deleteIfExists(checkpointFile);
+    }
+
+    /**
+     * Grava o que estiver pendente no diário e para de gravar.
+     * Os arquivos são mantidos para que a sessão possa ser retomada.
+     *
+     * @throws IOException Se o diário não puder ser gravado.
+     */
+    @Override
+    public void close() throws IOException {
+        processor.setJournal(null);
+        processor.setLoadListener(null);
+        if (journal != null) {
+            journal.close();
+            journal = null;
+        }
+    }
+}
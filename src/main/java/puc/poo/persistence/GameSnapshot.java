@@ -0,0 +1,521 @@
+package puc.poo.persistence;
+
+import puc.poo.controller.ImageWorld;
+import puc.poo.controller.ScenarioManager;
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectAction;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.Stag;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * A classe GameSnapshot grava e restaura o estado completo de um mundo num formato binário compacto e versionado.
+ * <p>
+ * O snapshot guarda apenas o que muda durante o jogo: cenário atual, pilha de cenários anteriores e inventário
+ * do jogador, estado do veado e da fonte de aleatoriedade do mundo, objetos presentes em cada cenário e o estado de cada objeto (aberto, conteúdo,
+ * ação). Nomes, descrições e saídas vêm da definição do mundo, então objetos são referenciados pelo id do
+ * {@link ObjectRegistry} e cenários pela posição na ordem de criação. Os inteiros são gravados como varints.
+ * </p>
+ *
+ * <pre>
+ * snapshot := MAGIC:int VERSION:byte objectCount scenarioCount
+ *             player stag scenario* object*
+ * player   := current previousCount previous* inventoryCount objectId*
+ * stag     := flags:byte randomState:long
+ * scenario := objectCount objectId*
+ * object   := flags:byte keyId [contentsCount objectId*] [actionCount]
+ * </pre>
+ * <p>
+ * Os cenários são gravados como índice + 1 (0 = nenhum). Snapshots da versão 1 não têm {@code randomState};
+ * ao carregá-los, a fonte de aleatoriedade continua de onde está. A restauração é feita sobre um mundo recém-criado
+ * a partir da mesma definição, que deve ter o mesmo número de objetos e de cenários. O snapshot é lido e conferido
+ * por inteiro antes de o mundo ser alterado, então um arquivo corrompido ou incompleto é recusado sem deixar o
+ * jogo restaurado pela metade.
+ * </p>
+ * <p>
+ * Mundos paginados ({@link ImageWorld}) usam a versão 3, que não percorre o mundo inteiro: guarda só as páginas
+ * ({@link ScenarioPage}) dos cenários que podem diferir da imagem e o estado dos objetos fora de cenários
+ * (inventário e troféu). Os demais cenários continuam como na imagem.
+ * </p>
+ *
+ * <pre>
+ * snapshot3 := MAGIC:int 3:byte objectCount scenarioCount stag pageCount (scenarioIndex length page)*
+ *              looseCount (objectId object)* player
+ * </pre>
+ */
+public final class GameSnapshot {
+    private static final int MAGIC = 0x4A4F474F; // "JOGO"
+    private static final byte VERSION = 2;
+    private static final byte VERSION_WITHOUT_RANDOM = 1;
+    private static final byte VERSION_PAGED = 3;
+
+    // Bits do estado do veado
+    private static final int STAG_ALIVE = 1;
+    private static final int STAG_ANTLERS_COLLECTED = 1 << 1;
+
+    // Bits do estado de cada objeto
+    private static final int OBJECT_OPEN = 1;
+    private static final int OBJECT_OPENABLE = 1 << 1;
+    private static final int OBJECT_STORABLE = 1 << 2;
+    private static final int OBJECT_STORAGE = 1 << 3;
+    private static final int OBJECT_HAS_CONTENTS = 1 << 4;
+    private static final int OBJECT_HAS_ACTION = 1 << 5;
+    private static final int ACTION_ACTIVE = 1 << 6;
+    private static final int CONDITION_SATISFIED = 1 << 7;
+
+    private GameSnapshot() {}
+
+    /**
+     * Grava o estado atual do mundo.
+     *
+     * @param world O mundo a ser gravado.
+     * @return Os bytes do snapshot.
+     */
+    public static byte[] capture(ScenarioManager world) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(512);
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            if (world.getImageWorld() != null) {
+                writePaged(world, world.getImageWorld(), out);
+            } else {
+                write(world, out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Não acontece ao gravar em memória
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restaura um snapshot sobre o mundo informado.
+     *
+     * @param world    O mundo, criado a partir da mesma definição do snapshot.
+     * @param snapshot Os bytes do snapshot.
+     * @throws IOException Se o snapshot estiver corrompido ou não pertencer a este mundo.
+     */
+    public static void restore(ScenarioManager world, byte[] snapshot) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Arquivo não é um jogo salvo.");
+        }
+        int version = in.readByte();
+        if (version == VERSION_PAGED) {
+            if (world.getImageWorld() == null) {
+                throw new IOException("O jogo salvo pertence a um mundo compilado numa imagem.");
+            }
+            readPaged(world, world.getImageWorld(), in);
+        } else if (version == VERSION || version == VERSION_WITHOUT_RANDOM) {
+            ImageWorld paged = world.getImageWorld();
+            if (paged != null && paged.scenarioCount() > paged.getResidentLimit()) {
+                throw new IOException("O jogo salvo é de uma versão antiga, que não pode ser carregada num mundo "
+                        + "maior que o limite de cenários na memória.");
+            }
+            read(world, version, in);
+        } else {
+            throw new IOException("Versão de jogo salvo não suportada: " + version);
+        }
+    }
+
+    private static void write(ScenarioManager world, DataOutput out) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>(world.getScenarios().values());
+        ObjectRegistry registry = world.getRegistry();
+        Player player = world.getPlayer();
+        Stag stag = world.getStag();
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION);
+        writeVarInt(out, registry.size());
+        writeVarInt(out, scenarios.size());
+
+        // Jogador
+        writeVarInt(out, scenarios.indexOf(player.getCurrentScenario()) + 1);
+        List<Scenario> previous = player.getPreviousScenarios();
+        writeVarInt(out, previous.size());
+        for (Scenario scenario : previous) {
+            writeVarInt(out, scenarios.indexOf(scenario) + 1);
+        }
+        writeObjectIds(out, player.getInventory());
+
+        // Veado
+        writeStag(out, stag);
+
+        // Objetos presentes em cada cenário
+        for (Scenario scenario : scenarios) {
+            writeObjectIds(out, scenario.getObjects());
+        }
+
+        // Estado de cada objeto, na ordem dos ids
+        for (int id = 1; id <= registry.size(); id++) {
+            writeObject(out, registry.get(id));
+        }
+    }
+
+    private static void writePaged(ScenarioManager world, ImageWorld paged, DataOutput out) throws IOException {
+        ObjectRegistry registry = world.getRegistry();
+        Player player = world.getPlayer();
+        Stag stag = world.getStag();
+
+        out.writeInt(MAGIC);
+        out.writeByte(VERSION_PAGED);
+        writeVarInt(out, registry.size());
+        writeVarInt(out, paged.scenarioCount());
+        writeStag(out, stag);
+
+        // Cenários que podem diferir da imagem
+        Map<Integer, byte[]> pages = paged.modifiedPages();
+        writeVarInt(out, pages.size());
+        for (Map.Entry<Integer, byte[]> page : pages.entrySet()) {
+            writeVarInt(out, page.getKey());
+            writeVarInt(out, page.getValue().length);
+            out.write(page.getValue());
+        }
+
+        // Objetos fora de cenários
+        List<GameObject> loose = new ArrayList<>();
+        ScenarioPage.collect(player.getInventory(), loose);
+        if (stag.getAntlers() != null && !loose.contains(stag.getAntlers())) {
+            loose.add(stag.getAntlers());
+        }
+        writeVarInt(out, loose.size());
+        for (GameObject object : loose) {
+            writeVarInt(out, object.getId());
+            writeObject(out, object);
+        }
+
+        // Jogador
+        writeVarInt(out, paged.indexOf(player.getCurrentScenario()) + 1);
+        List<Scenario> previous = player.getPreviousScenarios();
+        writeVarInt(out, previous.size());
+        for (Scenario scenario : previous) {
+            writeVarInt(out, paged.indexOf(scenario) + 1);
+        }
+        writeObjectIds(out, player.getInventory());
+    }
+
+    private static void writeStag(DataOutput out, Stag stag) throws IOException {
+        int stagFlags = 0;
+        if (stag.isAlive()) stagFlags |= STAG_ALIVE;
+        if (stag.areAntlersCollected()) stagFlags |= STAG_ANTLERS_COLLECTED;
+        out.writeByte(stagFlags);
+        out.writeLong(stag.getRandom().getState());
+    }
+
+    static void writeObject(DataOutput out, GameObject object) throws IOException {
+        ObjectAction action = object.getAction();
+        int flags = 0;
+        if (object.isOpen()) flags |= OBJECT_OPEN;
+        if (object.isOpenable()) flags |= OBJECT_OPENABLE;
+        if (object.isStorable()) flags |= OBJECT_STORABLE;
+        if (object.isStorage()) flags |= OBJECT_STORAGE;
+        if (object.hasContentList()) flags |= OBJECT_HAS_CONTENTS;
+        if (action != null) {
+            flags |= OBJECT_HAS_ACTION;
+            if (action.isActive()) flags |= ACTION_ACTIVE;
+            if (action.getCondition() != null && action.getCondition().isSatisfied()) flags |= CONDITION_SATISFIED;
+        }
+        out.writeByte(flags);
+        writeVarInt(out, object.getKeyId());
+        if (object.hasContentList()) {
+            int count = object.getContentCount();
+            writeVarInt(out, count);
+            for (int i = 0; i < count; i++) {
+                writeVarInt(out, object.getContentAt(i).getId());
+            }
+        }
+        if (action != null) {
+            writeVarInt(out, action.getActionCount());
+        }
+    }
+
+    private static void read(ScenarioManager world, int version, DataInput in) throws IOException {
+        List<Scenario> scenarios = new ArrayList<>(world.getScenarios().values());
+        ObjectRegistry registry = world.getRegistry();
+
+        if (readVarInt(in) != registry.size() || readVarInt(in) != scenarios.size()) {
+            throw new IOException("O jogo salvo pertence a outro mundo.");
+        }
+
+        // Jogador
+        Scenario current = readScenario(in, scenarios);
+        if (current == null) {
+            throw new IOException("O jogo salvo não tem cenário atual.");
+        }
+        int previousCount = readCount(in);
+        List<Scenario> previous = new ArrayList<>(Math.min(previousCount, 64));
+        for (int i = 0; i < previousCount; i++) {
+            Scenario scenario = readScenario(in, scenarios);
+            if (scenario == null) {
+                throw new IOException("Cenário inválido no jogo salvo: 0"); // "voltar" não tem para onde ir
+            }
+            previous.add(scenario);
+        }
+        List<GameObject> inventory = readObjectIds(in, registry);
+
+        // Veado
+        int stagFlags = in.readByte();
+        long randomState = version != VERSION_WITHOUT_RANDOM ? in.readLong() : 0;
+
+        // Objetos presentes em cada cenário
+        List<List<GameObject>> located = new ArrayList<>(scenarios.size());
+        for (int i = 0; i < scenarios.size(); i++) {
+            located.add(readObjectIds(in, registry));
+        }
+
+        // Estado de cada objeto
+        List<ObjectState> states = new ArrayList<>(registry.size());
+        for (int id = 1; id <= registry.size(); id++) {
+            states.add(readObject(in, registry, registry.get(id)));
+        }
+
+        // O snapshot foi lido por inteiro: só agora o mundo é alterado
+        Stag stag = world.getStag();
+        stag.setAlive((stagFlags & STAG_ALIVE) != 0);
+        stag.setAntlersCollected((stagFlags & STAG_ANTLERS_COLLECTED) != 0);
+        if (version != VERSION_WITHOUT_RANDOM) {
+            stag.getRandom().setState(randomState);
+        }
+        for (int i = 0; i < scenarios.size(); i++) {
+            Scenario scenario = scenarios.get(i);
+            scenario.clearObjects();
+            located.get(i).forEach(scenario::addObject);
+        }
+        states.forEach(ObjectState::apply);
+
+        // Por último, para que os ouvintes do jogador vejam o mundo já restaurado
+        world.getPlayer().restore(current, previous, inventory);
+    }
+
+    private static void readPaged(ScenarioManager world, ImageWorld paged, DataInputStream in) throws IOException {
+        ObjectRegistry registry = world.getRegistry();
+        if (readVarInt(in) != registry.size() || readVarInt(in) != paged.scenarioCount()) {
+            throw new IOException("O jogo salvo pertence a outro mundo.");
+        }
+        int stagFlags = in.readByte();
+        long randomState = in.readLong();
+
+        Map<Integer, byte[]> pages = new TreeMap<>();
+        for (int i = 0, count = readCount(in); i < count; i++) {
+            int index = readVarInt(in);
+            if (index < 0 || index >= paged.scenarioCount()) {
+                throw new IOException("Cenário inválido no jogo salvo: " + index);
+            }
+            int length = readCount(in);
+            if (length > in.available()) {
+                throw new IOException("Jogo salvo incompleto.");
+            }
+            byte[] page = new byte[length];
+            in.readFully(page);
+            ScenarioPage.check(page, registry); // Senão, só falharia quando o cenário fosse montado
+            pages.put(index, page);
+        }
+
+        // Objetos fora de cenários
+        int looseCount = readCount(in);
+        List<ObjectState> loose = new ArrayList<>(Math.min(looseCount, 64));
+        for (int i = 0; i < looseCount; i++) {
+            int id = readVarInt(in);
+            GameObject object = registry.get(id);
+            if (object == null) {
+                throw new IOException("Objeto inválido no jogo salvo: " + id);
+            }
+            loose.add(readObject(in, registry, object));
+        }
+
+        // Jogador
+        int current = readScenarioIndex(in, paged.scenarioCount());
+        if (current == 0) {
+            throw new IOException("O jogo salvo não tem cenário atual.");
+        }
+        int previousCount = readCount(in);
+        int[] previousIndexes = new int[Math.min(previousCount, 64)];
+        for (int i = 0; i < previousCount; i++) {
+            if (i == previousIndexes.length) {
+                previousIndexes = Arrays.copyOf(previousIndexes, i * 2);
+            }
+            previousIndexes[i] = readScenarioIndex(in, paged.scenarioCount());
+            if (previousIndexes[i] == 0) {
+                throw new IOException("Cenário inválido no jogo salvo: 0"); // "voltar" não tem para onde ir
+            }
+        }
+        List<GameObject> inventory = readObjectIds(in, registry);
+
+        // O snapshot foi lido e as páginas conferidas: só agora o mundo é alterado
+        Stag stag = world.getStag();
+        stag.setAlive((stagFlags & STAG_ALIVE) != 0);
+        stag.setAntlersCollected((stagFlags & STAG_ANTLERS_COLLECTED) != 0);
+        stag.getRandom().setState(randomState);
+        paged.reset(pages);
+        loose.forEach(ObjectState::apply);
+        List<Scenario> previous = new ArrayList<>(previousCount);
+        for (int i = 0; i < previousCount; i++) {
+            previous.add(paged.lazyScenario(previousIndexes[i] - 1)); // Montados só se o jogador voltar a eles
+        }
+        Scenario scenario;
+        try {
+            scenario = paged.scenario(current - 1);
+        } catch (UncheckedIOException e) {
+            throw e.getCause(); // Página que não pôde ser lida do armazenamento
+        }
+        world.getPlayer().restore(scenario, previous, inventory);
+    }
+
+    private static int readScenarioIndex(DataInput in, int scenarioCount) throws IOException {
+        int index = readVarInt(in);
+        if (index < 0 || index > scenarioCount) {
+            throw new IOException("Cenário inválido no jogo salvo: " + index);
+        }
+        return index;
+    }
+
+    /**
+     * Estado de um objeto lido de um snapshot ou de uma página, já conferido mas ainda não aplicado,
+     * para que um arquivo corrompido seja recusado antes de alterar o mundo.
+     */
+    record ObjectState(GameObject object, int flags, int keyId, List<GameObject> contents, int actionCount) {
+
+        /**
+         * Aplica o estado ao objeto.
+         */
+        void apply() {
+            object.setOpen((flags & OBJECT_OPEN) != 0);
+            object.setAsOpenable((flags & OBJECT_OPENABLE) != 0);
+            object.setStorable((flags & OBJECT_STORABLE) != 0);
+            object.setStorage((flags & OBJECT_STORAGE) != 0);
+            object.setKeyId(keyId);
+            object.setContents(contents);
+            if ((flags & OBJECT_HAS_ACTION) != 0) {
+                ObjectAction action = object.getAction();
+                action.setActive((flags & ACTION_ACTIVE) != 0);
+                if (action.getCondition() != null) {
+                    action.getCondition().setSatisfied((flags & CONDITION_SATISFIED) != 0);
+                }
+                action.setActionCount(actionCount);
+            }
+        }
+    }
+
+    /**
+     * Lê o estado de um objeto gravado por {@link #writeObject(DataOutput, GameObject)}, sem alterá-lo.
+     *
+     * @return O estado lido, a ser aplicado com {@link ObjectState#apply()}.
+     * @throws IOException Se o estado estiver corrompido ou não servir para o objeto deste mundo.
+     */
+    static ObjectState readObject(DataInput in, ObjectRegistry registry, GameObject object) throws IOException {
+        int flags = in.readUnsignedByte();
+        int keyId = readVarInt(in);
+        if (keyId < 0 || keyId > registry.size()) {
+            throw new IOException("Chave inválida no jogo salvo: " + keyId);
+        }
+        List<GameObject> contents = (flags & OBJECT_HAS_CONTENTS) != 0 ? readObjectIds(in, registry) : null;
+        int actionCount = 0;
+        if ((flags & OBJECT_HAS_ACTION) != 0) {
+            if (object.getAction() == null) {
+                throw new IOException("O objeto " + object.getId() + " não possui ação neste mundo.");
+            }
+            actionCount = readVarInt(in);
+        }
+        return new ObjectState(object, flags, keyId, contents, actionCount);
+    }
+
+    /**
+     * Pula um objeto gravado por {@link #writeObject(DataOutput, GameObject)}, lendo só se ele está aberto.
+     *
+     * @return Verdadeiro se o objeto é abrível e está aberto.
+     */
+    static boolean skipObject(DataInput in) throws IOException {
+        int flags = in.readUnsignedByte();
+        readVarInt(in);
+        if ((flags & OBJECT_HAS_CONTENTS) != 0) {
+            for (int i = 0, count = readVarInt(in); i < count; i++) {
+                readVarInt(in);
+            }
+        }
+        if ((flags & OBJECT_HAS_ACTION) != 0) {
+            readVarInt(in);
+        }
+        int open = OBJECT_OPEN | OBJECT_OPENABLE;
+        return (flags & open) == open;
+    }
+
+    private static Scenario readScenario(DataInput in, List<Scenario> scenarios) throws IOException {
+        int index = readVarInt(in);
+        if (index < 0 || index > scenarios.size()) {
+            throw new IOException("Cenário inválido no jogo salvo: " + index);
+        }
+        return index == 0 ? null : scenarios.get(index - 1);
+    }
+
+    private static void writeObjectIds(DataOutput out, Iterable<GameObject> objects) throws IOException {
+        int count = 0;
+        for (GameObject ignored : objects) {
+            count++;
+        }
+        writeVarInt(out, count);
+        for (GameObject object : objects) {
+            writeVarInt(out, object.getId());
+        }
+    }
+
+    static List<GameObject> readObjectIds(DataInput in, ObjectRegistry registry) throws IOException {
+        int count = readCount(in);
+        List<GameObject> objects = new ArrayList<>(Math.min(count, 64)); // Um tamanho corrompido acaba no fim do arquivo
+        for (int i = 0; i < count; i++) {
+            int id = readVarInt(in);
+            GameObject object = registry.get(id);
+            if (object == null) {
+                throw new IOException("Objeto inválido no jogo salvo: " + id);
+            }
+            objects.add(object);
+        }
+        return objects;
+    }
+
+    // Um tamanho de lista; os que não cabem num int positivo só vêm de um arquivo corrompido
+    private static int readCount(DataInput in) throws IOException {
+        int count = readVarInt(in);
+        if (count < 0) {
+            throw new IOException("Tamanho inválido no jogo salvo: " + count);
+        }
+        return count;
+    }
+
+    /**
+     * Grava um inteiro não negativo em 1 a 5 bytes (7 bits por byte).
+     */
+    static void writeVarInt(DataOutput out, int value) throws IOException {
+        while ((value & ~0x7F) != 0) {
+            out.writeByte((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out.writeByte(value);
+    }
+
+    /**
+     * Lê um inteiro gravado por {@link #writeVarInt(DataOutput, int)}.
+     */
+    static int readVarInt(DataInput in) throws IOException {
+        int value = 0;
+        for (int shift = 0; shift < 35; shift += 7) {
+            int b = in.readUnsignedByte();
+            value |= (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint inválido no jogo salvo.");
+    }
+}
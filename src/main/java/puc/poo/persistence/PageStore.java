@@ -0,0 +1,144 @@
+package puc.poo.persistence;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A interface PageStore guarda o estado dos cenários modificados que saíram da memória
+ * ({@link ScenarioPage}), indexado pelo índice do cenário no mundo.
+ * <p>
+ * Cada sessão de um mundo paginado tem o seu armazenamento. Ele só existe enquanto a sessão roda:
+ * o que precisa sobreviver a uma falha vai para os jogos salvos e checkpoints, que incluem estas páginas.
+ * </p>
+ */
+public interface PageStore {
+
+    /**
+     * Lê a página de um cenário.
+     *
+     * @param scenario O índice do cenário.
+     * @return Os bytes da página, ou {@code null} se o cenário nunca foi gravado.
+     * @throws IOException Se a leitura falhar.
+     */
+    byte[] read(int scenario) throws IOException;
+
+    /**
+     * Grava a página de um cenário, substituindo a anterior.
+     *
+     * @param scenario O índice do cenário.
+     * @param page     Os bytes da página.
+     * @throws IOException Se a gravação falhar.
+     */
+    void write(int scenario, byte[] page) throws IOException;
+
+    /**
+     * Lê todas as páginas gravadas, em ordem de índice.
+     *
+     * @return As páginas, pelo índice do cenário.
+     * @throws IOException Se a leitura falhar.
+     */
+    Map<Integer, byte[]> readAll() throws IOException;
+
+    /**
+     * Descarta todas as páginas.
+     *
+     * @throws IOException Se os arquivos não puderem ser removidos.
+     */
+    void clear() throws IOException;
+
+    /**
+     * Cria um armazenamento em memória. As páginas são bem menores que os cenários montados,
+     * então ainda liberam a maior parte da memória; é o padrão.
+     *
+     * @return O armazenamento.
+     */
+    static PageStore inMemory() {
+        return new PageStore() {
+            private final Map<Integer, byte[]> pages = new ConcurrentHashMap<>();
+
+            @Override
+            public byte[] read(int scenario) {
+                return pages.get(scenario);
+            }
+
+            @Override
+            public void write(int scenario, byte[] page) {
+                pages.put(scenario, page);
+            }
+
+            @Override
+            public Map<Integer, byte[]> readAll() {
+                return new TreeMap<>(pages);
+            }
+
+            @Override
+            public void clear() {
+                pages.clear();
+            }
+        };
+    }
+
+    /**
+     * Cria um armazenamento em arquivos, um por cenário ({@code <índice>.page}), para sessões
+     * que modificam mais cenários do que cabe na memória.
+     *
+     * @param directory O diretório das páginas, exclusivo da sessão.
+     * @return O armazenamento.
+     */
+    static PageStore directory(Path directory) {
+        return new PageStore() {
+            @Override
+            public byte[] read(int scenario) throws IOException {
+                try {
+                    return Files.readAllBytes(file(scenario));
+                } catch (NoSuchFileException e) {
+                    return null;
+                }
+            }
+
+            @Override
+            public void write(int scenario, byte[] page) throws IOException {
+                Files.createDirectories(directory);
+                Files.write(file(scenario), page);
+            }
+
+            @Override
+            public Map<Integer, byte[]> readAll() throws IOException {
+                Map<Integer, byte[]> pages = new TreeMap<>();
+                if (Files.isDirectory(directory)) {
+                    try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.page")) {
+                        for (Path file : files) {
+                            String name = file.getFileName().toString();
+                            pages.put(Integer.parseInt(name.substring(0, name.length() - 5)), Files.readAllBytes(file));
+                        }
+                    } catch (NumberFormatException e) {
+                        throw new IOException("Página de cenário com nome inválido em " + directory, e);
+                    }
+                }
+                return pages;
+            }
+
+            @Override
+            public void clear() throws IOException {
+                if (!Files.isDirectory(directory)) {
+                    return;
+                }
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*.page")) {
+                    for (Path file : files) {
+                        Files.deleteIfExists(file);
+                    }
+                }
+            }
+
+            private Path file(int scenario) {
+                return directory.resolve(scenario + ".page");
+            }
+        };
+    }
+}
@@ -0,0 +1,148 @@
+package puc.poo.persistence;
+
+import puc.poo.model.GameObject;
+import puc.poo.model.ObjectRegistry;
+import puc.poo.model.Scenario;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.function.BiConsumer;
+
+/**
+ * A classe ScenarioPage grava e restaura o estado de um único cenário: os objetos presentes nele e o estado
+ * de cada objeto que está no cenário, direta ou indiretamente (dentro de outros objetos).
+ * <p>
+ * É usada pelos mundos paginados para tirar da memória um cenário modificado e montá-lo de novo quando
+ * o jogador voltar, e pelos jogos salvos desses mundos. Os objetos usam a mesma codificação do {@link GameSnapshot}.
+ * </p>
+ *
+ * <pre>
+ * página := objectCount objectId* stateCount (objectId object)*
+ * </pre>
+ */
+public final class ScenarioPage {
+
+    private ScenarioPage() {}
+
+    /**
+     * Grava o estado atual de um cenário.
+     *
+     * @param scenario O cenário.
+     * @return Os bytes da página.
+     */
+    public static byte[] encode(Scenario scenario) {
+        Collection<GameObject> objects = scenario.getObjects();
+        List<GameObject> located = new ArrayList<>();
+        collect(objects, located);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(16 + 8 * located.size());
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            GameSnapshot.writeVarInt(out, objects.size());
+            for (GameObject object : objects) {
+                GameSnapshot.writeVarInt(out, object.getId());
+            }
+            GameSnapshot.writeVarInt(out, located.size());
+            for (GameObject object : located) {
+                GameSnapshot.writeVarInt(out, object.getId());
+                GameSnapshot.writeObject(out, object);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // Não acontece ao gravar em memória
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * Restaura o estado de um cenário gravado por {@link #encode(Scenario)}. A página é lida por inteiro
+     * antes de o cenário ser alterado.
+     *
+     * @param scenario O cenário, recém-criado.
+     * @param registry O registro dos objetos do mundo.
+     * @param page     Os bytes da página.
+     * @throws IOException Se a página estiver corrompida ou não pertencer a este mundo.
+     */
+    public static void apply(Scenario scenario, ObjectRegistry registry, byte[] page) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(page));
+        List<GameObject> objects = GameSnapshot.readObjectIds(in, registry);
+        List<GameSnapshot.ObjectState> states = readStates(in, registry);
+        scenario.clearObjects();
+        objects.forEach(scenario::addObject);
+        states.forEach(GameSnapshot.ObjectState::apply);
+    }
+
+    /**
+     * Confere uma página sem aplicá-la, como ao carregar um jogo salvo cujas páginas só serão aplicadas
+     * quando os seus cenários forem montados.
+     *
+     * @param page     Os bytes da página.
+     * @param registry O registro dos objetos do mundo.
+     * @throws IOException Se a página estiver corrompida ou não pertencer a este mundo.
+     */
+    static void check(byte[] page, ObjectRegistry registry) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(page));
+        GameSnapshot.readObjectIds(in, registry);
+        readStates(in, registry);
+    }
+
+    private static List<GameSnapshot.ObjectState> readStates(DataInputStream in, ObjectRegistry registry)
+            throws IOException {
+        int count = GameSnapshot.readVarInt(in);
+        List<GameSnapshot.ObjectState> states = new ArrayList<>(Math.min(Math.max(count, 0), 64));
+        for (int i = 0; i < count; i++) {
+            int id = GameSnapshot.readVarInt(in);
+            GameObject object = registry.get(id);
+            if (object == null) {
+                throw new IOException("Objeto inválido na página do cenário: " + id);
+            }
+            states.add(GameSnapshot.readObject(in, registry, object));
+        }
+        return states;
+    }
+
+    /**
+     * Lê de uma página só o estado de abertura de cada objeto, sem montar o cenário nem os objetos.
+     * Usado para saber quais portas estão abertas em cenários que não estão na memória.
+     *
+     * @param page     Os bytes da página.
+     * @param consumer Recebe o id de cada objeto e se ele é abrível e está aberto.
+     * @throws IOException Se a página estiver corrompida.
+     */
+    public static void readOpenings(byte[] page, BiConsumer<Integer, Boolean> consumer) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(page));
+        for (int i = 0, count = GameSnapshot.readVarInt(in); i < count; i++) {
+            GameSnapshot.readVarInt(in);
+        }
+        for (int i = 0, count = GameSnapshot.readVarInt(in); i < count; i++) {
+            int id = GameSnapshot.readVarInt(in);
+            consumer.accept(id, GameSnapshot.skipObject(in));
+        }
+    }
+
+    /**
+     * Junta numa lista os objetos informados e tudo o que está dentro deles, em profundidade.
+     *
+     * @param objects Os objetos.
+     * @param into    A lista que recebe os objetos.
+     */
+    public static void collect(Collection<GameObject> objects, List<GameObject> into) {
+        for (GameObject object : objects) {
+            into.add(object);
+            collectContents(object, into);
+        }
+    }
+
+    // Percorre o conteúdo pelos ids do registro, sem copiá-lo
+    private static void collectContents(GameObject object, List<GameObject> into) {
+        for (int i = 0, count = object.getContentCount(); i < count; i++) {
+            GameObject content = object.getContentAt(i);
+            into.add(content);
+            collectContents(content, into);
+        }
+    }
+}
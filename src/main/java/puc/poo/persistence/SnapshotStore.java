@@ -0,0 +1,110 @@
+package puc.poo.persistence;
+
+import puc.poo.controller.ScenarioManager;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.regex.Pattern;
+
+/**
+ * A classe SnapshotStore grava e carrega jogos salvos ({@link GameSnapshot}) de um mundo em arquivos
+ * de um diretório, um arquivo por nome de jogo salvo ({@code <nome>.sav}).
+ * A gravação é feita num arquivo temporário que depois substitui o anterior, para que uma falha
+ * no meio da gravação nunca deixe um jogo salvo corrompido.
+ */
+public class SnapshotStore {
+    public static final String DEFAULT_SLOT = "jogo";
+    private static final Pattern SLOT_NAME = Pattern.compile("[\\p{L}\\p{N}_-]{1,64}");
+
+    private final ScenarioManager world;
+    private final Path directory;
+
+    /**
+     * Construtor do armazenamento.
+     *
+     * @param world     O mundo cujo estado será salvo e carregado.
+     * @param directory O diretório dos arquivos de jogos salvos.
+     */
+    public SnapshotStore(ScenarioManager world, Path directory) {
+        this.world = world;
+        this.directory = directory;
+    }
+
+    /**
+     * Verifica se um nome pode ser usado como nome de jogo salvo (letras, números, "_" e "-").
+     *
+     * @param slot O nome a ser verificado.
+     * @return Verdadeiro se o nome for válido.
+     */
+    public static boolean isValidSlot(String slot) {
+        return slot != null && SLOT_NAME.matcher(slot).matches();
+    }
+
+    /**
+     * Salva o estado atual do mundo.
+     *
+     * @param slot O nome do jogo salvo.
+     * @throws IOException Se não for possível gravar o arquivo.
+     */
+    public void save(String slot) throws IOException {
+        Files.createDirectories(directory);
+        writeDurably(fileOf(slot), GameSnapshot.capture(world));
+    }
+
+    /**
+     * Grava um arquivo de forma atômica e durável: os dados vão para um arquivo temporário,
+     * que é sincronizado com o disco e então move-se sobre o arquivo final.
+     *
+     * @param file O arquivo final.
+     * @param data O conteúdo a ser gravado.
+     * @throws IOException Se a gravação falhar.
+     */
+    static void writeDurably(Path file, byte[] data) throws IOException {
+        Path temporary = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(data);
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        }
+        try {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Carrega um jogo salvo sobre o mundo.
+     *
+     * @param slot O nome do jogo salvo.
+     * @return Verdadeiro se o jogo foi carregado, falso se não existir um jogo salvo com esse nome.
+     * @throws IOException Se o arquivo não puder ser lido ou estiver corrompido.
+     */
+    public boolean load(String slot) throws IOException {
+        byte[] snapshot;
+        try {
+            snapshot = Files.readAllBytes(fileOf(slot));
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        GameSnapshot.restore(world, snapshot);
+        return true;
+    }
+
+    private Path fileOf(String slot) {
+        if (!isValidSlot(slot)) {
+            throw new IllegalArgumentException("Nome de jogo salvo inválido: " + slot);
+        }
+        return directory.resolve(slot + ".sav");
+    }
+}
@@ -0,0 +1,98 @@
+package puc.poo.server;
+
+import puc.poo.Game;
+import puc.poo.controller.WorldTemplate;
+import puc.poo.model.WorldRandom;
+import puc.poo.persistence.SnapshotStore;
+import puc.poo.view.OutputSink;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.Scanner;
+import java.util.Set;
+
+/**
+ * A classe ClientSession executa um jogo completo para uma conexão do {@link GameServer}.
+ * Cada sessão tem o seu próprio {@link Game} (jogador, veado e cenários) e usa o socket
+ * como entrada e saída. A sessão termina quando o jogo acaba ou o cliente desconecta.
+ * O nome do jogador identifica a sessão: ao reconectar com o mesmo nome, o jogo interrompido é retomado,
+ * e "salvar"/"carregar" usam um diretório só desse nome.
+ */
+public class ClientSession implements Runnable {
+    private final Socket socket;
+    private final Set<String> activePlayers; // Nomes dos jogadores conectados ao servidor
+    private final Long seed; // Semente base do servidor, ou null para sementes aleatórias
+    private final WorldTemplate world; // Parte imutável do mundo, compartilhada pelas sessões
+    private final boolean ansi; // Se o cliente é um terminal ANSI com a cena fixa no topo
+    private final boolean fast; // Se as pausas de narração são ignoradas
+
+    /**
+     * Construtor da sessão.
+     *
+     * @param socket        A conexão do jogador.
+     * @param activePlayers Os nomes dos jogadores conectados, compartilhados entre as sessões do servidor.
+     * @param seed          A semente base do servidor; cada jogador recebe uma semente derivada do seu nome.
+     *                      {@code null} para uma semente aleatória por sessão.
+     * @param world         O template do mundo, compartilhado por todas as sessões.
+     * @param ansi          Se a saída deve usar a tela ANSI, que reenvia só o que muda na cena.
+     * @param fast          Se as pausas de narração devem ser ignoradas.
+     */
+    public ClientSession(Socket socket, Set<String> activePlayers, Long seed, WorldTemplate world, boolean ansi,
+                         boolean fast) {
+        this.socket = socket;
+        this.activePlayers = activePlayers;
+        this.seed = seed;
+        this.world = world;
+        this.ansi = ansi;
+        this.fast = fast;
+    }
+
+    /**
+     * Joga uma partida pela conexão, sem o tutorial interativo do terminal.
+     */
+    @Override
+    public void run() {
+        try (socket;
+             Scanner input = new Scanner(socket.getInputStream(), StandardCharsets.UTF_8)) {
+            OutputSink out = OutputSink.socket(socket, ansi);
+            out.setPaced(!fast);
+            out.println("BEM-VINDO AO JOGO DO CAÇADOR! Use \"ajuda\" para listar os comandos.");
+            String name = askPlayerName(input, out);
+            if (name == null) {
+                return;
+            }
+            try {
+                WorldRandom random = seed == null ? new WorldRandom() : new WorldRandom(seed + name.hashCode());
+                new Game(input, out, name, random, world, true).play();
+            } finally {
+                activePlayers.remove(name);
+            }
+        } catch (IOException e) {
+            // Conexão perdida: a sessão simplesmente termina
+        }
+    }
+
+    /**
+     * Pergunta o nome do jogador até receber um nome válido que não esteja em uso.
+     *
+     * @return O nome, já reservado em {@code activePlayers}, ou {@code null} se a conexão acabar.
+     */
+    private String askPlayerName(Scanner input, OutputSink out) {
+        while (true) {
+            out.print("Nome do jogador: ");
+            out.flush();
+            if (!input.hasNextLine()) {
+                return null;
+            }
+            String name = input.nextLine().trim();
+            if (!SnapshotStore.isValidSlot(name)) {
+                out.println("Use apenas letras, números, \"_\" e \"-\".");
+            } else if (!activePlayers.add(name)) {
+                out.println("Já existe um jogador conectado com esse nome.");
+            } else {
+                return name;
+            }
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package puc.poo.server;
+
+import puc.poo.controller.WorldImage;
+import puc.poo.controller.WorldTemplate;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketException;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * A classe GameServer hospeda várias sessões de jogo simultâneas num único processo.
+ * <p>
+ * O servidor escuta numa porta TCP de loopback e, para cada conexão aceita, cria uma
+ * {@link ClientSession} com seu próprio jogador, veado e estado dos cenários, executada numa thread virtual.
+ * A parte imutável do mundo (textos, artes, saídas) é montada uma vez num {@link WorldTemplate}
+ * e compartilhada por todas as sessões.
+ * Leituras bloqueantes do socket e as pausas de narração apenas desmontam a thread virtual,
+ * sem prender as threads portadoras, então milhares de jogadores cabem em poucas threads do sistema.
+ * </p>
+ */
+public class GameServer implements AutoCloseable {
+    public static final int DEFAULT_PORT = 4000;
+    private static final int BACKLOG = 16384; // Conexões pendentes aceitas pelo sistema operacional
+
+    private final ServerSocket serverSocket;
+    private final ExecutorService sessions = Executors.newVirtualThreadPerTaskExecutor();
+    private final Set<String> activePlayers = ConcurrentHashMap.newKeySet(); // Um jogador por nome
+    private final Long seed; // Semente base das sessões, ou null para sementes aleatórias
+    private final WorldTemplate world; // Parte imutável do mundo, montada uma vez e compartilhada pelas sessões
+    private final boolean ansi; // Se as sessões usam a tela ANSI
+    private final boolean fast; // Se as sessões ignoram as pausas de narração
+
+    /**
+     * Construtor que abre o servidor na interface de loopback.
+     *
+     * @param port A porta TCP a ser usada (0 para escolher uma porta livre).
+     * @throws IOException Se não for possível abrir a porta.
+     */
+    public GameServer(int port) throws IOException {
+        this(port, null, null, false, false);
+    }
+
+    /**
+     * Construtor que abre o servidor na interface de loopback com uma semente fixa,
+     * de modo que o mesmo jogador com os mesmos comandos tenha sempre os mesmos resultados.
+     *
+     * @param port A porta TCP a ser usada (0 para escolher uma porta livre).
+     * @param seed  A semente base das sessões, ou {@code null} para sementes aleatórias.
+     * @param world O mundo compilado jogado por todas as sessões, ou {@code null} para o mundo padrão.
+     * @param ansi  Se as sessões usam a tela ANSI, que reenvia só o que muda na cena.
+     * @param fast  Se as sessões ignoram as pausas de narração, para clientes com roteiro.
+     * @throws IOException Se não for possível abrir a porta.
+     */
+    public GameServer(int port, Long seed, WorldImage world, boolean ansi, boolean fast) throws IOException {
+        serverSocket = new ServerSocket(port, BACKLOG, InetAddress.getLoopbackAddress());
+        this.seed = seed;
+        this.ansi = ansi;
+        this.fast = fast;
+        this.world = world != null ? new WorldTemplate(world) : WorldTemplate.defaultWorld();
+    }
+
+    /**
+     * Retorna a porta em que o servidor está escutando.
+     *
+     * @return A porta local do servidor.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Aceita conexões até o servidor ser fechado, iniciando uma sessão por conexão.
+     *
+     * @throws IOException Se ocorrer um erro ao aceitar conexões.
+     */
+    public void serve() throws IOException {
+        while (!serverSocket.isClosed()) {
+            Socket socket;
+            try {
+                socket = serverSocket.accept();
+            } catch (SocketException e) {
+                if (serverSocket.isClosed()) {
+                    return; // Servidor fechado
+                }
+                throw e;
+            }
+            sessions.submit(new ClientSession(socket, activePlayers, seed, world, ansi, fast));
+        }
+    }
+
+    /**
+     * Fecha o servidor e interrompe as sessões ativas.
+     *
+     * @throws IOException Se ocorrer um erro ao fechar a porta.
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        sessions.shutdownNow();
+    }
+
+    /**
+     * Inicia o servidor.
+     *
+     * @param args Opcionalmente, a porta (padrão {@value #DEFAULT_PORT}), a semente base das sessões
+     *             ("-" para sementes aleatórias) e o arquivo de um mundo compilado. {@code --ansi}, em
+     *             qualquer posição, liga a tela ANSI para todas as sessões; {@code --fast} desliga as
+     *             pausas de narração.
+     * @throws IOException Se não for possível abrir a porta ou o mundo.
+     */
+    public static void main(String[] args) throws IOException {
+        boolean ansi = Arrays.asList(args).contains("--ansi");
+        boolean fast = Arrays.asList(args).contains("--fast");
+        args = Arrays.stream(args).filter(arg -> !arg.equals("--ansi") && !arg.equals("--fast")).toArray(String[]::new);
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Long seed = args.length > 1 && !args[1].equals("-") ? Long.valueOf(args[1]) : null;
+        WorldImage world = args.length > 2 ? WorldImage.open(Path.of(args[2])) : null;
+        try (GameServer server = new GameServer(port, seed, world, ansi, fast)) {
+            System.out.println("Servidor do jogo escutando em localhost:" + server.getPort());
+            server.serve();
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package puc.poo.server;
+
+import puc.poo.controller.BatchRunner;
+import puc.poo.controller.CommandProcessor;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A classe LoadGenerator abre muitas sessões simultâneas contra um {@link GameServer} local,
+ * cada uma numa thread virtual, e envia o roteiro completo do jogo ({@link BatchRunner#WALKTHROUGH}) por todas elas.
+ * <p>
+ * O roteiro é enviado de uma vez, sem esperar as respostas, então o resultado de cada sessão é conferido
+ * na saída recebida: a sessão só conta como vitória se a mensagem de vitória chegou. As demais terminaram
+ * sem vitória (por exemplo, o veado escapou de todos os tiros) e são contadas à parte.
+ * </p>
+ * <p>
+ * Uso: {@code LoadGenerator [sessões] [porta]} (padrão: 10000 sessões na porta {@value GameServer#DEFAULT_PORT}).
+ * Para 10 mil conexões o limite de arquivos abertos do sistema ({@code ulimit -n}) deve ser maior que 20 mil,
+ * pois cliente e servidor usam um descritor por conexão cada.
+ * </p>
+ */
+public class LoadGenerator {
+    private static final byte[] VICTORY = CommandProcessor.VICTORY_MESSAGE.getBytes(StandardCharsets.UTF_8);
+    private static final int[] VICTORY_FALLBACK = fallback(VICTORY);
+
+    private final int port;
+    private final AtomicInteger completed = new AtomicInteger();
+    private final AtomicInteger won = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private final AtomicLong bytesReceived = new AtomicLong();
+
+    /**
+     * Construtor do gerador de carga.
+     *
+     * @param port A porta do servidor local.
+     */
+    public LoadGenerator(int port) {
+        this.port = port;
+    }
+
+    /**
+     * Executa as sessões simultaneamente e espera todas terminarem.
+     *
+     * @param sessions O número de sessões simultâneas.
+     * @param script   Os comandos enviados por cada sessão, após o nome do jogador ("bot-" + número).
+     */
+    public void run(int sessions, List<String> script) {
+        byte[] payload = (String.join("\n", script) + "\n").getBytes(StandardCharsets.UTF_8);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int i = 0; i < sessions; i++) {
+                byte[] name = ("bot-" + i + "\n").getBytes(StandardCharsets.UTF_8);
+                executor.submit(() -> playSession(name, payload));
+            }
+        }
+    }
+
+    private void playSession(byte[] name, byte[] payload) {
+        try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), port)) {
+            OutputStream output = socket.getOutputStream();
+            output.write(name);
+            output.write(payload);
+            output.flush();
+
+            InputStream input = socket.getInputStream();
+            byte[] buffer = new byte[8192];
+            long received = 0;
+            int matched = 0; // Bytes da mensagem de vitória já reconhecidos, inclusive entre leituras
+            int read;
+            while ((read = input.read(buffer)) != -1) {
+                received += read;
+                for (int i = 0; i < read && matched < VICTORY.length; i++) {
+                    while (matched > 0 && buffer[i] != VICTORY[matched]) {
+                        matched = VICTORY_FALLBACK[matched - 1];
+                    }
+                    if (buffer[i] == VICTORY[matched]) {
+                        matched++;
+                    }
+                }
+            }
+            bytesReceived.addAndGet(received);
+            completed.incrementAndGet();
+            if (matched == VICTORY.length) {
+                won.incrementAndGet();
+            }
+        } catch (IOException e) {
+            failed.incrementAndGet();
+        }
+    }
+
+    // Para cada prefixo do padrão, o tamanho do maior prefixo que também é sufixo dele (Knuth-Morris-Pratt)
+    private static int[] fallback(byte[] pattern) {
+        int[] fallback = new int[pattern.length];
+        for (int i = 1, length = 0; i < pattern.length; i++) {
+            while (length > 0 && pattern[i] != pattern[length]) {
+                length = fallback[length - 1];
+            }
+            if (pattern[i] == pattern[length]) {
+                length++;
+            }
+            fallback[i] = length;
+        }
+        return fallback;
+    }
+
+    public int getCompleted() {
+        return completed.get();
+    }
+
+    public int getWon() {
+        return won.get();
+    }
+
+    public int getFailed() {
+        return failed.get();
+    }
+
+    public long getBytesReceived() {
+        return bytesReceived.get();
+    }
+
+    /**
+     * Inicia o gerador de carga contra um servidor já em execução.
+     *
+     * @param args Opcionalmente, o número de sessões e a porta.
+     */
+    public static void main(String[] args) {
+        int sessions = args.length > 0 ? Integer.parseInt(args[0]) : 10_000;
+        int port = args.length > 1 ? Integer.parseInt(args[1]) : GameServer.DEFAULT_PORT;
+
+        LoadGenerator generator = new LoadGenerator(port);
+        long start = System.nanoTime();
+        generator.run(sessions, BatchRunner.WALKTHROUGH);
+        long elapsedMillis = (System.nanoTime() - start) / 1_000_000;
+
+        System.out.printf("Sessões: %d concluídas (vitórias: %d, sem vitória: %d), %d com falha, em %d ms (%d KiB recebidos)%n",
+                generator.getCompleted(), generator.getWon(), generator.getCompleted() - generator.getWon(),
+                generator.getFailed(), elapsedMillis, generator.getBytesReceived() / 1024);
+    }
+}
@@ -0,0 +1,114 @@
+package puc.poo.view;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+
+/**
+ * A classe AnsiScreen mantém o modelo da tela de um terminal ANSI para uma sessão e atualiza
+ * apenas o que mudou na cena (arte e descrição do cenário).
+ * <p>
+ * A tela é dividida em duas regiões: a cena, fixa no topo, e abaixo dela o registro das mensagens,
+ * que rola sozinho (região de rolagem do terminal). Ao mostrar uma cena, cada linha é comparada com a
+ * que está na tela e só o trecho entre o primeiro e o último caractere diferentes é reescrito, com o
+ * cursor posicionado por sequências de escape. Repetir "olhar" ou pegar um objeto envia apenas a linha
+ * da lista de itens que mudou, em vez da arte e da descrição inteiras.
+ * </p>
+ */
+final class AnsiScreen {
+    private static final String CSI = "\u001B[";
+    private static final String SAVE_CURSOR = "\u001B7";
+    private static final String RESTORE_CURSOR = "\u001B8";
+    private static final int MIN_LOG_ROWS = 6; // Linhas mínimas para as mensagens abaixo da cena
+
+    private final PrintStream out;
+    private final int rows;
+    private final StringBuilder frame = new StringBuilder(1024); // Reutilizado a cada atualização
+    private String[] art = new String[0];
+    private String[] description = new String[0];
+    private String[] shown; // Linhas da cena na tela, ou null antes da primeira cena
+
+    /**
+     * Construtor da tela.
+     *
+     * @param out  O stream que recebe a tela (o buffer da saída da sessão).
+     * @param rows O número de linhas do terminal.
+     */
+    AnsiScreen(PrintStream out, int rows) {
+        this.out = out;
+        this.rows = rows;
+    }
+
+    /**
+     * Troca a arte da cena e atualiza a tela.
+     */
+    void showView(EncodedView view) {
+        art = view.lines();
+        render();
+    }
+
+    /**
+     * Troca a descrição da cena e atualiza a tela.
+     */
+    void showDescription(String text) {
+        description = text.split("\n", -1);
+        render();
+    }
+
+    /**
+     * Troca a arte e a descrição da cena e atualiza a tela uma única vez.
+     */
+    void showScene(EncodedView view, String text) {
+        art = view.lines();
+        description = text.split("\n", -1);
+        render();
+    }
+
+    private void render() {
+        int height = Math.min(art.length + description.length, Math.max(rows - MIN_LOG_ROWS, 1));
+        String[] scene = new String[height];
+        for (int i = 0; i < height; i++) {
+            scene[i] = i < art.length ? art[i] : description[i - art.length];
+        }
+        if (Arrays.equals(scene, shown)) {
+            return;
+        }
+        frame.setLength(0);
+        frame.append(SAVE_CURSOR);
+        boolean first = shown == null;
+        if (first) {
+            frame.append(CSI).append("2J");
+            shown = new String[0];
+        }
+        for (int i = 0; i < Math.max(height, shown.length); i++) {
+            String line = i < height ? scene[i] : "";
+            String old = i < shown.length ? shown[i] : "";
+            if (!first && line.equals(old)) {
+                continue;
+            }
+            int start = 0;
+            while (start < line.length() && start < old.length() && line.charAt(start) == old.charAt(start)) {
+                start++;
+            }
+            int end = line.length();
+            if (line.length() == old.length()) {
+                while (end > start && line.charAt(end - 1) == old.charAt(end - 1)) {
+                    end--;
+                }
+            }
+            frame.append(CSI).append(i + 1).append(';').append(start + 1).append('H');
+            frame.append(line, start, end);
+            if (line.length() < old.length()) {
+                frame.append(CSI).append('K'); // Apaga o resto da linha anterior
+            }
+        }
+        if (height != shown.length) {
+            // A região de rolagem começa abaixo da cena; definir a região leva o cursor ao início da tela
+            frame.append(CSI).append(height + 1).append(';').append(rows).append('r');
+            frame.append(CSI).append(rows).append(";1H");
+        } else {
+            frame.append(RESTORE_CURSOR);
+        }
+        shown = scene;
+        out.print(frame); // Enviado junto com o resto do comando no flush da saída
+    }
+}
@@ -0,0 +1,80 @@
+package puc.poo.view;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A classe EncodedView guarda a arte ASCII de um cenário já codificada em UTF-8, pronta para ser escrita.
+ * <p>
+ * As artes têm vários kilobytes e são mostradas a cada mudança de cenário. Cada arte distinta é codificada
+ * uma única vez por processo ({@link #of(String)}) e compartilhada por todas as sessões; a
+ * {@link OutputSink} entrega ao destino o próprio array, sem codificar, copiar nem alocar a cada exibição.
+ * Passado o limite do cache, as artes novas não são compartilhadas, mas cada cenário ainda guarda a sua.
+ * </p>
+ */
+public final class EncodedView {
+    private static final int MAX_CACHED_VIEWS = 1024; // Mundos com artes geradas não enchem o cache
+    private static final Map<String, EncodedView> CACHE = new ConcurrentHashMap<>();
+    private static final byte[] LINE_SEPARATOR = System.lineSeparator().getBytes(StandardCharsets.UTF_8);
+
+    private final String text;
+    private final byte[] line; // Texto em UTF-8 seguido da quebra de linha, nunca alterado
+    private volatile String[] lines; // Linhas da arte, separadas na primeira vez que uma tela ANSI as usa
+
+    private EncodedView(String text) {
+        this.text = text;
+        byte[] encoded = text.getBytes(StandardCharsets.UTF_8);
+        this.line = new byte[encoded.length + LINE_SEPARATOR.length];
+        System.arraycopy(encoded, 0, line, 0, encoded.length);
+        System.arraycopy(LINE_SEPARATOR, 0, line, encoded.length, LINE_SEPARATOR.length);
+    }
+
+    /**
+     * Retorna a arte codificada, do cache se ela já foi usada.
+     *
+     * @param text A arte.
+     * @return A arte codificada.
+     */
+    public static EncodedView of(String text) {
+        EncodedView view = CACHE.get(text);
+        if (view == null) {
+            view = new EncodedView(text);
+            if (CACHE.size() < MAX_CACHED_VIEWS) {
+                EncodedView cached = CACHE.putIfAbsent(text, view);
+                if (cached != null) {
+                    view = cached;
+                }
+            }
+        }
+        return view;
+    }
+
+    /**
+     * Retorna a arte como texto.
+     *
+     * @return O texto da arte.
+     */
+    public String text() {
+        return text;
+    }
+
+    /**
+     * Retorna as linhas da arte. O array não deve ser alterado.
+     */
+    String[] lines() {
+        String[] split = lines;
+        if (split == null) {
+            split = text.split("\n", -1);
+            lines = split;
+        }
+        return split;
+    }
+
+    /**
+     * Retorna os bytes da arte seguidos da quebra de linha. O array não deve ser alterado.
+     */
+    byte[] line() {
+        return line;
+    }
+}
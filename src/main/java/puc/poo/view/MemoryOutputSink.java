@@ -0,0 +1,36 @@
+package puc.poo.view;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A classe MemoryOutputSink guarda na memória o texto de uma sessão, para testes e bots que precisam
+ * ler as respostas do jogo. O texto fica disponível a cada {@link #flush()}, ou seja, ao fim de cada
+ * comando. As pausas de narração são ignoradas.
+ */
+public class MemoryOutputSink extends OutputSink {
+    private final ByteArrayOutputStream sent;
+
+    public MemoryOutputSink() {
+        this(new ByteArrayOutputStream());
+    }
+
+    private MemoryOutputSink(ByteArrayOutputStream sent) {
+        super(sent, StandardCharsets.UTF_8, false, 0);
+        this.sent = sent;
+    }
+
+    /**
+     * Retorna o texto enviado desde a última chamada e o descarta.
+     *
+     * @return O texto enviado.
+     */
+    public String drain() {
+        flush();
+        synchronized (sent) { // As escritas no ByteArrayOutputStream também usam o seu monitor
+            String text = sent.toString(StandardCharsets.UTF_8);
+            sent.reset();
+            return text;
+        }
+    }
+}
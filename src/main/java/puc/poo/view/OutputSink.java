@@ -0,0 +1,429 @@
+package puc.poo.view;
+
+import puc.poo.controller.AmbientScheduler;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.net.Socket;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A classe OutputSink é o destino de todo o texto produzido por uma sessão de jogo.
+ * <p>
+ * O processador de comandos, os objetos, as ações e o StagSpotter escrevem aqui em vez de usar
+ * {@code System.out} diretamente, de modo que cada sessão (o terminal local ou uma conexão do servidor)
+ * tenha a sua própria saída. As pausas de narração também passam por aqui.
+ * </p>
+ * <p>
+ * O texto fica num buffer da sessão e só é enviado ao destino em {@link #flush()}, chamado uma vez por
+ * comando (e antes de esperar a entrada do jogador ou de uma pausa de narração). Assim, um comando que
+ * escreve dezenas de linhas gera uma única descarga no terminal ou no socket. O que um comando escreve é
+ * uma sequência de trechos: o texto do buffer e, entre eles, as artes de cenário, cujos bytes vêm do cache
+ * ({@link EncodedView}) e vão ao destino no próprio array, sem passar pelo buffer. Há saídas para o terminal
+ * ({@link #console()}), para uma conexão ({@link #socket(Socket, boolean)}) e para a memória
+ * ({@link #memory()}), usada por testes e bots.
+ * </p>
+ * <p>
+ * As pausas de narração não bloqueiam a sessão: {@link #pause(long)} só marca que o texto seguinte deve
+ * sair mais tarde. O que for escrito depois da pausa entra numa fila com o instante de entrega e é enviado
+ * pelo {@link AmbientScheduler}, enquanto a sessão já lê e processa o próximo comando. O jogador vê o
+ * mesmo ritmo de antes; no modo rápido ({@link #setPaced(boolean)}) as pausas são ignoradas.
+ * </p>
+ * <p>
+ * <b>Concorrência:</b> o buffer, a tela e a fila de narração são protegidos por um {@link ReentrantLock},
+ * e não por {@code synchronized}, que nas versões 21 a 23 do JDK prende a thread virtual à thread
+ * portadora. O texto liberado passa para uma caixa de saída, em ordem, e a escrita no destino, seja de um
+ * {@link #flush()}, de um {@link #announce(String)} ou de uma narração entregue pelo agendador, é feita
+ * depois de soltar essa trava, sob uma segunda trava só de escrita. Assim, um cliente lento atrasa apenas
+ * quem escreve no socket, sem impedir a sessão nem os avisos de continuarem escrevendo no buffer.
+ * </p>
+ */
+public class OutputSink {
+    public static final int DEFAULT_TERMINAL_ROWS = 40; // Linhas assumidas quando o terminal não informa
+    private final OutputStream target; // Destino do texto, escrito a cada flush
+    private final ByteArrayOutputStream buffer = new ByteArrayOutputStream(4096); // Texto do comando atual
+    private final ArrayList<byte[]> parts = new ArrayList<>(); // Trechos do comando atual já fechados, antes do buffer
+    private final PrintStream out; // Escreve no buffer
+    private volatile boolean paced; // Se falso, as pausas de narração são ignoradas (modo rápido)
+    private final boolean utf8; // Se a saída usa UTF-8, as artes pré-codificadas são escritas direto
+    private final AnsiScreen screen; // Tela com atualização incremental da cena, ou null para texto corrido
+    private final ArrayDeque<Narration> pending = new ArrayDeque<>(); // Trechos aguardando a entrega, em ordem
+    private long releaseAt = System.nanoTime(); // Instante a partir do qual o próximo trecho pode sair
+    private ScheduledFuture<?> delivery; // Entrega agendada do primeiro trecho da fila, se houver
+    private final ArrayDeque<byte[][]> outbox = new ArrayDeque<>(); // Textos liberados, aguardando a escrita, em ordem
+    private final ReentrantLock lock = new ReentrantLock(); // Protege o buffer, a tela, a fila e a caixa de saída
+    private final ReentrantLock writeLock = new ReentrantLock(); // Serializa as escritas no destino
+
+    /**
+     * Construtor que direciona a saída para um {@link PrintStream}, no charset dele.
+     *
+     * @param out O stream que receberá o texto da sessão.
+     */
+    public OutputSink(PrintStream out) {
+        this(out, out.charset(), true, 0);
+    }
+
+    /**
+     * Construtor para as saídas especializadas.
+     *
+     * @param target   O destino do texto, ou {@code null} para descartá-lo sem passar pelo buffer.
+     * @param charset  A codificação do texto.
+     * @param paced    Se as pausas de narração devem ser respeitadas.
+     * @param ansiRows O número de linhas do terminal ANSI, ou 0 para texto corrido.
+     */
+    protected OutputSink(OutputStream target, Charset charset, boolean paced, int ansiRows) {
+        this.target = target;
+        this.out = new PrintStream(target != null ? buffer : OutputStream.nullOutputStream(), false, charset);
+        this.paced = paced;
+        this.utf8 = charset.equals(StandardCharsets.UTF_8);
+        this.screen = ansiRows > 0 ? new AnsiScreen(out, ansiRows) : null;
+    }
+
+    /**
+     * Cria uma saída ligada ao terminal ({@code System.out}).
+     *
+     * @return A saída do terminal.
+     */
+    public static OutputSink console() {
+        return new OutputSink(System.out, System.out.charset(), true, 0);
+    }
+
+    /**
+     * Cria uma saída para um terminal ANSI: a arte e a descrição do cenário ficam fixas no topo da tela
+     * e só as partes que mudam são reenviadas; as demais mensagens rolam abaixo delas.
+     * Reduz muito os bytes enviados em conexões lentas.
+     *
+     * @param out  O stream do terminal.
+     * @param rows O número de linhas do terminal.
+     * @return A saída com tela ANSI.
+     */
+    public static OutputSink ansi(PrintStream out, int rows) {
+        return new OutputSink(out, out.charset(), true, rows);
+    }
+
+    /**
+     * Cria uma saída que envia o texto da sessão por uma conexão, em UTF-8.
+     *
+     * @param socket A conexão do jogador.
+     * @param ansi   Se o cliente é um terminal ANSI com a cena fixa no topo.
+     * @return A saída da conexão.
+     * @throws IOException Se a conexão já estiver fechada.
+     */
+    public static OutputSink socket(Socket socket, boolean ansi) throws IOException {
+        return new OutputSink(socket.getOutputStream(), StandardCharsets.UTF_8, true,
+                ansi ? DEFAULT_TERMINAL_ROWS : 0);
+    }
+
+    /**
+     * Cria uma saída que guarda o texto na memória e não faz pausas.
+     *
+     * @return A saída em memória.
+     */
+    public static MemoryOutputSink memory() {
+        return new MemoryOutputSink();
+    }
+
+    /**
+     * Cria uma saída que descarta todo o texto e não faz pausas,
+     * usada para reexecutar comandos (por exemplo, ao recuperar uma sessão do diário).
+     *
+     * @return A saída silenciosa.
+     */
+    public static OutputSink silent() {
+        return new OutputSink(null, StandardCharsets.UTF_8, false, 0); // Nada se acumula, mesmo sem flush
+    }
+
+    /**
+     * Indica se a saída mantém a cena na tela, caso em que vale a pena atualizá-la depois de cada comando.
+     *
+     * @return Verdadeiro para terminais ANSI.
+     */
+    public boolean keepsScene() {
+        return screen != null;
+    }
+
+    /**
+     * Escreve um texto seguido de quebra de linha.
+     *
+     * @param text O texto a ser escrito.
+     */
+    public void println(String text) {
+        lock.lock();
+        try {
+            out.println(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve a arte de um cenário seguida de quebra de linha, com os bytes já codificados.
+     *
+     * @param view A arte.
+     */
+    public void printView(EncodedView view) {
+        if (target == null) {
+            return; // Saída silenciosa
+        }
+        lock.lock();
+        try {
+            if (screen != null) {
+                screen.showView(view);
+            } else if (utf8) {
+                seal();
+                parts.add(view.line()); // O array do cache, escrito no destino sem cópia
+            } else {
+                out.println(view.text());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve a descrição do cenário atual, que num terminal ANSI faz parte da cena fixa.
+     *
+     * @param description A descrição.
+     */
+    public void printDescription(String description) {
+        lock.lock();
+        try {
+            if (screen != null) {
+                screen.showDescription(description);
+            } else {
+                out.println(description);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atualiza a cena fixa de um terminal ANSI com o estado atual do cenário, enviando só o que mudou.
+     * Sem tela ANSI, não escreve nada.
+     *
+     * @param view        A arte do cenário.
+     * @param description A descrição do cenário.
+     */
+    public void refreshScene(EncodedView view, String description) {
+        lock.lock();
+        try {
+            if (screen != null) {
+                screen.showScene(view, description);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve um texto sem quebra de linha.
+     *
+     * @param text O texto a ser escrito.
+     */
+    public void print(String text) {
+        lock.lock();
+        try {
+            out.print(text);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve um texto formatado.
+     *
+     * @param format O formato, como em {@link String#format(String, Object...)}.
+     * @param args   Os argumentos do formato.
+     */
+    public void printf(String format, Object... args) {
+        lock.lock();
+        try {
+            out.printf(format, args);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Escreve uma mensagem que não pertence a nenhum comando (como os avisos do StagSpotter)
+     * e a envia na hora, junto com o que já estiver no buffer.
+     *
+     * @param text O texto a ser escrito.
+     */
+    public void announce(String text) {
+        lock.lock();
+        try {
+            out.println(text);
+            release();
+        } finally {
+            lock.unlock();
+        }
+        send();
+    }
+
+    /**
+     * Liga ou desliga as pausas de narração. Clientes com roteiro e bots usam o modo rápido,
+     * em que todo o texto sai sem atraso.
+     *
+     * @param paced Verdadeiro para respeitar as pausas.
+     */
+    public void setPaced(boolean paced) {
+        this.paced = paced;
+    }
+
+    /**
+     * Envia ao destino, numa única escrita, todo o texto acumulado desde o último envio.
+     * Se ainda houver narração aguardando uma pausa, o texto entra na fila atrás dela.
+     * Falhas de escrita (conexão perdida) são ignoradas: a sessão termina quando a entrada acabar.
+     */
+    public void flush() {
+        lock.lock();
+        try {
+            release();
+        } finally {
+            lock.unlock();
+        }
+        send();
+    }
+
+    // Com a trava: fecha o texto do buffer como um trecho, depois dos anteriores
+    private void seal() {
+        out.flush();
+        if (buffer.size() > 0) {
+            parts.add(buffer.toByteArray());
+            buffer.reset();
+        }
+    }
+
+    // Com a trava: tira os trechos do comando e os põe na caixa de saída ou, se houver uma pausa, na fila
+    private void release() {
+        seal();
+        if (parts.isEmpty()) {
+            return;
+        }
+        byte[][] text = parts.toArray(new byte[0][]);
+        parts.clear();
+        long now = System.nanoTime();
+        if (pending.isEmpty() && releaseAt - now <= 0) {
+            outbox.add(text);
+        } else {
+            pending.add(new Narration(releaseAt, text));
+            if (delivery == null) {
+                scheduleDelivery(now);
+            }
+        }
+    }
+
+    // Escreve no destino, em ordem, os trechos da caixa de saída; chamado sem a trava do buffer
+    private void send() {
+        writeLock.lock();
+        try {
+            while (true) {
+                byte[][] text;
+                lock.lock();
+                try {
+                    text = outbox.poll();
+                } finally {
+                    lock.unlock();
+                }
+                if (text == null) {
+                    return;
+                }
+                write(text);
+            }
+        } finally {
+            writeLock.unlock();
+        }
+    }
+
+    /**
+     * Pausa a narração por um tempo, para efeito dramático, sem bloquear a sessão: o texto anterior
+     * segue agora e o texto escrito depois só é entregue quando a pausa terminar.
+     *
+     * @param millis O tempo da pausa em milissegundos.
+     */
+    public void pause(long millis) {
+        if (!paced) {
+            return;
+        }
+        lock.lock();
+        try {
+            release();
+            long now = System.nanoTime();
+            releaseAt = (releaseAt - now > 0 ? releaseAt : now) + TimeUnit.MILLISECONDS.toNanos(millis);
+        } finally {
+            lock.unlock();
+        }
+        send();
+    }
+
+    /**
+     * Envia na hora o texto do buffer e toda a narração ainda na fila, sem esperar as pausas.
+     * Chamado quando a sessão termina, antes de fechar a conexão.
+     */
+    public void finish() {
+        lock.lock();
+        try {
+            if (delivery != null) {
+                delivery.cancel(false);
+                delivery = null;
+            }
+            while (!pending.isEmpty()) {
+                outbox.add(pending.poll().text());
+            }
+            releaseAt = System.nanoTime();
+            release();
+        } finally {
+            lock.unlock();
+        }
+        send();
+    }
+
+    // Com a trava
+    private void scheduleDelivery(long now) {
+        delivery = AmbientScheduler.shared().schedule(this::deliver, pending.peek().at() - now, TimeUnit.NANOSECONDS);
+    }
+
+    // Entrega os trechos cujo instante chegou e agenda a entrega do próximo
+    private void deliver() {
+        lock.lock();
+        try {
+            delivery = null;
+            long now = System.nanoTime();
+            while (!pending.isEmpty() && pending.peek().at() - now <= 0) {
+                outbox.add(pending.poll().text());
+            }
+            if (!pending.isEmpty()) {
+                scheduleDelivery(now);
+            }
+        } finally {
+            lock.unlock();
+        }
+        send();
+    }
+
+    private void write(byte[][] text) {
+        try {
+            for (byte[] part : text) {
+                target.write(part);
+            }
+            target.flush();
+        } catch (IOException e) {
+            // Conexão perdida: o texto é descartado, como faria um PrintStream
+        }
+    }
+
+    /**
+     * Os trechos de um texto e o instante ({@link System#nanoTime()}) a partir do qual podem ser entregues.
+     */
+    private record Narration(long at, byte[][] text) {}
+}
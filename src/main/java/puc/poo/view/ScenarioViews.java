@@ -7,6 +7,21 @@ package puc.poo.view;
 // Observação: seguir o padrão da documentação de cada cenário para novos cenários.
 public class ScenarioViews {
 
+    /**
+     * Retorna a arte de um cenário pelo nome usado nos arquivos de definição de mundo.
+     *
+     * @param view O nome da arte ("floresta", "exterior-cabana" ou "interior-cabana").
+     * @return A representação ASCII do cenário, ou {@code null} se o nome não existir.
+     */
+    public static String byName(String view) {
+        return switch (view) {
+            case "floresta" -> forest_scenario();
+            case "exterior-cabana" -> exteriorCabin_scenario();
+            case "interior-cabana" -> interiorCabin_scenario();
+            default -> null;
+        };
+    }
+
     /**
      * Retorna a representação ASCII do cenário da floresta.
      *
@@ -0,0 +1,64 @@
+package puc.poo.controller;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testes da tabela de verbos do processador de comandos.
+ */
+class VerbTableTest {
+
+    private static String lookup(VerbTable<String> table, String text) {
+        return table.lookup(text, 0, text.length());
+    }
+
+    @Test
+    void findsVerbsAndSynonymsIgnoringCase() {
+        VerbTable<String> table = new VerbTable<>();
+        table.register("olhar", "olhar", "observar", "ver");
+        table.register("distância", "Distância", "distancia");
+
+        assertEquals("olhar", lookup(table, "ver"));
+        assertEquals("olhar", lookup(table, "OBSERVAR"));
+        assertEquals("distância", lookup(table, "distância"));
+        assertEquals("distância", lookup(table, "DISTANCIA"));
+        assertNull(lookup(table, "v"));
+        assertNull(lookup(table, "verr"));
+        assertNull(lookup(table, ""));
+    }
+
+    @Test
+    void looksUpPartOfTheText() {
+        VerbTable<String> table = new VerbTable<>();
+        table.register("pegar", "pegar");
+        StringBuilder command = new StringBuilder("  Pegar chave da cabana");
+
+        assertEquals("pegar", table.lookup(command, 2, 7));
+        assertNull(table.lookup(command, 2, 6));
+        assertNull(table.lookup(command, 0, 7));
+    }
+
+    @Test
+    void laterRegistrationReplacesHandler() {
+        VerbTable<String> table = new VerbTable<>();
+        table.register("antigo", "usar");
+        table.register("novo", "USAR");
+
+        assertEquals("novo", lookup(table, "usar"));
+    }
+
+    @Test
+    void keepsEveryVerbWhenGrowing() {
+        VerbTable<Integer> table = new VerbTable<>();
+        for (int i = 0; i < 1000; i++) {
+            table.register(i, "verbo" + i);
+        }
+        for (int i = 0; i < 1000; i++) {
+            String verb = "VERBO" + i;
+            assertEquals(i, table.lookup(verb, 0, verb.length()));
+        }
+        assertNull(table.lookup("verbo1000", 0, 9));
+    }
+}
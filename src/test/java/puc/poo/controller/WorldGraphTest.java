@@ -0,0 +1,101 @@
+package puc.poo.controller;
+
+import org.junit.jupiter.api.Test;
+import puc.poo.model.Player;
+import puc.poo.model.Scenario;
+import puc.poo.model.Stag;
+import puc.poo.model.WorldRandom;
+import puc.poo.view.OutputSink;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes dos caminhos entre cenários no mundo padrão: Floresta, Exterior da Cabana e, pela porta
+ * trancada, Interior da Cabana.
+ */
+class WorldGraphTest {
+
+    private static ScenarioManager world(boolean paged) {
+        ScenarioManager world = new ScenarioManager(new Player(), new Stag(new WorldRandom(1)));
+        if (paged) {
+            world.loadWorld(WorldTemplate.defaultWorld());
+        } else {
+            world.initializeScenarios();
+        }
+        return world;
+    }
+
+    private static void play(ScenarioManager world, String... commands) {
+        CommandProcessor processor = new CommandProcessor(world.getPlayer(), world.getScenarios(), OutputSink.silent());
+        for (String command : commands) {
+            processor.processCommand(command);
+        }
+    }
+
+    @Test
+    void findsPlacesByPartOfTheName() {
+        for (boolean paged : new boolean[]{false, true}) {
+            WorldGraph graph = world(paged).getGraph();
+
+            assertEquals("Floresta", graph.scenario(graph.find("floresta")).getName());
+            assertEquals("Interior da Cabana", graph.scenario(graph.find("INTERIOR")).getName());
+            assertEquals("Exterior da Cabana", graph.scenario(graph.find("cabana")).getName());
+            assertEquals("Exterior da Cabana", graph.scenario(graph.find("  exterior da cabana ")).getName());
+            assertEquals(-1, graph.find("lago"));
+            assertEquals(-1, graph.find(" "));
+        }
+    }
+
+    @Test
+    void closedDoorBlocksTheRoute() {
+        ScenarioManager world = world(false);
+        WorldGraph graph = world.getGraph();
+        Scenario forest = world.getPlayer().getCurrentScenario();
+        int outside = graph.find("exterior");
+        int inside = graph.find("interior");
+
+        assertEquals(1, graph.distance(forest, outside));
+        assertEquals(-1, graph.distance(forest, inside));
+        assertNull(graph.route(forest, inside));
+        assertTrue(graph.reachableThroughDoors(forest, inside));
+        assertEquals(0, graph.distance(forest, graph.find("floresta")));
+    }
+
+    @Test
+    void openingTheDoorUpdatesCachedRoutes() {
+        for (boolean paged : new boolean[]{false, true}) {
+            ScenarioManager world = world(paged);
+            WorldGraph graph = world.getGraph();
+            Scenario forest = world.getPlayer().getCurrentScenario();
+            int inside = graph.find("interior");
+            assertNull(graph.route(forest, inside));
+
+            play(world, "ir norte", "usar pote", "abrir porta");
+
+            WorldGraph.Route route = graph.route(forest, inside);
+            assertEquals(2, route.length());
+            assertEquals(List.of("norte", "porta"), route.steps());
+            assertArrayEquals(new int[]{0, 1, 2}, graph.distances(forest));
+
+            play(world, "fechar porta");
+            assertEquals(-1, graph.distance(forest, inside));
+        }
+    }
+
+    @Test
+    void unknownTargetHasNoRoute() {
+        ScenarioManager world = world(false);
+        WorldGraph graph = world.getGraph();
+        Scenario forest = world.getPlayer().getCurrentScenario();
+
+        assertNull(graph.route(forest, -1));
+        assertNull(graph.route(forest, 3));
+        assertFalse(graph.reachableThroughDoors(forest, 3));
+    }
+}
@@ -0,0 +1,72 @@
+package puc.poo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.BitSet;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do conjunto imutável de ids, comparado com um {@link BitSet}.
+ */
+class IdSetTest {
+
+    @Test
+    void olderVersionsDoNotChange() {
+        IdSet empty = IdSet.EMPTY;
+        IdSet one = empty.with(5);
+        IdSet two = one.with(70_000);
+        IdSet back = two.without(5);
+
+        assertFalse(empty.contains(5));
+        assertTrue(one.contains(5));
+        assertFalse(one.contains(70_000));
+        assertTrue(two.contains(5) && two.contains(70_000));
+        assertFalse(back.contains(5));
+        assertTrue(back.contains(70_000));
+        assertTrue(two.contains(5));
+    }
+
+    @Test
+    void unchangedSetIsReused() {
+        IdSet set = IdSet.EMPTY.with(3);
+
+        assertSame(set, set.with(3));
+        assertSame(set, set.without(4));
+        assertSame(IdSet.EMPTY, IdSet.EMPTY.without(9_000));
+    }
+
+    @Test
+    void rejectsNonPositiveIds() {
+        assertFalse(IdSet.EMPTY.contains(0));
+        assertFalse(IdSet.EMPTY.contains(-1));
+        assertThrows(IllegalArgumentException.class, () -> IdSet.EMPTY.with(0));
+    }
+
+    @Test
+    void matchesBitSetAfterRandomChanges() {
+        Random random = new Random(3);
+        IdSet set = IdSet.EMPTY;
+        BitSet expected = new BitSet();
+        for (int step = 0; step < 20_000; step++) {
+            int id = 1 + random.nextInt(step < 10_000 ? 20_000 : 300);
+            if (random.nextBoolean()) {
+                set = set.with(id);
+                expected.set(id);
+            } else {
+                set = set.without(id);
+                expected.clear(id);
+            }
+            int probe = 1 + random.nextInt(20_000);
+            assertEquals(expected.get(probe), set.contains(probe), "id " + probe);
+        }
+        for (int id = 1; id <= 20_000; id++) {
+            assertEquals(expected.get(id), set.contains(id), "id " + id);
+        }
+    }
+}
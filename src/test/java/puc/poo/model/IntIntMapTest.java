@@ -0,0 +1,99 @@
+package puc.poo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Testes do mapa de inteiros, comparado com um {@link HashMap}.
+ */
+class IntIntMapTest {
+
+    @Test
+    void putGetAndRemove() {
+        IntIntMap map = new IntIntMap(4);
+        map.put(7, 70);
+        map.put(3, 30);
+        map.put(7, 71);
+
+        assertEquals(2, map.size());
+        assertEquals(71, map.get(7, -1));
+        assertEquals(30, map.get(3, -1));
+        assertEquals(-1, map.get(5, -1));
+        assertTrue(map.remove(7));
+        assertFalse(map.remove(7));
+        assertFalse(map.remove(0));
+        assertEquals(-1, map.get(7, -1));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    void rejectsNonPositiveKeys() {
+        IntIntMap map = new IntIntMap();
+        assertThrows(IllegalArgumentException.class, () -> map.put(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> map.put(-3, 1));
+    }
+
+    @Test
+    void keyZeroIsNeverFound() {
+        IntIntMap map = new IntIntMap(4);
+        assertEquals(-1, map.get(0, -1));
+        for (int key = 1; key <= 3; key++) {
+            map.put(key, key * 10);
+        }
+        for (int key = 1; key <= 3; key++) {
+            map.remove(key); // Deixa valores antigos nas vagas livres, se não forem apagados
+        }
+
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(-1, map.get(-5, -1));
+        assertFalse(map.remove(0));
+        map.put(9, 90);
+        map.clear();
+        assertEquals(-1, map.get(0, -1));
+        assertEquals(0, map.size());
+    }
+
+    @Test
+    void clearEmptiesTheMap() {
+        IntIntMap map = new IntIntMap();
+        for (int key = 1; key <= 100; key++) {
+            map.put(key, key);
+        }
+        map.clear();
+
+        assertEquals(0, map.size());
+        assertEquals(-1, map.get(50, -1));
+        map.put(50, 5);
+        assertEquals(5, map.get(50, -1));
+    }
+
+    @Test
+    void matchesHashMapAfterRandomChanges() {
+        Random random = new Random(11);
+        IntIntMap map = new IntIntMap(2);
+        Map<Integer, Integer> expected = new HashMap<>();
+        for (int step = 0; step < 100_000; step++) {
+            int key = 1 + random.nextInt(step < 50_000 ? 2000 : 64); // Depois, muitas remoções numa tabela grande
+            if (random.nextInt(3) == 0) {
+                assertEquals(expected.remove(key) != null, map.remove(key));
+            } else {
+                map.put(key, step);
+                expected.put(key, step);
+            }
+            assertEquals(expected.size(), map.size());
+            int probe = 1 + random.nextInt(2000);
+            assertEquals(expected.getOrDefault(probe, -1), map.get(probe, -1), "chave " + probe);
+        }
+        for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+            assertEquals(entry.getValue(), map.get(entry.getKey(), -1));
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package puc.poo.model;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Testes do índice de trigramas dos nomes, comparado com a busca linear que ele substitui.
+ */
+class ObjectNameIndexTest {
+    private final ObjectRegistry registry = new ObjectRegistry();
+
+    private GameObject object(String name) {
+        return new GameObject(registry, name, "");
+    }
+
+    // A semântica esperada: o primeiro objeto, na ordem de inserção, cujo nome contém o trecho
+    private static GameObject linearFind(List<GameObject> objects, String query) {
+        if (query.isEmpty()) {
+            return null;
+        }
+        for (GameObject object : objects) {
+            if (ObjectNameIndex.normalize(object.getName()).contains(query)) {
+                return object;
+            }
+        }
+        return null;
+    }
+
+    @Test
+    void findsByAnyPartOfTheNameIgnoringCase() {
+        ObjectNameIndex index = new ObjectNameIndex();
+        GameObject key = object("Chave da Cabana");
+        GameObject chest = object("baú");
+        index.add(key);
+        index.add(chest);
+
+        assertSame(key, index.find("chave da cabana"));
+        assertSame(key, index.find("cabana"));
+        assertSame(key, index.find("ve d"));
+        assertSame(key, index.find("ch"));
+        assertSame(chest, index.find("baú"));
+        assertSame(chest, index.find("ú"));
+        assertNull(index.find("porta"));
+        assertNull(index.find(""));
+    }
+
+    @Test
+    void prefersFirstInsertedObject() {
+        ObjectNameIndex index = new ObjectNameIndex();
+        GameObject houseKey = object("chave da cabana");
+        GameObject chestKey = object("chave do baú");
+        index.add(houseKey);
+        index.add(chestKey);
+
+        assertSame(houseKey, index.find("chave"));
+        index.remove(houseKey);
+        assertSame(chestKey, index.find("chave"));
+        index.add(houseKey);
+        assertSame(chestKey, index.find("chave"));
+    }
+
+    @Test
+    void clearRemovesEverything() {
+        ObjectNameIndex index = new ObjectNameIndex();
+        index.add(object("rifle de caça"));
+        index.clear();
+
+        assertNull(index.find("rifle"));
+        assertNull(index.find("ri"));
+    }
+
+    @Test
+    void matchesLinearSearchAfterRandomChanges() {
+        String[] words = {"chave", "baú", "rifle", "porta", "pote", "lareira", "retrato", "munição", "de", "da", "a"};
+        Random random = new Random(7);
+        ObjectNameIndex index = new ObjectNameIndex();
+        List<GameObject> objects = new ArrayList<>();
+        for (int step = 0; step < 5000; step++) {
+            if (objects.isEmpty() || random.nextInt(3) > 0) {
+                String name = words[random.nextInt(words.length)] + " " + words[random.nextInt(words.length)]
+                        + (random.nextBoolean() ? "" : " " + step);
+                GameObject object = object(random.nextBoolean() ? name : name.toUpperCase());
+                index.add(object);
+                objects.add(object);
+            } else {
+                GameObject object = objects.remove(random.nextInt(objects.size()));
+                index.remove(object);
+            }
+            String query = words[random.nextInt(words.length)];
+            query = query.substring(random.nextInt(query.length()));
+            assertEquals(linearFind(objects, query), index.find(query), "consulta \"" + query + "\"");
+        }
+    }
+}
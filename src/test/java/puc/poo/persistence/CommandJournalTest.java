@@ -0,0 +1,118 @@
+package puc.poo.persistence;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Testes do diário de comandos: ida e volta, epoch, CRC e registros incompletos no fim do arquivo.
+ */
+class CommandJournalTest {
+    private static final long NO_BATCH = 60_000; // Os testes gravam com flush, sem esperar a janela de lote
+
+    @TempDir
+    Path directory;
+
+    private Path write(long epoch, String... commands) throws IOException {
+        Path file = directory.resolve("sessao.wal");
+        try (CommandJournal journal = new CommandJournal(file, epoch, NO_BATCH)) {
+            for (String command : commands) {
+                journal.appendCommand(command);
+            }
+            journal.flush();
+        }
+        return file;
+    }
+
+    @Test
+    void readsBackCommandsAndEpoch() throws IOException {
+        String longCommand = "olhar " + "x".repeat(300); // Tamanho com mais de um byte de varint
+        Path file = write(42, "ir norte", "usar pote", "pegar chave da cabana", "distância floresta", longCommand);
+
+        CommandJournal.Contents contents = CommandJournal.read(file);
+
+        assertEquals(42, contents.epoch());
+        assertEquals(List.of("ir norte", "usar pote", "pegar chave da cabana", "distância floresta", longCommand),
+                contents.commands());
+    }
+
+    @Test
+    void resetStartsNewEpoch() throws IOException {
+        Path file = directory.resolve("sessao.wal");
+        try (CommandJournal journal = new CommandJournal(file, 1, NO_BATCH)) {
+            journal.appendCommand("ir norte");
+            journal.flush();
+            journal.reset(2);
+            journal.appendCommand("usar pote");
+        }
+
+        CommandJournal.Contents contents = CommandJournal.read(file);
+
+        assertEquals(2, contents.epoch());
+        assertEquals(List.of("usar pote"), contents.commands());
+    }
+
+    @Test
+    void reopeningDiscardsPreviousContents() throws IOException {
+        write(1, "ir norte", "usar pote", "abrir porta");
+        Path file = write(2, "olhar");
+
+        assertEquals(List.of("olhar"), CommandJournal.read(file).commands());
+    }
+
+    @Test
+    void dropsIncompleteRecordAtTheEnd() throws IOException {
+        Path file = write(7, "ir norte", "usar pote", "abrir porta");
+        byte[] data = Files.readAllBytes(file);
+        byte[] twoRecords = Arrays.copyOf(data, data.length - ("abrir porta".length() + 6)); // tipo + tamanho + crc
+
+        for (int cut = 1; cut < "abrir porta".length() + 6; cut++) {
+            Files.write(file, Arrays.copyOf(data, data.length - cut));
+            assertEquals(List.of("ir norte", "usar pote"), CommandJournal.read(file).commands(), "corte " + cut);
+        }
+        Files.write(file, twoRecords);
+        assertEquals(List.of("ir norte", "usar pote"), CommandJournal.read(file).commands());
+    }
+
+    @Test
+    void stopsAtRecordWithInvalidChecksum() throws IOException {
+        Path file = write(7, "ir norte", "usar pote", "abrir porta");
+        byte[] data = Files.readAllBytes(file);
+        int second = 12 + 1 + 1 + "ir norte".length() + 4; // Cabeçalho e o primeiro registro
+        data[second + 2] ^= 0x20; // Um caractere de "usar pote"
+        Files.write(file, data);
+
+        assertEquals(List.of("ir norte"), CommandJournal.read(file).commands());
+    }
+
+    @Test
+    void rejectsMissingFileOrHeader() throws IOException {
+        assertNull(CommandJournal.read(directory.resolve("inexistente.wal")));
+
+        Path file = write(3, "olhar");
+        byte[] data = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(data, 11));
+        assertNull(CommandJournal.read(file));
+
+        data[0] ^= 1;
+        Files.write(file, data);
+        assertNull(CommandJournal.read(file));
+    }
+
+    @Test
+    void emptyJournalHasOnlyTheHeader() throws IOException {
+        Path file = write(9);
+
+        assertArrayEquals(new byte[]{'J', 'W', 'A', 'L', 0, 0, 0, 0, 0, 0, 0, 9}, Files.readAllBytes(file));
+        assertEquals(List.of(), CommandJournal.read(file).commands());
+    }
+}
@@ -0,0 +1,212 @@
+package puc.poo.persistence;
+
+import org.junit.jupiter.api.Test;
+import puc.poo.controller.CommandProcessor;
+import puc.poo.controller.ScenarioManager;
+import puc.poo.controller.WorldTemplate;
+import puc.poo.model.Player;
+import puc.poo.model.Stag;
+import puc.poo.model.WorldRandom;
+import puc.poo.view.OutputSink;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * Testes do formato dos jogos salvos: ida e volta das versões 1, 2 e 3 e recusa de arquivos corrompidos.
+ */
+class GameSnapshotTest {
+    private static final String[] COMMANDS = {"ir norte", "usar pote", "abrir porta", "ir porta", "usar lareira"};
+
+    private static ScenarioManager textWorld(long seed) {
+        ScenarioManager world = new ScenarioManager(new Player(), new Stag(new WorldRandom(seed)));
+        world.initializeScenarios();
+        return world;
+    }
+
+    private static ScenarioManager pagedWorld(long seed) {
+        ScenarioManager world = new ScenarioManager(new Player(), new Stag(new WorldRandom(seed)));
+        world.loadWorld(WorldTemplate.defaultWorld());
+        return world;
+    }
+
+    private static void play(ScenarioManager world, String... commands) {
+        CommandProcessor processor = new CommandProcessor(world.getPlayer(), world.getScenarios(), OutputSink.silent());
+        for (String command : commands) {
+            processor.processCommand(command);
+        }
+    }
+
+    @Test
+    void restoresTextWorld() throws IOException {
+        ScenarioManager source = textWorld(1);
+        play(source, COMMANDS);
+        byte[] snapshot = GameSnapshot.capture(source);
+        assertEquals(2, snapshot[4]);
+
+        ScenarioManager target = textWorld(2);
+        GameSnapshot.restore(target, snapshot);
+
+        assertArrayEquals(snapshot, GameSnapshot.capture(target));
+        assertEquals("Interior da Cabana", target.getPlayer().getCurrentScenario().getName());
+        assertEquals(source.getStag().getRandom().getState(), target.getStag().getRandom().getState());
+    }
+
+    @Test
+    void restoresPagedWorld() throws IOException {
+        ScenarioManager source = pagedWorld(1);
+        play(source, COMMANDS);
+        byte[] snapshot = GameSnapshot.capture(source);
+        assertEquals(3, snapshot[4]);
+
+        ScenarioManager target = pagedWorld(2);
+        GameSnapshot.restore(target, snapshot);
+
+        assertArrayEquals(snapshot, GameSnapshot.capture(target));
+        assertEquals("Interior da Cabana", target.getPlayer().getCurrentScenario().getName());
+    }
+
+    @Test
+    void restoresVersionWithoutRandomState() throws IOException {
+        ScenarioManager source = textWorld(1);
+        play(source, COMMANDS);
+        byte[] version1 = withoutRandomState(GameSnapshot.capture(source));
+
+        ScenarioManager target = textWorld(2);
+        long random = target.getStag().getRandom().getState();
+        GameSnapshot.restore(target, version1);
+
+        // A fonte de aleatoriedade continua de onde estava; o resto é o estado gravado
+        assertEquals(random, target.getStag().getRandom().getState());
+        target.getStag().getRandom().setState(source.getStag().getRandom().getState());
+        assertArrayEquals(GameSnapshot.capture(source), GameSnapshot.capture(target));
+    }
+
+    // Converte um snapshot da versão 2 na versão 1, tirando o randomState que segue as flags do veado
+    private static byte[] withoutRandomState(byte[] snapshot) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        in.readInt();
+        in.readByte();
+        GameSnapshot.readVarInt(in); // Objetos
+        GameSnapshot.readVarInt(in); // Cenários
+        GameSnapshot.readVarInt(in); // Cenário atual
+        for (int i = 0, count = GameSnapshot.readVarInt(in); i < count; i++) {
+            GameSnapshot.readVarInt(in);
+        }
+        for (int i = 0, count = GameSnapshot.readVarInt(in); i < count; i++) {
+            GameSnapshot.readVarInt(in);
+        }
+        in.readByte(); // Flags do veado
+        int randomAt = snapshot.length - in.available();
+
+        byte[] version1 = new byte[snapshot.length - Long.BYTES];
+        System.arraycopy(snapshot, 0, version1, 0, randomAt);
+        System.arraycopy(snapshot, randomAt + Long.BYTES, version1, randomAt, snapshot.length - randomAt - Long.BYTES);
+        version1[4] = 1;
+        return version1;
+    }
+
+    @Test
+    void rejectsTruncatedSnapshotsWithoutChangingTheWorld() throws IOException {
+        for (boolean paged : new boolean[]{false, true}) {
+            ScenarioManager source = paged ? pagedWorld(1) : textWorld(1);
+            play(source, COMMANDS);
+            byte[] snapshot = GameSnapshot.capture(source);
+
+            ScenarioManager target = paged ? pagedWorld(2) : textWorld(2);
+            play(target, "ir norte");
+            byte[] before = GameSnapshot.capture(target);
+            for (int length = 0; length < snapshot.length; length++) {
+                byte[] truncated = Arrays.copyOf(snapshot, length);
+                assertThrows(IOException.class, () -> GameSnapshot.restore(target, truncated), "tamanho " + length);
+                assertArrayEquals(before, GameSnapshot.capture(target), "tamanho " + length);
+            }
+        }
+    }
+
+    @Test
+    void rejectsCorruptedSnapshotsWithoutChangingTheWorld() throws IOException {
+        Random random = new Random(5);
+        for (boolean paged : new boolean[]{false, true}) {
+            ScenarioManager source = paged ? pagedWorld(1) : textWorld(1);
+            play(source, COMMANDS);
+            byte[] snapshot = GameSnapshot.capture(source);
+
+            ScenarioManager target = paged ? pagedWorld(2) : textWorld(2);
+            play(target, "ir norte");
+            byte[] before = GameSnapshot.capture(target);
+            for (int i = 0; i < 2000; i++) {
+                byte[] corrupted = snapshot.clone();
+                for (int flips = 1 + random.nextInt(3); flips > 0; flips--) {
+                    corrupted[random.nextInt(corrupted.length)] = (byte) random.nextInt(256);
+                }
+                try {
+                    GameSnapshot.restore(target, corrupted);
+                    GameSnapshot.restore(target, before); // Um byte alterado pode ainda ser um estado válido
+                } catch (IOException e) {
+                    assertArrayEquals(before, GameSnapshot.capture(target));
+                }
+            }
+        }
+    }
+
+    @Test
+    void rejectsMissingPreviousScenario() throws IOException {
+        for (boolean paged : new boolean[]{false, true}) {
+            ScenarioManager source = paged ? pagedWorld(1) : textWorld(1);
+            play(source, COMMANDS);
+            byte[] snapshot = GameSnapshot.capture(source);
+            byte[] noPrevious = snapshot.clone();
+            noPrevious[firstPreviousScenario(source, snapshot)] = 0;
+
+            ScenarioManager target = paged ? pagedWorld(2) : textWorld(2);
+            byte[] before = GameSnapshot.capture(target);
+            IOException e = assertThrows(IOException.class, () -> GameSnapshot.restore(target, noPrevious));
+            assertEquals("Cenário inválido no jogo salvo: 0", e.getMessage());
+            assertArrayEquals(before, GameSnapshot.capture(target));
+        }
+    }
+
+    // Posição do primeiro cenário anterior; no mundo padrão, índices e ids cabem num byte de varint
+    private static int firstPreviousScenario(ScenarioManager world, byte[] snapshot) throws IOException {
+        int previous = world.getPlayer().getPreviousScenarios().size();
+        if (snapshot[4] == 3) {
+            // O jogador fecha o snapshot: current previousCount previous* inventoryCount objectId*
+            return snapshot.length - world.getPlayer().getInventory().size() - 1 - previous;
+        }
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(snapshot));
+        in.readInt();
+        in.readByte();
+        GameSnapshot.readVarInt(in); // Objetos
+        GameSnapshot.readVarInt(in); // Cenários
+        GameSnapshot.readVarInt(in); // Cenário atual
+        assertEquals(previous, GameSnapshot.readVarInt(in));
+        return snapshot.length - in.available();
+    }
+
+    @Test
+    void rejectsSnapshotOfAnotherWorld() throws IOException {
+        byte[] snapshot = GameSnapshot.capture(textWorld(1));
+        ScenarioManager target = textWorld(2);
+
+        byte[] badMagic = snapshot.clone();
+        badMagic[0] ^= 1;
+        assertThrows(IOException.class, () -> GameSnapshot.restore(target, badMagic));
+
+        byte[] otherWorld = snapshot.clone();
+        otherWorld[5]++; // Número de objetos
+        IOException e = assertThrows(IOException.class, () -> GameSnapshot.restore(target, otherWorld));
+        assertEquals("O jogo salvo pertence a outro mundo.", e.getMessage());
+
+        byte[] unknownVersion = snapshot.clone();
+        unknownVersion[4] = 9;
+        assertThrows(IOException.class, () -> GameSnapshot.restore(target, unknownVersion));
+    }
+}